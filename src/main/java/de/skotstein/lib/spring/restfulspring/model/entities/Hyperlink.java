@@ -65,7 +65,7 @@ public class Hyperlink {
 
     public Hyperlink(String href, String rel, String relHref, String method, String mimeType){
         this.href = href;
-        this.rel = rel;
+        this.rel = intern(rel);
         this.relHref = relHref;
         this.method = method;
         this.mimeType = mimeType;
@@ -80,7 +80,7 @@ public class Hyperlink {
     }
 
     public void setRel(String rel){
-        this.rel = rel;
+        this.rel = intern(rel);
     }
 
     public void setRelHref(String relHref){
@@ -129,5 +129,11 @@ public class Hyperlink {
     public String getMethod(){
         return this.method;
     }
-}
 
+    /**
+     * Relations are drawn from a small vocabulary, hence they are interned so that hyperlinks share their relation names
+     */
+    private static String intern(String rel){
+        return rel == null ? null : rel.intern();
+    }
+}
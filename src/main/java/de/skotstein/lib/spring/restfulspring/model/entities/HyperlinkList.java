@@ -0,0 +1,229 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.model.entities;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * List of {@link Hyperlink}s that additionally indexes its hyperlinks by link relation, so that hyperlinks having a particular relation are found without scanning the list.
+ * Multiple hyperlinks may have the same relation, the index preserves their order. The list itself behaves like an {@link ArrayList}, i.e., it can be modified by any
+ * method of the {@link List} interface and is serialized like any other list.
+ *
+ * Appending and removing hyperlinks updates the index, other modifications (e.g., inserting a hyperlink in the middle of the list) cause the index to be rebuilt with the next
+ * lookup. Hyperlinks do not know the lists containing them, hence each lookup verifies that the indexed hyperlinks still have the relation they are indexed by and rebuilds
+ * the index if the relation of a contained hyperlink has been changed by {@link Hyperlink#setRel(String)}. Like {@link ArrayList}, this class is not thread-safe.
+ */
+public class HyperlinkList extends AbstractList<Hyperlink> implements RandomAccess {
+
+    private final ArrayList<Hyperlink> hyperlinks;
+    private final Map<String,List<Hyperlink>> index = new HashMap<String,List<Hyperlink>>();
+    private boolean indexed = false;
+
+    public HyperlinkList(){
+        this.hyperlinks = new ArrayList<Hyperlink>();
+    }
+
+    public HyperlinkList(Collection<Hyperlink> hyperlinks){
+        this.hyperlinks = new ArrayList<Hyperlink>(hyperlinks);
+    }
+
+    @Override
+    public Hyperlink get(int position) {
+        return hyperlinks.get(position);
+    }
+
+    @Override
+    public int size() {
+        return hyperlinks.size();
+    }
+
+    @Override
+    public Hyperlink set(int position, Hyperlink hyperlink) {
+        Hyperlink previous = hyperlinks.set(position, hyperlink);
+        indexed = false;
+        return previous;
+    }
+
+    @Override
+    public void add(int position, Hyperlink hyperlink) {
+        hyperlinks.add(position, hyperlink);
+        modCount++;
+        if(indexed && position == hyperlinks.size() - 1){
+            //appended hyperlinks are the last ones of their relation
+            index(hyperlink);
+        }else{
+            indexed = false;
+        }
+    }
+
+    @Override
+    public Hyperlink remove(int position) {
+        Hyperlink hyperlink = hyperlinks.remove(position);
+        modCount++;
+        if(indexed){
+            List<Hyperlink> relatedHyperlinks = index.get(relationOf(hyperlink));
+            int relatedPosition = relatedHyperlinks == null ? -1 : positionOf(hyperlink, relatedHyperlinks, position);
+            if(relatedPosition < 0){
+                //the relation of the hyperlink has been changed since it was indexed
+                indexed = false;
+            }else if(relatedHyperlinks.size() == 1){
+                index.remove(relationOf(hyperlink));
+            }else{
+                relatedHyperlinks.remove(relatedPosition);
+            }
+        }
+        return hyperlink;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        hyperlinks.subList(fromIndex, toIndex).clear();
+        modCount++;
+        indexed = false;
+    }
+
+    @Override
+    public void clear() {
+        hyperlinks.clear();
+        modCount++;
+        index.clear();
+        indexed = true;
+    }
+
+    /**
+     * Returns the first hyperlink having the passed link relation
+     * @param rel link relation
+     * @return the first hyperlink having the passed link relation or null if no such hyperlink exists
+     */
+    public Hyperlink getFirst(String rel){
+        List<Hyperlink> relatedHyperlinks = index().get(rel);
+        return relatedHyperlinks == null ? null : relatedHyperlinks.get(0);
+    }
+
+    /**
+     * Returns all hyperlinks having the passed link relation in the order of this list
+     * @param rel link relation
+     * @return an unmodifiable list of the hyperlinks having the passed link relation, which is empty if no such hyperlink exists
+     */
+    public List<Hyperlink> getAll(String rel){
+        List<Hyperlink> relatedHyperlinks = index().get(rel);
+        return relatedHyperlinks == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<Hyperlink>(relatedHyperlinks));
+    }
+
+    /**
+     * Returns true if this list contains a hyperlink having the passed link relation
+     * @param rel link relation
+     * @return true if such a hyperlink exists, else false
+     */
+    public boolean containsRel(String rel){
+        return index().containsKey(rel);
+    }
+
+    /**
+     * Removes the first hyperlink having the passed link relation
+     * @param rel link relation
+     * @return the removed hyperlink or null if no such hyperlink exists
+     */
+    public Hyperlink removeFirst(String rel){
+        Hyperlink hyperlink = getFirst(rel);
+        if(hyperlink == null){
+            return null;
+        }
+        for(int i = 0; i < hyperlinks.size(); i++){
+            if(hyperlinks.get(i) == hyperlink){
+                return remove(i);
+            }
+        }
+        return null;
+    }
+
+    private Map<String,List<Hyperlink>> index(){
+        if(!indexed || !isValid()){
+            index.clear();
+            for(Hyperlink hyperlink : hyperlinks){
+                index(hyperlink);
+            }
+            indexed = true;
+        }
+        return index;
+    }
+
+    private void index(Hyperlink hyperlink){
+        index.computeIfAbsent(relationOf(hyperlink), rel -> new ArrayList<Hyperlink>(1)).add(hyperlink);
+    }
+
+    /**
+     * Returns true if each indexed hyperlink still has the relation it is indexed by. Since each hyperlink of this list is indexed exactly once, the index is then
+     * complete, i.e., a hyperlink whose relation has been changed to the relation being looked up is detected as well.
+     */
+    private boolean isValid(){
+        for(Map.Entry<String,List<Hyperlink>> entry : index.entrySet()){
+            for(Hyperlink hyperlink : entry.getValue()){
+                //relations are interned, so the comparison is usually a reference check
+                if(!Objects.equals(entry.getKey(), relationOf(hyperlink))){
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the position of the passed hyperlink, which has been removed from the passed position of this list, within the hyperlinks of its relation or -1 if it is not
+     * indexed by its relation
+     */
+    private int positionOf(Hyperlink hyperlink, List<Hyperlink> relatedHyperlinks, int removedIndex){
+        int first = -1;
+        int occurrences = 0;
+        for(int i = 0; i < relatedHyperlinks.size(); i++){
+            if(relatedHyperlinks.get(i) == hyperlink){
+                if(first < 0){
+                    first = i;
+                }
+                occurrences++;
+            }
+        }
+        if(occurrences <= 1){
+            return first;
+        }
+        //the same hyperlink is contained multiple times, the n-th occurrence in this list is the n-th occurrence in the index
+        int skip = 0;
+        for(int i = 0; i < removedIndex; i++){
+            if(hyperlinks.get(i) == hyperlink){
+                skip++;
+            }
+        }
+        for(int i = first; i < relatedHyperlinks.size(); i++){
+            if(relatedHyperlinks.get(i) == hyperlink && skip-- == 0){
+                return i;
+            }
+        }
+        return first;
+    }
+
+    private static String relationOf(Hyperlink hyperlink){
+        return hyperlink == null ? null : hyperlink.getRel();
+    }
+}
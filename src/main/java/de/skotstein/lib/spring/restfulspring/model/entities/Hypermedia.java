@@ -17,6 +17,7 @@
 package de.skotstein.lib.spring.restfulspring.model.entities;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -38,7 +39,7 @@ public abstract class Hypermedia {
     public static final String NAMESPACE_XML = "hypermedia";
     public static final String NAMESPACE_XML_URN = "";
 
-    protected List<Hyperlink> hyperlinks = new ArrayList<Hyperlink>();
+    protected List<Hyperlink> hyperlinks = new HyperlinkList();
 
     @JsonProperty("_links")
     @JacksonXmlElementWrapper(localName = Hypermedia.NAMESPACE_XML+":links")
@@ -257,22 +258,49 @@ public abstract class Hypermedia {
     }
 
     public boolean hasHyperlink(String rel) {
+        if(hyperlinks instanceof HyperlinkList){
+            return ((HyperlinkList)hyperlinks).containsRel(rel);
+        }
         return getHyperlink(rel) != null;
     }
 
     public Hyperlink getHyperlink(String rel) {
+        if(hyperlinks instanceof HyperlinkList){
+            return ((HyperlinkList)hyperlinks).getFirst(rel);
+        }
         for (Hyperlink hyperlink : hyperlinks) {
-            if (hyperlink.getRel().compareTo(rel) == 0) {
+            if (Objects.equals(hyperlink.getRel(), rel)) {
                 return hyperlink;
             }
         }
         return null;
     }
 
+    /**
+     * Returns all hyperlinks having the passed link relation in the order they have been added
+     * @param rel link relation
+     * @return an unmodifiable list of the hyperlinks having the passed link relation
+     */
+    public List<Hyperlink> getHyperlinks(String rel) {
+        if(hyperlinks instanceof HyperlinkList){
+            return ((HyperlinkList)hyperlinks).getAll(rel);
+        }
+        List<Hyperlink> relatedHyperlinks = new ArrayList<Hyperlink>();
+        for (Hyperlink hyperlink : hyperlinks) {
+            if (Objects.equals(hyperlink.getRel(), rel)) {
+                relatedHyperlinks.add(hyperlink);
+            }
+        }
+        return Collections.unmodifiableList(relatedHyperlinks);
+    }
+
     public Hyperlink removeHyperlink(String rel){
+        if(hyperlinks instanceof HyperlinkList){
+            return ((HyperlinkList)hyperlinks).removeFirst(rel);
+        }
         for(int i = 0; i < hyperlinks.size(); i++){
             Hyperlink hyperlink = hyperlinks.get(i);
-            if(hyperlink.getRel().compareTo(rel)==0){
+            if(Objects.equals(hyperlink.getRel(), rel)){
                 hyperlinks.remove(i);
                 return hyperlink;
             }
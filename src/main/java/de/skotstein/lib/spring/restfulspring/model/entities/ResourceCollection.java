@@ -17,43 +17,183 @@
 package de.skotstein.lib.spring.restfulspring.model.entities;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.skotstein.lib.spring.restfulspring.util.ColumnarSnapshot;
+import de.skotstein.lib.spring.restfulspring.util.CompiledFilter;
+import de.skotstein.lib.spring.restfulspring.util.CursorPagination;
 import de.skotstein.lib.spring.restfulspring.util.Filter;
+import de.skotstein.lib.spring.restfulspring.util.FilterResultCache;
+import de.skotstein.lib.spring.restfulspring.util.IndexedList;
+import de.skotstein.lib.spring.restfulspring.util.NdjsonResponseBody;
 import de.skotstein.lib.spring.restfulspring.util.Pagination;
+import de.skotstein.lib.spring.restfulspring.util.StreamingJsonResponseBody;
 
 public abstract class ResourceCollection<T extends Hypermedia> extends Hypermedia{
     
     protected List<T> items = new ArrayList<T>();
 
+    /**
+     * Reduces the items of this collection to the items that match the passed filter and are within the range of the passed pagination.
+     * Items are filtered and paginated in a single pass and the remaining items are compacted in place, i.e., no intermediate lists are created.
+     * If the items are an {@link IndexedList} or a {@link ColumnarSnapshot}, or are filtered in parallel (see {@link CompiledFilter#isAccelerated(List, int)}), the matching items
+     * are determined by {@link CompiledFilter#filter(List, int)} instead and replace the items. A snapshot, which is immutable, is always replaced by an {@link ArrayList},
+     * even if the filter is null or empty.
+     * @param filter the filter, can be null
+     * @param pagination the pagination, can be null
+     */
     public void reduceItems(Filter filter, Pagination pagination){
-        List<T> filteredList = new ArrayList<T>();
-        if(!Objects.isNull(filter)){
-            filteredList = filter.filter(items);
-        }else{
-            for(T item: items){
-                filteredList.add(item);
+        CompiledFilter<T> compiledFilter = Objects.isNull(filter) ? null : filter.compile(null);
+        int requiredItems = Objects.isNull(pagination) ? Integer.MAX_VALUE : pagination.getRequiredItems();
+        int matches = 0;
+        if(!Objects.isNull(compiledFilter) && compiledFilter.isAccelerated(items, requiredItems)){
+            List<T> filteredList = compiledFilter.filter(items, requiredItems);
+            if(items instanceof ColumnarSnapshot){
+                items = new ArrayList<T>();
+            }else{
+                items.clear();
             }
-        }
-
-        List<T> filteredAndPaginatedList = new ArrayList<T>();
-        if(!Objects.isNull(pagination)){
-            for(int i = 0; i < filteredList.size(); i++){
-                if(!pagination.skipItem(i)){
-                    filteredAndPaginatedList.add(filteredList.get(i));
+            for(int i = 0; i < Math.min(filteredList.size(), requiredItems); i++){
+                if(Objects.isNull(pagination) || !pagination.skipItem(i)){
+                    items.add(filteredList.get(i));
+                }
+            }
+        }else if(items instanceof RandomAccess){
+            if(items instanceof ColumnarSnapshot){
+                //a snapshot is immutable, its items are compacted in a copy
+                items = new ArrayList<T>(items);
+            }
+            //kept items are moved to the front, the remaining tail is removed at once
+            int kept = 0;
+            for(int i = 0; i < items.size() && matches < requiredItems; i++){
+                T item = items.get(i);
+                if(Objects.isNull(compiledFilter) || compiledFilter.test(item)){
+                    if(Objects.isNull(pagination) || !pagination.skipItem(matches)){
+                        items.set(kept++, item);
+                    }
+                    matches++;
                 }
             }
+            items.subList(kept, items.size()).clear();
         }else{
-            for(T item: filteredList){
-                filteredAndPaginatedList.add(item);
+            for(Iterator<T> iterator = items.iterator(); iterator.hasNext();){
+                T item = iterator.next();
+                boolean keep = false;
+                if(matches < requiredItems && (Objects.isNull(compiledFilter) || compiledFilter.test(item))){
+                    keep = Objects.isNull(pagination) || !pagination.skipItem(matches);
+                    matches++;
+                }
+                if(!keep){
+                    iterator.remove();
+                }
             }
         }
-        
+    }
+
+    /**
+     * Replaces the items of this collection with the items of the passed source list that match the passed filter and are within the range of the passed pagination.
+     * The source list is not modified. Use this method to reduce a shared list, e.g., an {@link de.skotstein.lib.spring.restfulspring.util.IndexedList} whose indexes
+     * are used by the passed filter. If the passed pagination does not count totals exactly (see {@link Pagination#withExactTotals(boolean)}), filtering stops
+     * after the item following the range of the pagination.
+     * @param source the list providing the items
+     * @param filter the filter, can be null
+     * @param pagination the pagination, can be null
+     */
+    public void reduceItems(List<T> source, Filter filter, Pagination pagination){
+        int requiredItems = Objects.isNull(pagination) ? Integer.MAX_VALUE : pagination.getRequiredItems();
+        List<T> filteredList = source;
+        if(!Objects.isNull(filter)){
+            filteredList = filter.filter(source, requiredItems);
+        }
         items.clear();
-        for(T item: filteredAndPaginatedList){
-            items.add(item);
+        for(int i = 0; i < Math.min(filteredList.size(), requiredItems); i++){
+            if(Objects.isNull(pagination) || !pagination.skipItem(i)){
+                items.add(filteredList.get(i));
+            }
+        }
+    }
+
+    /**
+     * Returns a body writing this collection as JSON while the items of the passed source stream are filtered and paginated, see {@link StreamingJsonResponseBody}.
+     * The items of this collection are not modified and not written. Hyperlinks must be added to this collection before the body is written.
+     * @param mapper the object mapper
+     * @param itemsProperty the name of the JSON property holding the items
+     * @param source the stream providing the items
+     * @param filter the filter, can be null
+     * @param pagination the pagination, can be null
+     * @return the streaming body
+     */
+    public StreamingJsonResponseBody streamItems(ObjectMapper mapper, String itemsProperty, Stream<T> source, Filter filter, Pagination pagination){
+        return new StreamingJsonResponseBody(mapper, this, itemsProperty, reduce(source, filter, pagination));
+    }
+
+    /**
+     * Returns a body writing the items of the passed source stream that match the passed filter and are within the range of the passed pagination as newline-delimited JSON,
+     * see {@link NdjsonResponseBody}. The items of this collection are not modified and not written.
+     * @param mapper the object mapper
+     * @param source the stream providing the items
+     * @param filter the filter, can be null
+     * @param pagination the pagination, can be null
+     * @return the streaming body
+     */
+    public NdjsonResponseBody streamItemsAsNdjson(ObjectMapper mapper, Stream<T> source, Filter filter, Pagination pagination){
+        return new NdjsonResponseBody(mapper, reduce(source, filter, pagination));
+    }
+
+    private Stream<T> reduce(Stream<T> source, Filter filter, Pagination pagination){
+        Stream<T> reducedItems = source;
+        if(!Objects.isNull(filter)){
+            reducedItems = filter.stream(reducedItems);
+        }
+        if(!Objects.isNull(pagination)){
+            reducedItems = pagination.paginate(reducedItems);
         }
+        return reducedItems;
+    }
+
+    /**
+     * Replaces the items of this collection with the items of the page of the passed source list that is referenced by the passed cursor pagination, see {@link CursorPagination}.
+     * The source list is not modified.
+     * @param source the list providing the items, which must be sorted in ascending order by the passed sort key
+     * @param sortKey the function returning the unique sort key of an item
+     * @param filter the filter, can be null
+     * @param pagination the cursor pagination
+     */
+    public void reduceItems(List<T> source, Function<? super T, ?> sortKey, Filter filter, CursorPagination pagination){
+        List<T> page = pagination.paginate(source, sortKey, filter);
+        items.clear();
+        items.addAll(page);
+    }
+
+    /**
+     * Replaces the items of this collection with the items of the source list of the passed cache that match the passed filter and are within the range of the passed pagination.
+     * The filtered items are taken from the cache if an equivalent filter has been applied to the current version of the source list before, see {@link FilterResultCache}.
+     * @param cache the cache of the source list
+     * @param filter the filter, can be null
+     * @param pagination the pagination, can be null
+     */
+    public void reduceItems(FilterResultCache<T> cache, Filter filter, Pagination pagination){
+        reduceItems(cache.filter(filter), null, pagination);
+    }
+
+    /**
+     * Replaces the items of this collection with the items of the passed source stream that match the passed filter and are within the range of the passed pagination.
+     * The source stream is consumed lazily, i.e., only the items of the requested page are kept in memory. Use this method if the items are provided by a cursor
+     * or a generated sequence that should not be loaded into a list at once.
+     * @param source the stream providing the items
+     * @param filter the filter, can be null
+     * @param pagination the pagination, can be null
+     */
+    public void reduceItems(Stream<T> source, Filter filter, Pagination pagination){
+        items.clear();
+        reduce(source, filter, pagination).forEachOrdered(items::add);
     }
 
 }
@@ -0,0 +1,149 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.reactive;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import de.skotstein.lib.spring.restfulspring.model.entities.Hypermedia;
+import de.skotstein.lib.spring.restfulspring.model.entities.ResourceCollection;
+import de.skotstein.lib.spring.restfulspring.util.CompiledFilter;
+import de.skotstein.lib.spring.restfulspring.util.Filter;
+import de.skotstein.lib.spring.restfulspring.util.Pagination;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link ResourceCollection#reduceItems(java.util.stream.Stream, Filter, Pagination)} for Spring WebFlux, i.e., the items of a collection resource
+ * are provided by a {@link Flux} that is filtered and paginated by non-blocking operators. The filter is compiled once (see {@link Filter#compile(Class)}) and applied to each
+ * item as it is emitted, the pagination bounds the demand requested from the source if it does not count totals exactly (see {@link Pagination#withExactTotals(boolean)}).
+ * Hyperlinks of the pagination are added to the collection once the source has completed (see {@link ReactiveResourceCollection#collect()}).
+ *
+ * Like a {@link java.util.stream.Stream}, the returned publishers must be subscribed only once since the passed {@link Pagination} counts the items before and after its range.
+ * Note that hyperlinks based on {@link org.springframework.hateoas.server.mvc.WebMvcLinkBuilder} require a servlet request, hence the "self" hyperlink of the collection
+ * should be added by its href.
+ */
+public class ReactiveResourceCollection<T extends Hypermedia, C extends ResourceCollection<T>> {
+
+    private final C collection;
+    private final Flux<T> source;
+    private Filter filter = null;
+    private Pagination pagination = null;
+
+    private ReactiveResourceCollection(C collection, Flux<T> source){
+        if(Objects.isNull(collection) || Objects.isNull(source)){
+            throw new RuntimeException("The passed collection or source is null");
+        }
+        this.collection = collection;
+        this.source = source;
+    }
+
+    /**
+     * Creates a reactive collection whose items are emitted by the passed source
+     * @param collection the collection resource whose items are replaced, see {@link ReactiveResourceCollection#collect()}
+     * @param source the publisher of the items
+     * @return the reactive collection
+     */
+    public static <T extends Hypermedia, C extends ResourceCollection<T>> ReactiveResourceCollection<T,C> of(C collection, Flux<T> source){
+        return new ReactiveResourceCollection<T,C>(collection, source);
+    }
+
+    /**
+     * Sets the filter that is applied to the items of the source
+     * @param filter the filter, can be null
+     * @return this {@link ReactiveResourceCollection} instance
+     */
+    public ReactiveResourceCollection<T,C> withFilter(Filter filter){
+        this.filter = filter;
+        return this;
+    }
+
+    /**
+     * Sets the pagination that is applied to the filtered items
+     * @param pagination the pagination, can be null
+     * @return this {@link ReactiveResourceCollection} instance
+     */
+    public ReactiveResourceCollection<T,C> withPagination(Pagination pagination){
+        this.pagination = pagination;
+        return this;
+    }
+
+    /**
+     * Returns the publisher of the items of the source that match the filter and are within the range of the pagination. Use this method if the items are streamed
+     * to the client, e.g., as newline-delimited JSON (application/x-ndjson). Since the collection is not written, its hyperlinks are not updated.
+     * @return the publisher of the filtered and paginated items
+     */
+    public Flux<T> items(){
+        return source.transform(filter(filter)).transform(paginate(pagination));
+    }
+
+    /**
+     * Returns a publisher emitting the collection once the source has completed. The items of the collection are replaced with the items emitted by
+     * {@link ReactiveResourceCollection#items()} and the hyperlinks of the pagination are added (see {@link Pagination#addHyperlinksIfUsed(Hypermedia, Filter)}),
+     * which requires a "self" hyperlink of the collection. If a pagination is set and the collection has no "self" hyperlink, the returned publisher signals an error.
+     * @return the publisher of the collection
+     */
+    public Mono<C> collect(){
+        return items().collectList().map(page -> {
+            collection.reduceItems(page, null, null);
+            if(!Objects.isNull(pagination)){
+                if(!collection.hasHyperlink("self")){
+                    throw new RuntimeException("The collection must have a 'self' hyperlink to add the hyperlinks of the pagination");
+                }
+                pagination.addHyperlinksIfUsed(collection, filter);
+            }
+            return collection;
+        });
+    }
+
+    /**
+     * Returns an operator that emits the items matching the passed filter (see {@link CompiledFilter#test(Object)}), e.g., for {@link Flux#transform(Function)}.
+     * The filter is compiled when the operator is created, i.e., subsequent changes of the filter do not affect the operator.
+     * @param filter the filter, can be null
+     * @return the filter operator
+     */
+    public static <T> Function<Flux<T>,Flux<T>> filter(Filter filter){
+        if(Objects.isNull(filter)){
+            return Function.identity();
+        }
+        CompiledFilter<T> compiledFilter = filter.compile(null);
+        return items -> items.filter(compiledFilter);
+    }
+
+    /**
+     * Returns an operator that emits the items within the range of the passed pagination (see {@link Pagination#paginate(java.util.stream.Stream)}), e.g., for {@link Flux#transform(Function)}.
+     * The items before and after the range are counted as they are emitted, i.e., the totals of the pagination are complete once the source has completed. If totals are not counted exactly,
+     * at most {@link Pagination#getRequiredItems()} items are requested from the source.
+     * @param pagination the pagination, can be null
+     * @return the pagination operator
+     */
+    public static <T> Function<Flux<T>,Flux<T>> paginate(Pagination pagination){
+        if(Objects.isNull(pagination)){
+            return Function.identity();
+        }
+        return items -> Flux.defer(() -> {
+            //signals of a subscription are serialized, hence the index is not accessed concurrently
+            AtomicInteger index = new AtomicInteger();
+            Flux<T> requiredItems = items;
+            if(pagination.getRequiredItems() != Integer.MAX_VALUE){
+                requiredItems = requiredItems.take(pagination.getRequiredItems(), true);
+            }
+            return requiredItems.filter(item -> !pagination.skipItem(index.getAndIncrement()));
+        });
+    }
+}
@@ -0,0 +1,154 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.reactive;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.server.MethodNotAllowedException;
+import org.springframework.web.server.NotAcceptableStatusException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Counterpart of {@link de.skotstein.lib.spring.restfulspring.config.ResponseStatusExceptionControllerAdvice} for reactive applications (Spring WebFlux).
+ * The media type of the error representation is negotiated based on the 'Accept' header of the request of the passed {@link ServerWebExchange}.
+ */
+public class ReactiveResponseStatusExceptionControllerAdvice {
+
+    protected List<ReactiveErrorBuilder> errorBuilders = new ArrayList<ReactiveErrorBuilder>();
+    protected ReactiveErrorBuilder defaultErrorBuilder = new DefaultReactiveJsonErrorBuilder();
+
+    /**
+     * Sets the default {@link ReactiveErrorBuilder} that should be used when no other error builder could satisfy an accepted media type.
+     * @param errorBuilder default error builder
+     */
+    public void setDefaultErrorBuilder(ReactiveErrorBuilder errorBuilder){
+        defaultErrorBuilder = errorBuilder;
+    }
+
+    /**
+     * Adds a {@link ReactiveErrorBuilder} that can satisfy the media types defined within the passed instance.
+     * @param errorBuilder error builder
+     */
+    public void addErrorBuilder(ReactiveErrorBuilder errorBuilder){
+        errorBuilders.add(errorBuilder);
+    }
+
+    /**
+     * Adds a {@link ReactiveErrorBuilder} that can satisfy the passed media type.
+     * @param forMediaType satisfiable media type
+     * @param errorBuilder error builder
+     */
+    public void addErrorBuilder(MediaType forMediaType, ReactiveErrorBuilder errorBuilder){
+        errorBuilder.addCompatibleMediaType(forMediaType);
+        addErrorBuilder(errorBuilder);
+    }
+
+    /**
+     * Adds a {@link ReactiveErrorBuilder} that can satisfy all of the passed media types.
+     * @param forMediaTypes list of satisfiable media types
+     * @param errorBuilder error builder
+     */
+    public void addErrorBuilder(MediaType forMediaTypes[], ReactiveErrorBuilder errorBuilder){
+        for (MediaType mediaType : forMediaTypes) {
+            errorBuilder.addCompatibleMediaType(mediaType);
+        }
+        addErrorBuilder(errorBuilder);
+    }
+
+    /**
+     * Handles the thrown and passed {@link ResponseStatusException} caused in the course of the passed {@link ServerWebExchange}.
+     * @param ex
+     * @param exchange
+     * @return
+     */
+    public ResponseEntity<String> handle(ResponseStatusException ex, ServerWebExchange exchange){
+        return this.handle(ex, exchange, new HttpHeaders());
+    }
+
+    /**
+     * Handles the thrown and passed {@link ResponseStatusException} caused in the course of the passed {@link ServerWebExchange}.
+     * @param ex
+     * @param exchange
+     * @param responseHeader
+     * @return
+     */
+    public ResponseEntity<String> handle(ResponseStatusException ex, ServerWebExchange exchange, HttpHeaders responseHeader){
+        //Step 1: determine set of media types accepted by client
+        String acceptHeaderValue = exchange.getRequest().getHeaders().getFirst("Accept");
+        List<MediaType> acceptedMediaTypes = new ArrayList<MediaType>();
+        try{
+            if(!Objects.isNull(acceptHeaderValue) && !acceptHeaderValue.isEmpty()){
+                //parse and sort acceptable media types
+                acceptedMediaTypes = MediaType.parseMediaTypes(acceptHeaderValue);
+                MimeTypeUtils.sortBySpecificity(acceptedMediaTypes);
+            }else{
+                //if no acceptable media type is specified, set JSON per default
+                acceptedMediaTypes.clear();
+                acceptedMediaTypes.add(MediaType.APPLICATION_JSON);
+            }
+        }catch(Exception e){
+            //in case of an error, set JSON per default
+            acceptedMediaTypes.clear();
+            acceptedMediaTypes.add(MediaType.APPLICATION_JSON);
+        }
+
+        //Step 2: iterate over all acceptable media types and choose first matching error builder
+        for(MediaType acceptedMediaType : acceptedMediaTypes){
+            for(ReactiveErrorBuilder errorBuilder : errorBuilders){
+                if(errorBuilder.isCompatibleWith(acceptedMediaType)){
+                    return errorBuilder.build(ex, exchange, responseHeader);
+                }
+            }
+        }
+        //Step 3: if no error builder has matched, use default error builder
+        if(!Objects.isNull(defaultErrorBuilder)){
+            return defaultErrorBuilder.build(ex, exchange, responseHeader);
+        }else{
+            return new ResponseEntity<String>("No response status exception handler available.",responseHeader,HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    public ResponseEntity<String> handleNotAcceptableException(NotAcceptableStatusException ex, ServerWebExchange exchange){
+        HttpHeaders httpHeaders = new HttpHeaders();
+        String acceptedMediaTypes = MediaType.toString(ex.getSupportedMediaTypes());
+        httpHeaders.add("Accept",acceptedMediaTypes);
+        return this.handle(ex, exchange, httpHeaders);
+    }
+
+    public ResponseEntity<String> handleMethodNotAllowedException(MethodNotAllowedException ex, ServerWebExchange exchange){
+        HttpHeaders httpHeaders = new HttpHeaders();
+        String allowedMethods = "";
+        for(HttpMethod allowedMethod : ex.getSupportedMethods()){
+            if(allowedMethods.isBlank()){
+                allowedMethods = allowedMethod.name();
+            }else{
+                allowedMethods+=", "+allowedMethod.name();
+            }
+        }
+        httpHeaders.add("Allow",allowedMethods);
+        return this.handle(ex, exchange, httpHeaders);
+    }
+}
@@ -0,0 +1,254 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Evaluation order of the criteria of a {@link CompiledFilter} in {@link FilterEvaluationMode#ADAPTIVE} mode.
+ * A small random sample of all evaluations is measured, i.e., all criteria are evaluated and their costs (nanoseconds) and pass rates are recorded.
+ * After a fixed number of samples, the criteria are sorted by their expected costs per rejected entity (costs / failure rate) so that cheap and selective criteria
+ * are evaluated first. Recorded statistics are halved with each reordering, hence the order follows changes of the data distribution.
+ *
+ * Statistics are shared by all compiled filters having the same structure, i.e., the same names, query parameter keys, filter method classes, and scopes in the same order
+ * regardless of the query parameter values. Hence, filters that are compiled per request (e.g., by {@link Filter#filter(java.util.List)}) continue the statistics of previous requests.
+ * Looking up the statistics of a known structure does not lock, only registering a new structure beyond the maximum number of structures evicts the least recently used ones.
+ */
+class AdaptiveCriterionOrder {
+
+    /**
+     * On average, every SAMPLING_RATE-th evaluation is sampled
+     */
+    private static final int SAMPLING_RATE = 64;
+
+    /**
+     * Number of samples after which the criteria are reordered
+     */
+    private static final int REORDER_INTERVAL = 128;
+
+    /**
+     * Maximum number of filter structures whose statistics are kept
+     */
+    private static final int MAX_STRUCTURES = 256;
+
+    private static final Map<String,Statistics> STATISTICS = new ConcurrentHashMap<String,Statistics>();
+
+    private final CompiledCriterion[] criteria;
+    private final Statistics statistics;
+
+    private volatile Order order;
+
+    AdaptiveCriterionOrder(CompiledCriterion[] criteria){
+        this.criteria = criteria;
+        this.statistics = statisticsOf(criteria);
+        this.order = new Order(null, criteria.clone());
+    }
+
+    /**
+     * Returns true if the passed entity matches all criteria. The evaluation stops at the first failed criterion unless the evaluation is sampled.
+     * @param entity the entity, which is not null
+     * @return true if the passed entity matches all criteria, else false
+     */
+    boolean test(Object entity){
+        if(ThreadLocalRandom.current().nextInt(SAMPLING_RATE) == 0){
+            return sample(entity);
+        }
+        for(CompiledCriterion criterion : getOrder()){
+            if(!criterion.test(entity)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the current evaluation order
+     * @return the current evaluation order
+     */
+    CompiledCriterion[] getOrder(){
+        return order().criteria;
+    }
+
+    /**
+     * Returns the current evaluation order as positions of the criteria passed to the constructor
+     * @return the positions of the criteria in evaluation order
+     */
+    int[] getPositions(){
+        Order order = order();
+        if(Objects.isNull(order.positions)){
+            int[] positions = new int[criteria.length];
+            for(int i = 0; i < positions.length; i++){
+                positions[i] = i;
+            }
+            return positions;
+        }
+        return order.positions;
+    }
+
+    private Order order(){
+        int[] positions = statistics.positions;
+        Order order = this.order;
+        if(order.positions != positions){
+            CompiledCriterion[] ordered = new CompiledCriterion[criteria.length];
+            for(int i = 0; i < ordered.length; i++){
+                ordered[i] = criteria[positions[i]];
+            }
+            order = new Order(positions, ordered);
+            this.order = order;
+        }
+        return order;
+    }
+
+    private boolean sample(Object entity){
+        long[] nanos = new long[criteria.length];
+        boolean[] passed = new boolean[criteria.length];
+        boolean match = true;
+        for(int i = 0; i < criteria.length; i++){
+            long start = System.nanoTime();
+            passed[i] = criteria[i].test(entity);
+            nanos[i] = System.nanoTime() - start;
+            match &= passed[i];
+        }
+        statistics.record(nanos, passed);
+        return match;
+    }
+
+    private static Statistics statisticsOf(CompiledCriterion[] criteria){
+        StringBuilder structure = new StringBuilder();
+        for(CompiledCriterion criterion : criteria){
+            structure.append(criterion.getName()).append('&').append(criterion.getQueryParameterKey()).append('&').append(criterion.getMethod().getClass().getName())
+                .append('&').append(Objects.isNull(criterion.getScope()) ? "" : criterion.getScope().getName()).append(';');
+        }
+        String key = structure.toString();
+        Statistics statistics = STATISTICS.get(key);
+        if(Objects.isNull(statistics) || statistics.costs.length != criteria.length){
+            statistics = STATISTICS.compute(key, (k, existing) -> Objects.isNull(existing) || existing.costs.length != criteria.length ? new Statistics(criteria.length) : existing);
+            if(STATISTICS.size() > MAX_STRUCTURES){
+                evict(key);
+            }
+        }
+        statistics.lastUse = System.nanoTime();
+        return statistics;
+    }
+
+    /**
+     * Removes the least recently used structures (except the passed one) until the maximum number of structures is not exceeded anymore.
+     * Since structures are registered rarely, the scan over all structures is cheaper than maintaining an access order for each lookup.
+     */
+    private static void evict(String retainedKey){
+        while(STATISTICS.size() > MAX_STRUCTURES){
+            Map.Entry<String,Statistics> eldest = null;
+            for(Map.Entry<String,Statistics> entry : STATISTICS.entrySet()){
+                if(!entry.getKey().equals(retainedKey) && (Objects.isNull(eldest) || entry.getValue().lastUse < eldest.getValue().lastUse)){
+                    eldest = entry;
+                }
+            }
+            if(Objects.isNull(eldest)){
+                return;
+            }
+            STATISTICS.remove(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    /**
+     * Returns the number of filter structures whose statistics are kept
+     * @return the number of filter structures
+     */
+    static int getStructureCount(){
+        return STATISTICS.size();
+    }
+
+    /**
+     * Evaluation order of a particular set of criteria. Positions are null as long as the criteria are evaluated in their original order.
+     */
+    private static class Order {
+
+        private final int[] positions;
+        private final CompiledCriterion[] criteria;
+
+        private Order(int[] positions, CompiledCriterion[] criteria){
+            this.positions = positions;
+            this.criteria = criteria;
+        }
+    }
+
+    /**
+     * Recorded costs and pass rates of the criteria of a filter structure and the resulting order (positions of the criteria)
+     */
+    private static class Statistics {
+
+        private final double[] costs;
+        private final double[] evaluations;
+        private final double[] failures;
+        private int samples = 0;
+
+        private volatile int[] positions = null;
+        //time of the last lookup (nanoseconds), used for evicting the least recently used structures
+        private volatile long lastUse;
+
+        private Statistics(int length){
+            this.costs = new double[length];
+            this.evaluations = new double[length];
+            this.failures = new double[length];
+        }
+
+        private synchronized void record(long[] nanos, boolean[] passed){
+            for(int i = 0; i < costs.length; i++){
+                costs[i] += nanos[i];
+                evaluations[i]++;
+                if(!passed[i]){
+                    failures[i]++;
+                }
+            }
+            samples++;
+            if(samples >= REORDER_INTERVAL){
+                reorder();
+                samples = 0;
+            }
+        }
+
+        private void reorder(){
+            double[] ranks = new double[costs.length];
+            Integer[] indexes = new Integer[costs.length];
+            for(int i = 0; i < costs.length; i++){
+                indexes[i] = i;
+                if(evaluations[i] == 0){
+                    ranks[i] = Double.MAX_VALUE;
+                }else{
+                    double cost = costs[i] / evaluations[i];
+                    double failureRate = failures[i] / evaluations[i];
+                    ranks[i] = failureRate == 0 ? Double.MAX_VALUE : cost / failureRate;
+                }
+                //decay
+                costs[i] /= 2;
+                evaluations[i] /= 2;
+                failures[i] /= 2;
+            }
+            Arrays.sort(indexes, Comparator.comparingDouble(i -> ranks[i]));
+            int[] positions = new int[indexes.length];
+            for(int i = 0; i < indexes.length; i++){
+                positions[i] = indexes[i];
+            }
+            this.positions = positions;
+        }
+    }
+}
@@ -23,4 +23,8 @@ public class AlwaysMatchFilterMethod extends FilterMethod{
         return true;
     }
     
+    @Override
+    protected String getSignature() {
+        return classSignature(AlwaysMatchFilterMethod.class);
+    }
 }
@@ -0,0 +1,128 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * {@link FilterIndex} keeping a {@link CompressedBitmap} of rows per distinct value (and value class). Intended for properties having few distinct values
+ * (e.g., booleans, enums, or enum-like strings). Equality criteria are answered by a hash lookup, other criteria are evaluated once per distinct value and the bitmaps
+ * of the matching values are combined by OR. If most values match, the bitmaps of the non-matching values are subtracted from all rows instead (ANDNOT).
+ */
+class BitmapFilterIndex extends FilterIndex {
+
+    private final Map<Class<?>,Partition> partitions = new HashMap<Class<?>,Partition>();
+
+    BitmapFilterIndex(String name){
+        super(name);
+    }
+
+    @Override
+    protected void insert(Object value, int row) {
+        Partition partition = partitions.computeIfAbsent(value.getClass(), c -> new Partition());
+        partition.values.computeIfAbsent(value, v -> new CompressedBitmap()).add(row);
+        partition.rows.add(row);
+    }
+
+    @Override
+    protected void delete(Object value, int row) {
+        Partition partition = partitions.get(value.getClass());
+        CompressedBitmap rows = partition.values.get(value);
+        rows.remove(row);
+        partition.rows.remove(row);
+        if(rows.isEmpty()){
+            partition.values.remove(value);
+            if(partition.values.isEmpty()){
+                partitions.remove(value.getClass());
+            }
+        }
+    }
+
+    @Override
+    protected void clearValues() {
+        partitions.clear();
+    }
+
+    @Override
+    protected CompressedBitmap lookupValues(CompiledCriterion[] criteria) {
+        CompressedBitmap result = new CompressedBitmap();
+        for(Map.Entry<Class<?>,Partition> partition : partitions.entrySet()){
+            CompressedBitmap matches = lookupPartition(partition.getKey(), partition.getValue(), criteria);
+            result = result.isEmpty() ? matches : result.or(matches);
+        }
+        return result;
+    }
+
+    private static CompressedBitmap lookupPartition(Class<?> clazz, Partition partition, CompiledCriterion[] criteria){
+        //use the smallest set of candidate keys
+        Object[] keys = null;
+        for(CompiledCriterion criterion : criteria){
+            Object[] criterionKeys = Objects.isNull(criterion.getLookup()) ? null : criterion.getLookup().keys(clazz);
+            if(!Objects.isNull(criterionKeys) && (Objects.isNull(keys) || criterionKeys.length < keys.length)){
+                keys = criterionKeys;
+            }
+        }
+        List<CompressedBitmap> matching = new ArrayList<CompressedBitmap>();
+        List<CompressedBitmap> nonMatching = new ArrayList<CompressedBitmap>();
+        int matchingCardinality = 0;
+        int nonMatchingCardinality = 0;
+        if(Objects.isNull(keys)){
+            for(Map.Entry<Object,CompressedBitmap> entry : partition.values.entrySet()){
+                int cardinality = entry.getValue().cardinality();
+                if(matchesAll(criteria, entry.getKey())){
+                    matching.add(entry.getValue());
+                    matchingCardinality += cardinality;
+                }else{
+                    nonMatching.add(entry.getValue());
+                    nonMatchingCardinality += cardinality;
+                }
+            }
+        }else{
+            for(Object key : keys){
+                CompressedBitmap rows = partition.values.get(key);
+                if(!Objects.isNull(rows) && matchesAll(criteria, key)){
+                    matching.add(rows);
+                }
+            }
+        }
+        if(nonMatchingCardinality < matchingCardinality){
+            return partition.rows.andNot(union(nonMatching));
+        }
+        return union(matching);
+    }
+
+    private static CompressedBitmap union(List<CompressedBitmap> bitmaps){
+        CompressedBitmap result = new CompressedBitmap();
+        for(CompressedBitmap bitmap : bitmaps){
+            result = result.or(bitmap);
+        }
+        return result;
+    }
+
+    /**
+     * Rows of a value class
+     */
+    private static final class Partition {
+
+        private final Map<Object,CompressedBitmap> values = new HashMap<Object,CompressedBitmap>();
+        private final CompressedBitmap rows = new CompressedBitmap();
+    }
+}
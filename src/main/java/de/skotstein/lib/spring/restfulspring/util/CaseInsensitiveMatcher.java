@@ -0,0 +1,145 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+/**
+ * Case-insensitive substring matcher. The needle is folded once, the haystack is searched character by character without creating any objects
+ * using the Boyer-Moore-Horspool algorithm. Characters are folded independently of the default locale (see {@link CaseInsensitiveMatcher#fold(char)}),
+ * ASCII characters are folded by a table lookup.
+ */
+public final class CaseInsensitiveMatcher {
+
+    private static final char[] ASCII_FOLD = new char[128];
+
+    static {
+        for(char c = 0; c < 128; c++){
+            ASCII_FOLD[c] = (c >= 'A' && c <= 'Z') ? (char)(c + ('a' - 'A')) : c;
+        }
+    }
+
+    private final char[] needle;
+    private final int[] skip;
+
+    /**
+     * Creates a matcher for the passed needle. Leading and trailing whitespaces of the needle are ignored.
+     * @param needle the needle
+     */
+    public CaseInsensitiveMatcher(String needle){
+        String trimmed = needle.trim();
+        this.needle = new char[trimmed.length()];
+        for(int i = 0; i < trimmed.length(); i++){
+            this.needle[i] = fold(trimmed.charAt(i));
+        }
+        //bad character table, characters sharing a bucket get the smallest shift
+        this.skip = new int[256];
+        int m = this.needle.length;
+        for(int i = 0; i < skip.length; i++){
+            skip[i] = Math.max(1, m);
+        }
+        for(int i = 0; i < m - 1; i++){
+            skip[this.needle[i] & 0xFF] = m - 1 - i;
+        }
+    }
+
+    /**
+     * Returns the case-folded form of the passed character, i.e., its lower case form of its upper case form.
+     * @param c the character
+     * @return the case-folded character
+     */
+    public static char fold(char c){
+        if(c < 128){
+            return ASCII_FOLD[c];
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Returns true if the passed haystack contains the needle, ignoring the case of both.
+     * @param haystack the haystack
+     * @return true if the passed haystack contains the needle, else false
+     */
+    public boolean matches(CharSequence haystack){
+        int m = needle.length;
+        int n = haystack.length();
+        if(m == 0){
+            return true;
+        }
+        if(m == 1){
+            char c = needle[0];
+            for(int i = 0; i < n; i++){
+                if(fold(haystack.charAt(i)) == c){
+                    return true;
+                }
+            }
+            return false;
+        }
+        int last = m - 1;
+        char lastChar = needle[last];
+        int i = 0;
+        while(i <= n - m){
+            char c = fold(haystack.charAt(i + last));
+            if(c == lastChar){
+                int j = last - 1;
+                while(j >= 0 && fold(haystack.charAt(i + j)) == needle[j]){
+                    j--;
+                }
+                if(j < 0){
+                    return true;
+                }
+            }
+            i += skip[c & 0xFF];
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the passed haystack contains the passed needle, ignoring the case of both and leading and trailing whitespaces of the needle.
+     * In contrast to {@link CaseInsensitiveMatcher#matches(CharSequence)}, the needle is not preprocessed. Use this method for single comparisons.
+     * @param haystack the haystack
+     * @param needle the needle
+     * @return true if the passed haystack contains the passed needle, else false
+     */
+    public static boolean contains(CharSequence haystack, CharSequence needle){
+        int from = 0;
+        int to = needle.length();
+        while(from < to && needle.charAt(from) <= ' '){
+            from++;
+        }
+        while(to > from && needle.charAt(to-1) <= ' '){
+            to--;
+        }
+        int m = to - from;
+        for(int i = 0; i <= haystack.length() - m; i++){
+            int j = 0;
+            while(j < m && fold(haystack.charAt(i + j)) == fold(needle.charAt(from + j))){
+                j++;
+            }
+            if(j == m){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the case-folded needle
+     * @return the case-folded needle
+     */
+    String getFoldedNeedle(){
+        return new String(needle);
+    }
+}
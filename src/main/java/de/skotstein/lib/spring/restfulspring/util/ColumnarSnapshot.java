@@ -0,0 +1,137 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable list storing the values of the {@link Filterable} properties of its items in columns. If a {@link Filter} is applied to a {@link ColumnarSnapshot}
+ * (see {@link Filter#filter(java.util.List)} and {@link CompiledFilter#filter(java.util.List)}), each criterion is evaluated by a loop over the column of its property
+ * instead of calling getters item by item. The result of each criterion is a bitmask having one bit per item, the bitmasks of all criteria are combined
+ * before any item is materialized. Numeric properties are stored as primitive long arrays and range criteria (e.g., {@link RhsNumericFilterMethod} or {@link MinMaxFilterMethod})
+ * are evaluated without boxing, properties of other types are dictionary-encoded and criteria are evaluated once per distinct value.
+ *
+ * A column is created when a criterion on its property is evaluated for the first time, i.e., the values of a property are read once per snapshot.
+ * The values of the properties must not change after they have been read, create a new snapshot instead. Instances can be filtered by multiple threads concurrently.
+ * Use a snapshot as source list of {@link de.skotstein.lib.spring.restfulspring.model.entities.ResourceCollection#reduceItems(List, Filter, Pagination)}
+ * if the same items are filtered repeatedly.
+ */
+public class ColumnarSnapshot<T> extends AbstractList<T> implements RandomAccess {
+
+    private final List<T> items;
+    private final Map<String,SnapshotColumn> columns = new ConcurrentHashMap<String,SnapshotColumn>();
+    private final Map<Class<?>,long[]> scopes = new ConcurrentHashMap<Class<?>,long[]>();
+
+    /**
+     * Creates a snapshot of the passed items
+     * @param items the items, which must not be null
+     */
+    public ColumnarSnapshot(Collection<? extends T> items){
+        List<T> copy = new ArrayList<T>(items);
+        for(T item : copy){
+            Objects.requireNonNull(item, "The passed collection contains null");
+        }
+        this.items = Collections.unmodifiableList(copy);
+    }
+
+    @Override
+    public T get(int index) {
+        return items.get(index);
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Returns the rows matching all passed criteria
+     * @param criteria the criteria
+     * @param exhaustive true if all criteria are evaluated for all rows (see {@link FilterEvaluationMode#EXHAUSTIVE}), false if criteria are evaluated
+     * only for rows matching all previous criteria
+     * @return the matching rows, one bit per row
+     */
+    long[] select(CompiledCriterion[] criteria, boolean exhaustive){
+        long[] all = new long[SnapshotColumn.words(items.size())];
+        Arrays.fill(all, -1L);
+        if(items.size() % 64 != 0){
+            all[all.length-1] = (1L << items.size()) - 1;
+        }
+        long[] selection = all.clone();
+        for(CompiledCriterion criterion : criteria){
+            long[] matches = evaluate(criterion, exhaustive ? all : selection);
+            long remaining = 0;
+            for(int w = 0; w < selection.length; w++){
+                selection[w] &= matches[w];
+                remaining |= selection[w];
+            }
+            if(remaining == 0 && !exhaustive){
+                break;
+            }
+        }
+        return selection;
+    }
+
+    /**
+     * Returns the rows of the passed candidates matching the passed criterion
+     * @param criterion the criterion
+     * @param candidates the candidate rows
+     * @return the matching rows
+     */
+    long[] evaluate(CompiledCriterion criterion, long[] candidates){
+        if(Objects.isNull(criterion.getScope())){
+            return evaluateInScope(criterion, candidates);
+        }
+        //items that are not instances of the scope match any criterion
+        long[] outOfScope = scopes.computeIfAbsent(criterion.getScope(), this::outOfScope);
+        long[] inScope = new long[candidates.length];
+        for(int w = 0; w < candidates.length; w++){
+            inScope[w] = candidates[w] & ~outOfScope[w];
+        }
+        long[] matches = evaluateInScope(criterion, inScope);
+        for(int w = 0; w < candidates.length; w++){
+            matches[w] |= candidates[w] & outOfScope[w];
+        }
+        return matches;
+    }
+
+    private long[] evaluateInScope(CompiledCriterion criterion, long[] candidates){
+        if(!Objects.isNull(criterion.getExpression())){
+            return criterion.getExpression().evaluate(this, candidates);
+        }
+        return columns.computeIfAbsent(criterion.getName(), name -> SnapshotColumn.of(name, items)).evaluate(criterion, candidates);
+    }
+
+    private long[] outOfScope(Class<?> scope){
+        long[] outOfScope = new long[SnapshotColumn.words(items.size())];
+        for(int row = 0; row < items.size(); row++){
+            if(!scope.isAssignableFrom(items.get(row).getClass())){
+                outOfScope[row >>> 6] |= 1L << row;
+            }
+        }
+        return outOfScope;
+    }
+}
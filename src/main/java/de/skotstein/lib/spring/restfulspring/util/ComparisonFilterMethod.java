@@ -0,0 +1,159 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Filter method of a comparison of a {@link FilterExpression}, e.g., "load gt 0.8". The literal is parsed by the expression parser and passed to the constructor,
+ * the query parameter value of the criterion is the source text of the literal. The comparison is evaluated as follows:
+ * - 'eq' and 'ne': numeric literals are compared numerically to numeric values (see {@link NumericCondition}), null is equal to null only,
+ *   other values are equal if their string representation is equal to the literal (case-sensitive)
+ * - 'gt', 'gte', 'lt', and 'lte': numeric literals are compared numerically to numeric values, string literals are compared lexicographically to string values,
+ *   other values and null do not match
+ * - 'contains': the string representation of the value contains the literal, ignoring the case (see {@link CaseInsensitiveMatcher}), null does not match
+ */
+class ComparisonFilterMethod extends FilterMethod {
+
+    private final FilterExpression.Operator operator;
+    private final Object literal;
+    private final String text;
+    private final NumericCondition condition;
+    private final CaseInsensitiveMatcher matcher;
+
+    /**
+     * Creates the filter method of a comparison
+     * @param operator the operator
+     * @param literal the literal, i.e., a {@link String}, a {@link BigDecimal}, a {@link Boolean}, or null
+     */
+    ComparisonFilterMethod(FilterExpression.Operator operator, Object literal){
+        this.operator = operator;
+        this.literal = literal;
+        this.text = literal instanceof BigDecimal ? ((BigDecimal)literal).toString() : String.valueOf(literal);
+        if(literal instanceof BigDecimal){
+            BigDecimal value = (BigDecimal)literal;
+            switch(operator){
+                case GT:
+                    this.condition = NumericCondition.range(value, false, null, false);
+                    break;
+                case GTE:
+                    this.condition = NumericCondition.range(value, true, null, false);
+                    break;
+                case LT:
+                    this.condition = NumericCondition.range(null, false, value, false);
+                    break;
+                case LTE:
+                    this.condition = NumericCondition.range(null, false, value, true);
+                    break;
+                default:
+                    this.condition = NumericCondition.equalTo(value);
+            }
+        }else{
+            this.condition = null;
+        }
+        this.matcher = operator == FilterExpression.Operator.CONTAINS ? new CaseInsensitiveMatcher(text) : null;
+    }
+
+    @Override
+    protected boolean match(String key, Object filterValue, Object entityValue) {
+        return test(entityValue);
+    }
+
+    @Override
+    protected Predicate<Object> compile(String key, Object filterValue) {
+        return this::test;
+    }
+
+    @Override
+    IndexLookup lookup(String key, Object filterValue) {
+        switch(operator){
+            case EQ:
+                if(!Objects.isNull(condition)){
+                    return IndexLookup.numeric(condition, true);
+                }
+                return Objects.isNull(literal) ? null : IndexLookup.equalTo(literal);
+            case GT:
+            case GTE:
+            case LT:
+            case LTE:
+                return Objects.isNull(condition) ? null : IndexLookup.numeric(condition, true);
+            case CONTAINS:
+                return matcher.getFoldedNeedle().isEmpty() ? null : IndexLookup.substring(matcher.getFoldedNeedle());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns true if the passed entity value satisfies this comparison
+     * @param entityValue the entity value
+     * @return true if the passed entity value satisfies this comparison, else false
+     */
+    boolean test(Object entityValue){
+        switch(operator){
+            case EQ:
+                return isEqual(entityValue);
+            case NE:
+                return !isEqual(entityValue);
+            case CONTAINS:
+                return !Objects.isNull(entityValue) && matcher.matches(entityValue.toString());
+            default:
+                return compare(entityValue);
+        }
+    }
+
+    private boolean isEqual(Object entityValue){
+        if(Objects.isNull(literal) || Objects.isNull(entityValue)){
+            return literal == entityValue;
+        }
+        if(!Objects.isNull(condition) && isNumber(entityValue)){
+            return condition.test(entityValue);
+        }
+        return text.equals(entityValue.toString());
+    }
+
+    private boolean compare(Object entityValue){
+        if(Objects.isNull(entityValue)){
+            return false;
+        }
+        if(!Objects.isNull(condition)){
+            return isNumber(entityValue) && condition.test(entityValue);
+        }
+        if(literal instanceof String && entityValue instanceof String){
+            int comparison = ((String)entityValue).compareTo((String)literal);
+            switch(operator){
+                case GT:
+                    return comparison > 0;
+                case GTE:
+                    return comparison >= 0;
+                case LT:
+                    return comparison < 0;
+                default:
+                    return comparison <= 0;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isNumber(Object value){
+        return value instanceof Integer || value instanceof Long || value instanceof Double || value instanceof Short || value instanceof Byte
+            || value instanceof Float || value instanceof BigDecimal || value instanceof BigInteger;
+    }
+}
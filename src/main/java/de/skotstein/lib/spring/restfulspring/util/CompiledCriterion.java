@@ -0,0 +1,172 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Immutable, compiled form of a {@link FilterCriterion}. The scope check and the {@link FilterableProperty} are resolved once per entity class,
+ * the query parameter value is parsed once by {@link FilterMethod#compile(String, Object)}.
+ */
+class CompiledCriterion {
+
+    private final String name;
+    private final String key;
+    private final Object value;
+    private final FilterMethod method;
+    private final Class<?> scope;
+    private final Predicate<Object> predicate;
+    private final IndexLookup lookup;
+    private final FilterExpression expression;
+
+    private Binding binding = Binding.NONE;
+
+    CompiledCriterion(FilterCriterion filterCriterion){
+        this.name = filterCriterion.getNormalizedName();
+        this.key = filterCriterion.getQueryParameterKey();
+        this.value = filterCriterion.getQueryParameterValue();
+        this.method = filterCriterion.getMethod();
+        this.scope = filterCriterion.getScope();
+        this.predicate = method.compile(key, value);
+        this.lookup = method.lookup(key, value);
+        this.expression = method.expression(key, value);
+    }
+
+    /**
+     * Returns the normalized name of the compiled {@link FilterCriterion}
+     * @return the normalized name
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the query parameter key of the compiled {@link FilterCriterion}
+     * @return the query parameter key
+     */
+    String getQueryParameterKey() {
+        return key;
+    }
+
+    /**
+     * Returns the query parameter value of the compiled {@link FilterCriterion}
+     * @return the query parameter value
+     */
+    Object getQueryParameterValue() {
+        return value;
+    }
+
+    /**
+     * Returns the filter method of the compiled {@link FilterCriterion}
+     * @return the filter method
+     */
+    FilterMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * Returns the scope of the compiled {@link FilterCriterion}
+     * @return the scope or null if the criterion is applied to entities of any class
+     */
+    Class<?> getScope() {
+        return scope;
+    }
+
+    /**
+     * Returns the predicate that is applied to entity values
+     * @return the predicate that is applied to entity values
+     */
+    Predicate<Object> getPredicate() {
+        return predicate;
+    }
+
+    /**
+     * Returns the description of the entity values that may satisfy this criterion, see {@link FilterMethod#lookup(String, Object)}
+     * @return the lookup or null if the matching values cannot be described
+     */
+    IndexLookup getLookup() {
+        return lookup;
+    }
+
+    /**
+     * Returns the expression that is applied to entities as a whole, see {@link FilterMethod#expression(String, Object)}
+     * @return the expression or null if this criterion is applied to a single property
+     */
+    FilterExpression getExpression() {
+        return expression;
+    }
+
+    /**
+     * Resolves the scope check and the {@link FilterableProperty} for the passed entity class in advance.
+     * @param clazz the entity class
+     */
+    void bind(Class<?> clazz){
+        binding = new Binding(clazz, scope, name);
+    }
+
+    /**
+     * Returns true if the passed entity matches this criterion, i.e., same semantics as {@link FilterMethod#applyFilterMethod(FilterCriterion, Object)}.
+     * @param entity the entity, which is not null
+     * @return true if the passed entity matches this criterion, else false
+     */
+    boolean test(Object entity){
+        if(!Objects.isNull(expression)){
+            return (Objects.isNull(scope) || scope.isInstance(entity)) ? expression.test(entity) : true;
+        }
+        Binding binding = this.binding;
+        if(binding.clazz != entity.getClass()){
+            binding = new Binding(entity.getClass(), scope, name);
+            this.binding = binding;
+        }
+        if(Objects.isNull(binding.property)){
+            return true;
+        }
+        Object entityValue = null;
+        try{
+            entityValue = binding.property.read(entity);
+        }catch(Throwable t){
+            return true; //ignore
+        }
+        return predicate.test(entityValue);
+    }
+
+    /**
+     * Scope check and property of a particular entity class. Since instances are immutable, they can be published to other threads without synchronization.
+     */
+    private static final class Binding {
+
+        private static final Binding NONE = new Binding();
+
+        private final Class<?> clazz;
+        private final FilterableProperty property;
+
+        private Binding(){
+            this.clazz = null;
+            this.property = null;
+        }
+
+        private Binding(Class<?> clazz, Class<?> scope, String name){
+            this.clazz = clazz;
+            if(Objects.isNull(scope) || scope.isAssignableFrom(clazz)){
+                this.property = FilterableProperties.of(clazz).get(name);
+            }else{
+                this.property = null;
+            }
+        }
+    }
+}
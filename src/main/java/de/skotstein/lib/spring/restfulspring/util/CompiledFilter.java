@@ -0,0 +1,355 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Immutable execution plan of a {@link Filter} created by {@link Filter#compile(Class)}.
+ * Scopes, accessors of {@link Filterable} properties, and query parameter values are resolved once while compiling. Subsequent changes of the {@link Filter}
+ * do not affect the compiled plan. A {@link CompiledFilter} is thread-safe and can be cached and shared among request threads.
+ */
+public class CompiledFilter<T> implements Predicate<T> {
+
+    private final CompiledCriterion[] criteria;
+    private final boolean empty;
+    private final FilterEvaluationMode evaluationMode;
+    private final AdaptiveCriterionOrder adaptiveOrder;
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    CompiledFilter(List<FilterCriterion> filterCriteria, Class<T> type, FilterEvaluationMode evaluationMode, ForkJoinPool pool, int parallelThreshold){
+        List<CompiledCriterion> criteria = new ArrayList<CompiledCriterion>();
+        for(FilterCriterion filterCriterion : filterCriteria){
+            if(Objects.isNull(filterCriterion.getName()) || filterCriterion.getName().isBlank()){
+                throw new RuntimeException("The filter criterion does not have a name");
+            }
+            //criteria without query parameter value always match
+            if(!Objects.isNull(filterCriterion.getQueryParameterValue())){
+                CompiledCriterion compiledCriterion = new CompiledCriterion(filterCriterion);
+                if(!Objects.isNull(type) && !type.isInterface() && !Modifier.isAbstract(type.getModifiers())){
+                    compiledCriterion.bind(type);
+                }
+                criteria.add(compiledCriterion);
+            }
+        }
+        this.criteria = criteria.toArray(new CompiledCriterion[criteria.size()]);
+        this.empty = filterCriteria.isEmpty();
+        if(evaluationMode == FilterEvaluationMode.ADAPTIVE && this.criteria.length < 2){
+            evaluationMode = FilterEvaluationMode.SHORT_CIRCUIT;
+        }
+        this.evaluationMode = evaluationMode;
+        this.adaptiveOrder = evaluationMode == FilterEvaluationMode.ADAPTIVE ? new AdaptiveCriterionOrder(this.criteria) : null;
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Returns true if the passed entity matches all criteria of this filter.
+     * @param entity the entity
+     * @return true if the passed entity matches all criteria of this filter, else false
+     */
+    @Override
+    public boolean test(T entity) {
+        if(empty){
+            return true;
+        }
+        if(Objects.isNull(entity)){
+            throw new RuntimeException("The passed entity is null");
+        }
+        switch(evaluationMode){
+            case ADAPTIVE:
+                return adaptiveOrder.test(entity);
+            case SHORT_CIRCUIT:
+                for(CompiledCriterion criterion : criteria){
+                    if(!criterion.test(entity)){
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                boolean match = true;
+                for(CompiledCriterion criterion : criteria){
+                    if(!criterion.test(entity)){
+                        match = false;
+                    }
+                }
+                return match;
+        }
+    }
+
+    /**
+     * Returns a new list containing all items of the passed list that match this filter. The order of the items is preserved.
+     * If a {@link ForkJoinPool} has been specified (see {@link Filter#withParallelism(ForkJoinPool, int)}) and the size of the passed list reaches the specified threshold,
+     * the list is split into chunks that are filtered in parallel.
+     * If the passed list is an {@link IndexedList}, criteria on indexed properties are answered by the indexes of the list.
+     * If the passed list is a {@link ColumnarSnapshot}, criteria are evaluated column by column.
+     * @param input the list to be filtered
+     * @return a new list containing all matching items
+     */
+    public List<T> filter(List<T> input){
+        return filter(input, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a new list containing the first items of the passed list that match this filter, see {@link CompiledFilter#filter(List)}. The evaluation stops
+     * once the passed number of matching items has been found, i.e., the list is processed sequentially unless all matching items are requested.
+     * @param input the list to be filtered
+     * @param maxItems the maximum number of matching items, which must not be negative
+     * @return a new list containing the first matching items
+     */
+    public List<T> filter(List<T> input, int maxItems){
+        if(maxItems < 0){
+            throw new RuntimeException("The maximum number of items must not be negative");
+        }
+        if(empty){
+            return new ArrayList<T>(maxItems < input.size() ? input.subList(0, maxItems) : input);
+        }
+        if(input instanceof IndexedList){
+            List<T> results = filter((IndexedList<T>)input, maxItems);
+            if(!Objects.isNull(results)){
+                return results;
+            }
+        }
+        if(input instanceof ColumnarSnapshot){
+            return filter((ColumnarSnapshot<T>)input, maxItems);
+        }
+        if(!Objects.isNull(pool) && input.size() >= parallelThreshold && maxItems == Integer.MAX_VALUE){
+            return ParallelFilterTask.filter(this, input, pool);
+        }
+        List<T> results = new ArrayList<T>();
+        for(Iterator<T> iterator = input.iterator(); iterator.hasNext() && results.size() < maxItems;){
+            T entity = iterator.next();
+            if(test(entity)){
+                results.add(entity);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns true if {@link CompiledFilter#filter(List, int)} evaluates the passed list other than item by item, i.e., by the indexes of an {@link IndexedList},
+     * column by column for a {@link ColumnarSnapshot}, or in parallel. Callers filtering a list in place should filter such lists by {@link CompiledFilter#filter(List, int)}.
+     * @param input the list to be filtered
+     * @param maxItems the maximum number of matching items
+     * @return true if the passed list is not filtered item by item
+     */
+    public boolean isAccelerated(List<T> input, int maxItems){
+        if(empty){
+            return false;
+        }
+        return input instanceof IndexedList || input instanceof ColumnarSnapshot
+            || (!Objects.isNull(pool) && input.size() >= parallelThreshold && maxItems == Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the number of items of the passed list that match this filter without collecting them. Criteria on indexed properties of an {@link IndexedList} are answered
+     * by its indexes, a {@link ColumnarSnapshot} is evaluated column by column. The list is processed sequentially.
+     * @param input the list
+     * @return the number of matching items
+     */
+    public int count(List<T> input){
+        return count(input, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns true if at least one item of the passed list matches this filter. The evaluation stops at the first matching item. Criteria on indexed properties of an
+     * {@link IndexedList} are answered by its indexes, a {@link ColumnarSnapshot} is evaluated column by column. The list is processed sequentially.
+     * @param input the list
+     * @return true if at least one item matches this filter, else false
+     */
+    public boolean anyMatch(List<T> input){
+        return count(input, 1) > 0;
+    }
+
+    /**
+     * Returns the number of items of the passed list that match this filter. The evaluation stops once the passed limit has been reached.
+     * @param input the list
+     * @param limit the maximum number of matching items to be counted
+     * @return the number of matching items, but at most the passed limit
+     */
+    int count(List<T> input, int limit){
+        if(empty){
+            return Math.min(input.size(), limit);
+        }
+        if(input instanceof IndexedList){
+            int count = count((IndexedList<T>)input, limit);
+            if(count >= 0){
+                return count;
+            }
+        }
+        if(input instanceof ColumnarSnapshot){
+            long[] selection = ((ColumnarSnapshot<T>)input).select(ordered(), evaluationMode == FilterEvaluationMode.EXHAUSTIVE);
+            int count = 0;
+            for(int w = 0; w < selection.length && count < limit; w++){
+                count += Long.bitCount(selection[w]);
+            }
+            return Math.min(count, limit);
+        }
+        int count = 0;
+        for(Iterator<T> iterator = input.iterator(); iterator.hasNext() && count < limit;){
+            if(test(iterator.next())){
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the matching items of the passed list using its indexes. Criteria that cannot be answered by an index are evaluated for the candidate items only.
+     * @param input the list
+     * @param limit the maximum number of matching items to be counted
+     * @return the number of matching items (but at most the passed limit) or -1 if none of the criteria can be answered by an index
+     */
+    private int count(IndexedList<T> input, int limit){
+        boolean[] answered = new boolean[criteria.length];
+        CompressedBitmap rows = input.select(criteria, answered);
+        if(Objects.isNull(rows)){
+            return -1;
+        }
+        CompiledCriterion[] remaining = remaining(answered);
+        if(remaining.length == 0){
+            return Math.min(rows.cardinality(), limit);
+        }
+        int count = 0;
+        for(PrimitiveIterator.OfInt iterator = rows.iterator(); iterator.hasNext() && count < limit;){
+            if(matches(input.get(iterator.nextInt()), remaining)){
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Filters the passed list using its indexes. Criteria that cannot be answered by an index are evaluated for the candidate items only.
+     * @param input the list to be filtered
+     * @param maxItems the maximum number of matching items
+     * @return a new list containing the first matching items or null if none of the criteria can be answered by an index
+     */
+    private List<T> filter(IndexedList<T> input, int maxItems){
+        boolean[] answered = new boolean[criteria.length];
+        CompressedBitmap rows = input.select(criteria, answered);
+        if(Objects.isNull(rows)){
+            return null;
+        }
+        CompiledCriterion[] remaining = remaining(answered);
+        List<T> results = new ArrayList<T>(Math.min(rows.cardinality(), maxItems));
+        for(PrimitiveIterator.OfInt iterator = rows.iterator(); iterator.hasNext() && results.size() < maxItems;){
+            T entity = input.get(iterator.nextInt());
+            if(matches(entity, remaining)){
+                results.add(entity);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Filters the passed snapshot column by column
+     * @param input the snapshot to be filtered
+     * @param maxItems the maximum number of matching items
+     * @return a new list containing the first matching items
+     */
+    private List<T> filter(ColumnarSnapshot<T> input, int maxItems){
+        long[] selection = input.select(ordered(), evaluationMode == FilterEvaluationMode.EXHAUSTIVE);
+        List<T> results = new ArrayList<T>();
+        for(int w = 0; w < selection.length && results.size() < maxItems; w++){
+            long word = selection[w];
+            while(word != 0 && results.size() < maxItems){
+                results.add(input.get((w << 6) | Long.numberOfTrailingZeros(word)));
+                word &= word - 1;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns the criteria that have not been answered by an index in evaluation order
+     */
+    private CompiledCriterion[] remaining(boolean[] answered){
+        List<CompiledCriterion> remainingCriteria = new ArrayList<CompiledCriterion>();
+        if(Objects.isNull(adaptiveOrder)){
+            for(int i = 0; i < criteria.length; i++){
+                if(!answered[i]){
+                    remainingCriteria.add(criteria[i]);
+                }
+            }
+        }else{
+            for(int position : adaptiveOrder.getPositions()){
+                if(!answered[position]){
+                    remainingCriteria.add(criteria[position]);
+                }
+            }
+        }
+        return remainingCriteria.toArray(new CompiledCriterion[remainingCriteria.size()]);
+    }
+
+    /**
+     * Returns the criteria in evaluation order, i.e., in the order learned in {@link FilterEvaluationMode#ADAPTIVE} mode, else in the order they have been added
+     */
+    private CompiledCriterion[] ordered(){
+        return Objects.isNull(adaptiveOrder) ? criteria : adaptiveOrder.getOrder();
+    }
+
+    private boolean matches(T entity, CompiledCriterion[] criteria){
+        boolean match = true;
+        for(CompiledCriterion criterion : criteria){
+            if(!criterion.test(entity)){
+                match = false;
+                if(evaluationMode != FilterEvaluationMode.EXHAUSTIVE){
+                    break;
+                }
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Returns a lazy stream of all items of the passed stream that match this filter. Items are filtered as they are consumed.
+     * @param input the stream to be filtered
+     * @return a lazy stream of all matching items
+     */
+    public Stream<T> stream(Stream<T> input){
+        if(empty){
+            return input;
+        }
+        return input.filter(this);
+    }
+
+    /**
+     * Returns the compiled criteria of this filter. Criteria without query parameter value are not part of the compiled plan.
+     * @return the compiled criteria
+     */
+    CompiledCriterion[] getCriteria(){
+        return criteria;
+    }
+
+    /**
+     * Returns the evaluation mode of this filter
+     * @return the evaluation mode
+     */
+    public FilterEvaluationMode getEvaluationMode(){
+        return evaluationMode;
+    }
+}
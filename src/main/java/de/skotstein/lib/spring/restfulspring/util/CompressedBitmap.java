@@ -0,0 +1,650 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed bitmap of non-negative integers (rows) organized like a Roaring bitmap: the integers are partitioned by their upper 16 bits into chunks,
+ * each chunk is stored in a container. Sparse chunks (up to {@link CompressedBitmap#ARRAY_LIMIT} integers) are stored as sorted char arrays,
+ * dense chunks as bitmaps of 1024 words. {@link CompressedBitmap#and(CompressedBitmap)}, {@link CompressedBitmap#or(CompressedBitmap)}, and
+ * {@link CompressedBitmap#andNot(CompressedBitmap)} operate chunk by chunk and return new bitmaps, i.e., they do not modify the operands.
+ * Instances are not synchronized.
+ */
+final class CompressedBitmap {
+
+    /**
+     * Maximum number of integers of an array container
+     */
+    static final int ARRAY_LIMIT = 4096;
+
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+
+    CompressedBitmap(){
+        this(new char[4], new Container[4], 0);
+    }
+
+    private CompressedBitmap(char[] keys, Container[] containers, int size){
+        this.keys = keys;
+        this.containers = containers;
+        this.size = size;
+    }
+
+    /**
+     * Creates a compressed bitmap containing the values from 0 (inclusive) to the passed value (exclusive)
+     * @param to the upper bound (exclusive)
+     * @return the compressed bitmap
+     */
+    static CompressedBitmap range(int to){
+        BitSet bitSet = new BitSet(to);
+        bitSet.set(0, to);
+        return of(bitSet);
+    }
+
+    /**
+     * Creates a compressed bitmap containing the set bits of the passed {@link BitSet}
+     * @param bitSet the bit set
+     * @return the compressed bitmap
+     */
+    static CompressedBitmap of(BitSet bitSet){
+        long[] words = bitSet.toLongArray();
+        int chunks = (words.length + 1023) / 1024;
+        char[] keys = new char[Math.max(4, chunks)];
+        Container[] containers = new Container[keys.length];
+        int size = 0;
+        for(int chunk = 0; chunk < chunks; chunk++){
+            int from = chunk * 1024;
+            int to = Math.min(words.length, from + 1024);
+            int cardinality = 0;
+            for(int i = from; i < to; i++){
+                cardinality += Long.bitCount(words[i]);
+            }
+            if(cardinality == 0){
+                continue;
+            }
+            long[] chunkWords = new long[1024];
+            System.arraycopy(words, from, chunkWords, 0, to - from);
+            keys[size] = (char)chunk;
+            containers[size++] = new BitmapContainer(chunkWords, cardinality).optimize();
+        }
+        return new CompressedBitmap(keys, containers, size);
+    }
+
+    /**
+     * Adds the passed integer. Adding integers in ascending order is most efficient.
+     * @param value the integer
+     */
+    void add(int value){
+        char high = (char)(value >>> 16);
+        int i = index(high);
+        if(i < 0){
+            i = -i - 1;
+            insertContainer(i, high, new ArrayContainer());
+        }
+        containers[i] = containers[i].add((char)value);
+    }
+
+    /**
+     * Removes the passed integer
+     * @param value the integer
+     */
+    void remove(int value){
+        int i = index((char)(value >>> 16));
+        if(i >= 0){
+            Container container = containers[i].remove((char)value);
+            if(container.cardinality() == 0){
+                System.arraycopy(keys, i+1, keys, i, size-i-1);
+                System.arraycopy(containers, i+1, containers, i, size-i-1);
+                size--;
+                containers[size] = null;
+            }else{
+                containers[i] = container;
+            }
+        }
+    }
+
+    /**
+     * Returns true if this bitmap contains the passed integer
+     * @param value the integer
+     * @return true if this bitmap contains the passed integer, else false
+     */
+    boolean contains(int value){
+        int i = index((char)(value >>> 16));
+        return i >= 0 && containers[i].contains((char)value);
+    }
+
+    /**
+     * Returns the number of integers of this bitmap
+     * @return the number of integers
+     */
+    int cardinality(){
+        int cardinality = 0;
+        for(int i = 0; i < size; i++){
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * Returns a new bitmap containing the integers contained in this and the passed bitmap
+     * @param other the other bitmap
+     * @return the intersection
+     */
+    CompressedBitmap and(CompressedBitmap other){
+        CompressedBitmap result = new CompressedBitmap(new char[Math.max(4, Math.min(size, other.size))], new Container[Math.max(4, Math.min(size, other.size))], 0);
+        int i = 0;
+        int j = 0;
+        while(i < size && j < other.size){
+            if(keys[i] < other.keys[j]){
+                i++;
+            }else if(keys[i] > other.keys[j]){
+                j++;
+            }else{
+                Container container = containers[i].and(other.containers[j]);
+                if(container.cardinality() > 0){
+                    result.appendContainer(keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new bitmap containing the integers contained in this or the passed bitmap
+     * @param other the other bitmap
+     * @return the union
+     */
+    CompressedBitmap or(CompressedBitmap other){
+        CompressedBitmap result = new CompressedBitmap(new char[Math.max(4, size + other.size)], new Container[Math.max(4, size + other.size)], 0);
+        int i = 0;
+        int j = 0;
+        while(i < size || j < other.size){
+            if(j >= other.size || (i < size && keys[i] < other.keys[j])){
+                result.appendContainer(keys[i], containers[i].copy());
+                i++;
+            }else if(i >= size || keys[i] > other.keys[j]){
+                result.appendContainer(other.keys[j], other.containers[j].copy());
+                j++;
+            }else{
+                result.appendContainer(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new bitmap containing the integers contained in this but not in the passed bitmap
+     * @param other the other bitmap
+     * @return the difference
+     */
+    CompressedBitmap andNot(CompressedBitmap other){
+        CompressedBitmap result = new CompressedBitmap(new char[Math.max(4, size)], new Container[Math.max(4, size)], 0);
+        int j = 0;
+        for(int i = 0; i < size; i++){
+            while(j < other.size && other.keys[j] < keys[i]){
+                j++;
+            }
+            Container container = containers[i].copy();
+            if(j < other.size && other.keys[j] == keys[i]){
+                container = containers[i].andNot(other.containers[j]);
+            }
+            if(container.cardinality() > 0){
+                result.appendContainer(keys[i], container);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Passes all integers of this bitmap in ascending order to the passed consumer
+     * @param consumer the consumer
+     */
+    void forEach(IntConsumer consumer){
+        for(int i = 0; i < size; i++){
+            containers[i].forEach(keys[i] << 16, consumer);
+        }
+    }
+
+    /**
+     * Returns an iterator over all integers of this bitmap in ascending order
+     * @return the iterator
+     */
+    PrimitiveIterator.OfInt iterator(){
+        return new PrimitiveIterator.OfInt(){
+
+            private int container = 0;
+            private int position = 0;
+            private int next = advance();
+
+            private int advance(){
+                while(container < size){
+                    int value = containers[container].next(position);
+                    if(value >= 0){
+                        position = value + 1;
+                        return (keys[container] << 16) | value;
+                    }
+                    container++;
+                    position = 0;
+                }
+                return -1;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if(next < 0){
+                    throw new NoSuchElementException();
+                }
+                int value = next;
+                next = advance();
+                return value;
+            }
+        };
+    }
+
+    private int index(char key){
+        //bitmaps are usually appended to, check the last container first
+        if(size > 0 && keys[size-1] == key){
+            return size-1;
+        }
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertContainer(int i, char key, Container container){
+        if(size == keys.length){
+            keys = Arrays.copyOf(keys, size*2);
+            containers = Arrays.copyOf(containers, size*2);
+        }
+        System.arraycopy(keys, i, keys, i+1, size-i);
+        System.arraycopy(containers, i, containers, i+1, size-i);
+        keys[i] = key;
+        containers[i] = container;
+        size++;
+    }
+
+    private void appendContainer(char key, Container container){
+        insertContainer(size, key, container);
+    }
+
+    /**
+     * Container of the integers of a chunk, i.e., the lower 16 bits of the integers
+     */
+    private static abstract class Container {
+
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container andNot(Container other);
+
+        abstract Container copy();
+
+        abstract void forEach(int high, IntConsumer consumer);
+
+        /**
+         * Returns the smallest value greater than or equal to the passed value
+         * @param from the value
+         * @return the next value or -1 if there is no such value
+         */
+        abstract int next(int from);
+    }
+
+    /**
+     * Sorted array of at most {@link CompressedBitmap#ARRAY_LIMIT} values
+     */
+    private static final class ArrayContainer extends Container {
+
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer(){
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality){
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            int i;
+            if(cardinality == 0 || values[cardinality-1] < value){
+                i = cardinality;
+            }else{
+                i = Arrays.binarySearch(values, 0, cardinality, value);
+                if(i >= 0){
+                    return this;
+                }
+                i = -i - 1;
+            }
+            if(cardinality == ARRAY_LIMIT){
+                return toBitmap().add(value);
+            }
+            if(cardinality == values.length){
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, cardinality*2));
+            }
+            System.arraycopy(values, i, values, i+1, cardinality-i);
+            values[i] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if(i >= 0){
+                System.arraycopy(values, i+1, values, i, cardinality-i-1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[Math.min(cardinality, other.cardinality())];
+            int counter = 0;
+            if(other instanceof ArrayContainer){
+                ArrayContainer array = (ArrayContainer)other;
+                int i = 0;
+                int j = 0;
+                while(i < cardinality && j < array.cardinality){
+                    if(values[i] < array.values[j]){
+                        i++;
+                    }else if(values[i] > array.values[j]){
+                        j++;
+                    }else{
+                        result[counter++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            }else{
+                for(int i = 0; i < cardinality; i++){
+                    if(other.contains(values[i])){
+                        result[counter++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(result, counter);
+        }
+
+        @Override
+        Container or(Container other) {
+            if(other instanceof BitmapContainer){
+                return other.or(this);
+            }
+            ArrayContainer array = (ArrayContainer)other;
+            char[] result = new char[cardinality + array.cardinality];
+            int counter = 0;
+            int i = 0;
+            int j = 0;
+            while(i < cardinality || j < array.cardinality){
+                if(j >= array.cardinality || (i < cardinality && values[i] < array.values[j])){
+                    result[counter++] = values[i++];
+                }else if(i >= cardinality || values[i] > array.values[j]){
+                    result[counter++] = array.values[j++];
+                }else{
+                    result[counter++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            if(counter > ARRAY_LIMIT){
+                return new ArrayContainer(result, counter).toBitmap();
+            }
+            return new ArrayContainer(result, counter);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] result = new char[cardinality];
+            int counter = 0;
+            for(int i = 0; i < cardinality; i++){
+                if(!other.contains(values[i])){
+                    result[counter++] = values[i];
+                }
+            }
+            return new ArrayContainer(result, counter);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(4, cardinality)), cardinality);
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for(int i = 0; i < cardinality; i++){
+                consumer.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        int next(int from) {
+            int i = Arrays.binarySearch(values, 0, cardinality, (char)Math.min(from, 0xFFFF));
+            if(from > 0xFFFF){
+                return -1;
+            }
+            if(i < 0){
+                i = -i - 1;
+            }
+            return i < cardinality ? values[i] : -1;
+        }
+
+        private BitmapContainer toBitmap(){
+            long[] words = new long[1024];
+            for(int i = 0; i < cardinality; i++){
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            return new BitmapContainer(words, cardinality);
+        }
+    }
+
+    /**
+     * Bitmap of 65536 bits
+     */
+    private static final class BitmapContainer extends Container {
+
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer(long[] words, int cardinality){
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            long word = words[value >>> 6];
+            long updated = word | (1L << value);
+            if(word != updated){
+                words[value >>> 6] = updated;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long word = words[value >>> 6];
+            long updated = word & ~(1L << value);
+            if(word != updated){
+                words[value >>> 6] = updated;
+                cardinality--;
+            }
+            return cardinality <= ARRAY_LIMIT / 2 ? optimize() : this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            if(other instanceof ArrayContainer){
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapContainer)other).words;
+            long[] result = new long[1024];
+            int cardinality = 0;
+            for(int i = 0; i < 1024; i++){
+                result[i] = words[i] & otherWords[i];
+                cardinality += Long.bitCount(result[i]);
+            }
+            return new BitmapContainer(result, cardinality).optimize();
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] result = words.clone();
+            int cardinality = 0;
+            if(other instanceof ArrayContainer){
+                ArrayContainer array = (ArrayContainer)other;
+                for(int i = 0; i < array.cardinality; i++){
+                    result[array.values[i] >>> 6] |= 1L << array.values[i];
+                }
+            }else{
+                long[] otherWords = ((BitmapContainer)other).words;
+                for(int i = 0; i < 1024; i++){
+                    result[i] |= otherWords[i];
+                }
+            }
+            for(int i = 0; i < 1024; i++){
+                cardinality += Long.bitCount(result[i]);
+            }
+            return new BitmapContainer(result, cardinality);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] result = words.clone();
+            if(other instanceof ArrayContainer){
+                ArrayContainer array = (ArrayContainer)other;
+                for(int i = 0; i < array.cardinality; i++){
+                    result[array.values[i] >>> 6] &= ~(1L << array.values[i]);
+                }
+            }else{
+                long[] otherWords = ((BitmapContainer)other).words;
+                for(int i = 0; i < 1024; i++){
+                    result[i] &= ~otherWords[i];
+                }
+            }
+            int cardinality = 0;
+            for(int i = 0; i < 1024; i++){
+                cardinality += Long.bitCount(result[i]);
+            }
+            return new BitmapContainer(result, cardinality).optimize();
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for(int i = 0; i < 1024; i++){
+                long word = words[i];
+                while(word != 0){
+                    consumer.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        int next(int from) {
+            if(from > 0xFFFF){
+                return -1;
+            }
+            int i = from >>> 6;
+            long word = words[i] & (-1L << from);
+            while(true){
+                if(word != 0){
+                    return (i << 6) | Long.numberOfTrailingZeros(word);
+                }
+                if(++i == 1024){
+                    return -1;
+                }
+                word = words[i];
+            }
+        }
+
+        /**
+         * Converts this container into an array container if it is sparse
+         * @return this or an equivalent array container
+         */
+        Container optimize(){
+            if(cardinality > ARRAY_LIMIT){
+                return this;
+            }
+            char[] values = new char[Math.max(4, cardinality)];
+            int counter = 0;
+            for(int i = 0; i < 1024; i++){
+                long word = words[i];
+                while(word != 0){
+                    values[counter++] = (char)((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, counter);
+        }
+    }
+}
@@ -0,0 +1,409 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import de.skotstein.lib.spring.restfulspring.model.entities.Hypermedia;
+
+/**
+ * Keyset pagination as an alternative to the offset-based {@link Pagination}. Instead of a start index, the 'next' and 'previous' hyperlinks
+ * (see {@link CursorPagination#addHyperlinksIfUsed(Hypermedia, Filter)}) carry an opaque cursor encoding the sort key of the last (or first) item of the current page.
+ * A page is resumed by a binary search for the sort key in the source list, which must be sorted in ascending order by a unique sort key (e.g., an ID),
+ * followed by filtering the subsequent items until the page is complete. Hence, the costs of a page do not depend on its position and pages do not shift if items
+ * are inserted or removed concurrently. Sort keys must be of type {@link String}, {@link Long}, or {@link Integer}.
+ *
+ * Cursors are self-contained, i.e., no state is kept on the server. Besides the sort key, a cursor contains the version of the source list (see {@link CursorPagination#withVersion(long)}),
+ * the limit, and a hash of the canonical form of the filter. A cursor is rejected if it is applied with another filter or limit. If a signing key is specified
+ * (see {@link CursorPagination#withSigningKey(byte[])}), cursors are protected by an HMAC-SHA256 signature so that any instance sharing the key can validate and resume a traversal.
+ *
+ * Use "?cursor=...&amp;limit=..." as query parameters, the cursor of the first page is null.
+ */
+public class CursorPagination {
+
+    private static final String INVALID_CURSOR = "Invalid Cursor";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder BASE64_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final String cursor;
+    private Integer limit;
+    private byte[] signingKey = null;
+    private long version = 0;
+
+    private String filterHash = null;
+    private Long cursorVersion = null;
+    private String nextCursor = null;
+    private String previousCursor = null;
+
+    public CursorPagination(String cursor, Integer limit){
+        this.cursor = Objects.isNull(cursor) || cursor.isBlank() ? null : cursor.trim();
+        this.limit = limit;
+    }
+
+    public static CursorPagination of(String cursor, Integer limit){
+        return new CursorPagination(cursor, limit);
+    }
+
+    /**
+     * Signs the cursors of this pagination with HMAC-SHA256 using the passed key. Cursors without a valid signature are rejected, i.e., all instances serving
+     * the same collection resource must use the same key.
+     * @param signingKey the shared key, at least 32 bytes are recommended
+     * @return this {@link CursorPagination} instance
+     */
+    public CursorPagination withSigningKey(byte[] signingKey){
+        if(Objects.isNull(signingKey) || signingKey.length == 0){
+            throw new RuntimeException("The passed signing key is empty");
+        }
+        this.signingKey = signingKey.clone();
+        return this;
+    }
+
+    /**
+     * Specifies the version of the source list (e.g., {@link IndexedList#getVersion()}) that is encoded into the emitted cursors, see {@link CursorPagination#isOutdated()}
+     * @param version the version of the source list
+     * @return this {@link CursorPagination} instance
+     */
+    public CursorPagination withVersion(long version){
+        this.version = version;
+        return this;
+    }
+
+    /**
+     * Returns true if the cursor of this pagination has been emitted for another version of the source list than the version specified by {@link CursorPagination#withVersion(long)}.
+     * Since pages are resumed by their sort keys, an outdated cursor still refers to a valid page, but items may have been inserted or removed in the meantime.
+     * @return true if the cursor has been emitted for another version of the source list, else false
+     */
+    public boolean isOutdated(){
+        return !Objects.isNull(cursorVersion) && cursorVersion != version;
+    }
+
+    /**
+     * Returns the items of the page of the passed source list that is referenced by the cursor of this pagination. Only items matching the passed filter are returned.
+     * Afterwards, {@link CursorPagination#getNextCursor()} and {@link CursorPagination#getPreviousCursor()} return the cursors of the adjacent pages.
+     * Throws a {@link ResponseStatusException} (400) if the cursor is invalid, has been tampered with, or has been emitted for another filter or limit.
+     * @param source the source list, which must be sorted in ascending order by the passed sort key
+     * @param sortKey the function returning the unique sort key of an item
+     * @param filter the filter, can be null
+     * @return a new list containing the items of the page in ascending order
+     */
+    public <T> List<T> paginate(List<T> source, Function<? super T, ?> sortKey, Filter filter){
+        CompiledFilter<T> compiledFilter = Objects.isNull(filter) ? null : filter.compile(null);
+        nextCursor = null;
+        previousCursor = null;
+        filterHash = hash(filter);
+        Cursor position = decode(cursor);
+        if(!Objects.isNull(position)){
+            cursorVersion = position.version;
+            if(Objects.isNull(limit)){
+                limit = position.limit;
+            }
+        }
+        int pageSize = Objects.isNull(limit) ? Integer.MAX_VALUE : Math.max(0, limit);
+        List<T> page = new ArrayList<T>();
+        if(pageSize == 0){
+            return page;
+        }
+        if(Objects.isNull(position) || position.forward){
+            int from = Objects.isNull(position) ? 0 : seek(source, sortKey, position.key, false);
+            for(int index = from; index < source.size() && page.size() <= pageSize; index++){
+                T item = source.get(index);
+                if(Objects.isNull(compiledFilter) || compiledFilter.test(item)){
+                    page.add(item);
+                }
+            }
+            if(page.size() > pageSize){
+                page.remove(page.size() - 1);
+                nextCursor = encode(true, sortKey.apply(page.get(page.size() - 1)));
+            }
+            //the previous page exists if this page has been reached by a cursor
+            if(!Objects.isNull(position) && !page.isEmpty()){
+                previousCursor = encode(false, sortKey.apply(page.get(0)));
+            }
+        }else{
+            int to = seek(source, sortKey, position.key, true);
+            for(int index = to - 1; index >= 0 && page.size() <= pageSize; index--){
+                T item = source.get(index);
+                if(Objects.isNull(compiledFilter) || compiledFilter.test(item)){
+                    page.add(item);
+                }
+            }
+            if(page.size() > pageSize){
+                page.remove(page.size() - 1);
+                previousCursor = encode(false, sortKey.apply(page.get(page.size() - 1)));
+            }
+            Collections.reverse(page);
+            //the next page exists since this page has been reached from it
+            if(!page.isEmpty()){
+                nextCursor = encode(true, sortKey.apply(page.get(page.size() - 1)));
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Adds the hyperlinks 'previous' and 'next' to the passed representation if the adjacent pages exist. The hyperlinks are relative to the 'self' hyperlink
+     * and carry the query parameters of the passed filter.
+     * @param representation the representation
+     * @param filter the filter, can be null
+     * @return true if at least one hyperlink has been added, else false
+     */
+    public boolean addHyperlinksIfUsed(Hypermedia representation, Filter filter){
+        if(Objects.isNull(nextCursor) && Objects.isNull(previousCursor)){
+            return false;
+        }
+        if(!Objects.isNull(previousCursor)){
+            representation.addHyperlink("previous", representation.getHyperlink("self").getHref() + query(previousCursor, filter));
+        }
+        if(!Objects.isNull(nextCursor)){
+            representation.addHyperlink("next", representation.getHyperlink("self").getHref() + query(nextCursor, filter));
+        }
+        return true;
+    }
+
+    /**
+     * Returns the cursor of the next page
+     * @return the cursor of the next page or null if there is no next page
+     */
+    public String getNextCursor(){
+        return nextCursor;
+    }
+
+    /**
+     * Returns the cursor of the previous page
+     * @return the cursor of the previous page or null if there is no previous page
+     */
+    public String getPreviousCursor(){
+        return previousCursor;
+    }
+
+    /**
+     * Returns the cursor of the current page
+     * @return the cursor or null if this pagination refers to the first page
+     */
+    public String getCursor(){
+        return cursor;
+    }
+
+    /**
+     * Returns the specified limit
+     * @return the limit
+     */
+    public Integer getLimit(){
+        return limit;
+    }
+
+    private String query(String pageCursor, Filter filter){
+        String query = "?cursor=" + pageCursor;
+        if(!Objects.isNull(limit)){
+            query += "&limit=" + limit;
+        }
+        if(!Objects.isNull(filter)){
+            for(Entry<String,Object> entry : filter.getQueryParameter().entrySet()){
+                if(entry.getValue() != null){
+                    query += "&" + entry.getKey() + "=" + entry.getValue();
+                }
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Returns the index of the first item whose sort key is greater than (or equal to if inclusive is true) the passed key
+     * @param source the sorted source list
+     * @param sortKey the function returning the sort key of an item
+     * @param key the key
+     * @param inclusive true if the index of an item having the passed key is returned
+     * @return the index
+     */
+    private static <T> int seek(List<T> source, Function<? super T, ?> sortKey, Comparable<Object> key, boolean inclusive){
+        int low = 0;
+        int high = source.size();
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            Object middleKey = sortKey.apply(source.get(middle));
+            int comparison;
+            try{
+                comparison = key.compareTo(middleKey);
+            }catch(ClassCastException | NullPointerException e){
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_CURSOR);
+            }
+            if(comparison > 0 || (comparison == 0 && !inclusive)){
+                low = middle + 1;
+            }else{
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Encodes the passed direction and sort key into a cursor
+     * @param forward true if the cursor refers to the items after the passed key, false if it refers to the items before the passed key
+     * @param key the sort key
+     * @return the cursor
+     */
+    String encode(boolean forward, Object key){
+        String type;
+        if(key instanceof String){
+            type = "s";
+        }else if(key instanceof Long){
+            type = "l";
+        }else if(key instanceof Integer){
+            type = "i";
+        }else{
+            throw new RuntimeException("The sort key must be of type String, Long, or Integer");
+        }
+        String plain = (forward ? "n" : "p") + "|" + version + "|" + (Objects.isNull(limit) ? "-" : limit) + "|" + filterHash + "|" + type + "|" + key;
+        String payload = BASE64_ENCODER.encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+        if(Objects.isNull(signingKey)){
+            return payload;
+        }
+        return payload + "." + BASE64_ENCODER.encodeToString(sign(payload));
+    }
+
+    /**
+     * Decodes and verifies the passed cursor, i.e., its signature (if a signing key has been specified), its filter hash, and its limit
+     * @param token the cursor, can be null
+     * @return the decoded cursor or null if the passed cursor is null
+     */
+    Cursor decode(String token){
+        if(Objects.isNull(token)){
+            return null;
+        }
+        String payload = token;
+        int separator = token.indexOf('.');
+        if(!Objects.isNull(signingKey)){
+            //reject unsigned and tampered cursors, signatures are compared in constant time
+            if(separator < 0 || !MessageDigest.isEqual(sign(token.substring(0, separator)), decodeBase64(token.substring(separator + 1)))){
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_CURSOR);
+            }
+            payload = token.substring(0, separator);
+        }else if(separator >= 0){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_CURSOR);
+        }
+        String[] parts = new String(decodeBase64(payload), StandardCharsets.UTF_8).split("\\|", 6);
+        if(parts.length != 6 || !(parts[0].equals("n") || parts[0].equals("p")) || !parts[3].equals(filterHash)){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_CURSOR);
+        }
+        Object key;
+        Long cursorVersion;
+        Integer cursorLimit;
+        try{
+            cursorVersion = Long.valueOf(parts[1]);
+            cursorLimit = parts[2].equals("-") ? null : Integer.valueOf(parts[2]);
+            switch(parts[4]){
+                case "s":
+                    key = parts[5];
+                    break;
+                case "l":
+                    key = Long.valueOf(parts[5]);
+                    break;
+                case "i":
+                    key = Integer.valueOf(parts[5]);
+                    break;
+                default:
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_CURSOR);
+            }
+        }catch(NumberFormatException e){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_CURSOR);
+        }
+        if(!Objects.isNull(limit) && !limit.equals(cursorLimit)){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_CURSOR);
+        }
+        return new Cursor(parts[0].equals("n"), cursorVersion, cursorLimit, asComparable(key));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> asComparable(Object key){
+        return (Comparable<Object>)key;
+    }
+
+    private static byte[] decodeBase64(String value){
+        try{
+            return Base64.getUrlDecoder().decode(value);
+        }catch(IllegalArgumentException e){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_CURSOR);
+        }
+    }
+
+    private byte[] sign(String payload){
+        try{
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(signingKey, HMAC_ALGORITHM));
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        }catch(NoSuchAlgorithmException | InvalidKeyException e){
+            throw new RuntimeException("Cannot sign cursor", e);
+        }
+    }
+
+    /**
+     * Returns the hash of the canonical form of the passed filter (see {@link FilterResultCache}), i.e., the first 64 bits of its SHA-256 digest in hexadecimal notation
+     * @param filter the filter, can be null
+     * @return the hash
+     */
+    static String hash(Filter filter){
+        String canonicalForm = FilterResultCache.key(filter);
+        if(Objects.isNull(canonicalForm)){
+            canonicalForm = new TreeMap<String,Object>(filter.getQueryParameter()).toString();
+        }
+        try{
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonicalForm.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hash = new StringBuilder();
+            for(int i = 0; i < 8; i++){
+                hash.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return hash.toString();
+        }catch(NoSuchAlgorithmException e){
+            throw new RuntimeException("Cannot hash filter", e);
+        }
+    }
+
+    /**
+     * Decoded cursor
+     */
+    static final class Cursor {
+
+        private final boolean forward;
+        private final long version;
+        private final Integer limit;
+        private final Comparable<Object> key;
+
+        Cursor(boolean forward, long version, Integer limit, Comparable<Object> key){
+            this.forward = forward;
+            this.version = version;
+            this.limit = limit;
+            this.key = key;
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package de.skotstein.lib.spring.restfulspring.util;
 
 import java.util.Objects;
+import java.util.function.Predicate;
 
 public class DefaultBooleanFilterMethod extends FilterMethod{
 
@@ -37,5 +38,34 @@ public class DefaultBooleanFilterMethod extends FilterMethod{
         }
         return true;
     }
-    
+
+    @Override
+    protected Predicate<Object> compile(String key, Object filterValue) {
+        if(!(filterValue instanceof Boolean)){
+            return entityValue -> !Objects.isNull(entityValue);
+        }
+        boolean filterValueAsBoolean = ((Boolean)filterValue).booleanValue();
+        return entityValue -> {
+            if(Objects.isNull(entityValue)){
+                return false;
+            }
+            if(entityValue instanceof Boolean){
+                return ((Boolean)entityValue).booleanValue() == filterValueAsBoolean;
+            }
+            return true;
+        };
+    }
+
+    @Override
+    IndexLookup lookup(String key, Object filterValue) {
+        if(filterValue instanceof Boolean){
+            return IndexLookup.equalTo(filterValue);
+        }
+        return null;
+    }
+
+    @Override
+    protected String getSignature() {
+        return classSignature(DefaultBooleanFilterMethod.class);
+    }
 }
@@ -16,9 +16,15 @@
 
 package de.skotstein.lib.spring.restfulspring.util;
 import java.util.Objects;
+import java.util.function.Predicate;
 
 public class DefaultFilterMethod extends FilterMethod {
 
+    private static final FilterMethod STRING_FILTER_METHOD = new DefaultStringFilterMethod();
+    private static final FilterMethod LONG_FILTER_METHOD = new DefaultLongFilterMethod();
+    private static final FilterMethod INTEGER_FILTER_METHOD = new DefaultIntegerFilterMethod();
+    private static final FilterMethod BOOLEAN_FILTER_METHOD = new DefaultBooleanFilterMethod();
+
     @Override
     protected boolean match(String key, Object filterValue, Object entityValue) {
         if(Objects.isNull(entityValue)){
@@ -26,13 +32,13 @@ public class DefaultFilterMethod extends FilterMethod {
         }
         FilterMethod filterMethod = null;
         if(entityValue instanceof String){
-            filterMethod = new DefaultStringFilterMethod();
+            filterMethod = STRING_FILTER_METHOD;
         }else if(entityValue instanceof Long){
-            filterMethod = new DefaultLongFilterMethod();
+            filterMethod = LONG_FILTER_METHOD;
         }else if(entityValue instanceof Integer){
-            filterMethod = new DefaultIntegerFilterMethod();
+            filterMethod = INTEGER_FILTER_METHOD;
         }else if(entityValue instanceof Boolean){
-            filterMethod = new DefaultBooleanFilterMethod();
+            filterMethod = BOOLEAN_FILTER_METHOD;
         }
         if(!Objects.isNull(filterMethod)){
             return filterMethod.match(key, filterValue, entityValue);
@@ -40,4 +46,43 @@ public class DefaultFilterMethod extends FilterMethod {
         //TODO: implement other types
         return true;
     }
+
+    @Override
+    protected Predicate<Object> compile(String key, Object filterValue) {
+        Predicate<Object> stringPredicate = STRING_FILTER_METHOD.compile(key, filterValue);
+        Predicate<Object> longPredicate = LONG_FILTER_METHOD.compile(key, filterValue);
+        Predicate<Object> integerPredicate = INTEGER_FILTER_METHOD.compile(key, filterValue);
+        Predicate<Object> booleanPredicate = BOOLEAN_FILTER_METHOD.compile(key, filterValue);
+        return entityValue -> {
+            if(Objects.isNull(entityValue)){
+                return false;
+            }
+            if(entityValue instanceof String){
+                return stringPredicate.test(entityValue);
+            }else if(entityValue instanceof Long){
+                return longPredicate.test(entityValue);
+            }else if(entityValue instanceof Integer){
+                return integerPredicate.test(entityValue);
+            }else if(entityValue instanceof Boolean){
+                return booleanPredicate.test(entityValue);
+            }
+            return true;
+        };
+    }
+
+    @Override
+    IndexLookup lookup(String key, Object filterValue) {
+        //string values are matched by substring, values of other classes either match or equal the filter value
+        IndexLookup stringLookup = STRING_FILTER_METHOD.lookup(key, filterValue);
+        if(filterValue instanceof Long || filterValue instanceof Integer || filterValue instanceof Boolean){
+            IndexLookup lookup = IndexLookup.equalTo(filterValue);
+            return Objects.isNull(stringLookup) ? lookup : lookup.withSubstring(stringLookup.getSubstring());
+        }
+        return stringLookup;
+    }
+
+    @Override
+    protected String getSignature() {
+        return classSignature(DefaultFilterMethod.class);
+    }
 }
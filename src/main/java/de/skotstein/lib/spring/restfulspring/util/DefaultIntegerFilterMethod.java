@@ -17,6 +17,7 @@
 package de.skotstein.lib.spring.restfulspring.util;
 
 import java.util.Objects;
+import java.util.function.Predicate;
 
 public class DefaultIntegerFilterMethod extends FilterMethod{
 
@@ -37,4 +38,34 @@ public class DefaultIntegerFilterMethod extends FilterMethod{
         }
         return true;
     }
+
+    @Override
+    protected Predicate<Object> compile(String key, Object filterValue) {
+        if(!(filterValue instanceof Integer)){
+            return entityValue -> !Objects.isNull(entityValue);
+        }
+        int filterValueAsInteger = ((Integer)filterValue).intValue();
+        return entityValue -> {
+            if(Objects.isNull(entityValue)){
+                return false;
+            }
+            if(entityValue instanceof Integer){
+                return ((Integer)entityValue).intValue() == filterValueAsInteger;
+            }
+            return true;
+        };
+    }
+
+    @Override
+    IndexLookup lookup(String key, Object filterValue) {
+        if(filterValue instanceof Integer){
+            return IndexLookup.equalTo(filterValue);
+        }
+        return null;
+    }
+
+    @Override
+    protected String getSignature() {
+        return classSignature(DefaultIntegerFilterMethod.class);
+    }
 }
@@ -17,6 +17,7 @@
 package de.skotstein.lib.spring.restfulspring.util;
 
 import java.util.Objects;
+import java.util.function.Predicate;
 
 public class DefaultLongFilterMethod extends FilterMethod{
 
@@ -37,5 +38,34 @@ public class DefaultLongFilterMethod extends FilterMethod{
         }
         return true;
     }
-    
+
+    @Override
+    protected Predicate<Object> compile(String key, Object filterValue) {
+        if(!(filterValue instanceof Long)){
+            return entityValue -> !Objects.isNull(entityValue);
+        }
+        long filterValueAsLong = ((Long)filterValue).longValue();
+        return entityValue -> {
+            if(Objects.isNull(entityValue)){
+                return false;
+            }
+            if(entityValue instanceof Long){
+                return ((Long)entityValue).longValue() == filterValueAsLong;
+            }
+            return true;
+        };
+    }
+
+    @Override
+    IndexLookup lookup(String key, Object filterValue) {
+        if(filterValue instanceof Long){
+            return IndexLookup.equalTo(filterValue);
+        }
+        return null;
+    }
+
+    @Override
+    protected String getSignature() {
+        return classSignature(DefaultLongFilterMethod.class);
+    }
 }
@@ -17,6 +17,7 @@
 package de.skotstein.lib.spring.restfulspring.util;
 
 import java.util.Objects;
+import java.util.function.Predicate;
 
 public class DefaultStringFilterMethod extends FilterMethod{
 
@@ -37,9 +38,45 @@ public class DefaultStringFilterMethod extends FilterMethod{
             if(filterValueAsString.isEmpty()){ //skip empty strings
                 return true;
             }
-            return entityValueAsString.trim().toLowerCase().contains(filterValueAsString.trim().toLowerCase());
+            return CaseInsensitiveMatcher.contains(entityValueAsString, filterValueAsString);
         }
         return true;
     }
+
+    @Override
+    protected Predicate<Object> compile(String key, Object filterValue) {
+        String filterValueAsString = "";
+        if(filterValue instanceof String){
+            filterValueAsString = (String)filterValue;
+        }else{
+            filterValueAsString = filterValue+"";
+        }
+        if(filterValueAsString.isEmpty()){ //skip empty strings
+            return entityValue -> !Objects.isNull(entityValue);
+        }
+        CaseInsensitiveMatcher matcher = new CaseInsensitiveMatcher(filterValueAsString);
+        return entityValue -> {
+            if(Objects.isNull(entityValue)){
+                return false;
+            }
+            if(entityValue instanceof String){
+                return matcher.matches((String)entityValue);
+            }
+            return true;
+        };
+    }
+
+    @Override
+    IndexLookup lookup(String key, Object filterValue) {
+        String filterValueAsString = filterValue instanceof String ? (String)filterValue : filterValue+"";
+        if(filterValueAsString.isEmpty()){
+            return null;
+        }
+        return IndexLookup.substring(new CaseInsensitiveMatcher(filterValueAsString).getFoldedNeedle());
+    }
     
+    @Override
+    protected String getSignature() {
+        return classSignature(DefaultStringFilterMethod.class);
+    }
 }
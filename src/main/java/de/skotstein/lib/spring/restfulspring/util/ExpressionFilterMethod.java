@@ -0,0 +1,72 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Filter method evaluating a {@link FilterExpression} passed as query parameter value, e.g., "?q=(status eq 'up' or load gt 0.8) and not region eq 'us'".
+ * Unlike other filter methods, the expression is applied to the entity as a whole, i.e., the name of the {@link FilterCriterion} does not refer to a {@link Filterable} property
+ * but only identifies the criterion. The expression is parsed once if the filter is compiled (see {@link Filter#compile(Class)}).
+ */
+public class ExpressionFilterMethod extends FilterMethod{
+
+    @Override
+    boolean applyFilterMethod(FilterCriterion filterCriterion, Object entity) {
+        if(Objects.isNull(entity) || Objects.isNull(filterCriterion) || Objects.isNull(filterCriterion.getName()) || filterCriterion.getName().isBlank()){
+            throw new RuntimeException("The passed entity is null");
+        }
+        if(!Objects.isNull(filterCriterion.getScope()) && !filterCriterion.getScope().isInstance(entity)){
+            return true;
+        }
+        if(Objects.isNull(filterCriterion.getQueryParameterValue())){
+            return true;
+        }
+        return expression(filterCriterion.getQueryParameterKey(), filterCriterion.getQueryParameterValue()).test(entity);
+    }
+
+    @Override
+    protected boolean match(String queryParameterKey, Object queryParameterValue, Object entityValue) {
+        if(Objects.isNull(queryParameterValue)){
+            return true;
+        }
+        if(Objects.isNull(entityValue)){
+            return false;
+        }
+        return expression(queryParameterKey, queryParameterValue).test(entityValue);
+    }
+
+    @Override
+    protected Predicate<Object> compile(String queryParameterKey, Object queryParameterValue) {
+        FilterExpression expression = expression(queryParameterKey, queryParameterValue);
+        return entityValue -> !Objects.isNull(entityValue) && expression.test(entityValue);
+    }
+
+    @Override
+    FilterExpression expression(String queryParameterKey, Object queryParameterValue) {
+        if(queryParameterValue instanceof String){
+            return FilterExpression.parse((String)queryParameterValue);
+        }
+        throw new RuntimeException("Query parameter for filter expressions must by type of string");
+    }
+
+    @Override
+    protected String getSignature() {
+        return classSignature(ExpressionFilterMethod.class);
+    }
+}
@@ -19,9 +19,15 @@ package de.skotstein.lib.spring.restfulspring.util;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Filter {
 
@@ -29,6 +35,13 @@ public class Filter {
 
     private Class lastScope = null;
 
+    private FilterEvaluationMode evaluationMode = FilterEvaluationMode.EXHAUSTIVE;
+
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 10000;
+
+    private ForkJoinPool pool = null;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
     public static Filter create(){
         return new Filter();
     }
@@ -187,6 +200,50 @@ public class Filter {
         return this;
     }
 
+    /**
+     * Specifies how the criteria of this filter are evaluated for an entity. Per default, all criteria are evaluated ({@link FilterEvaluationMode#EXHAUSTIVE}).
+     * Use {@link FilterEvaluationMode#SHORT_CIRCUIT} or {@link FilterEvaluationMode#ADAPTIVE} to stop the evaluation at the first failed criterion.
+     * @param evaluationMode the evaluation mode
+     * @return this {@link Filter} instance 
+     */
+    public Filter withEvaluationMode(FilterEvaluationMode evaluationMode){
+        this.evaluationMode = Objects.isNull(evaluationMode) ? FilterEvaluationMode.EXHAUSTIVE : evaluationMode;
+        return this;
+    }
+
+    /**
+     * Returns the evaluation mode of this filter.
+     * @return the evaluation mode
+     */
+    public FilterEvaluationMode getEvaluationMode(){
+        return evaluationMode;
+    }
+
+    /**
+     * Enables the parallel filtering of large lists (see {@link Filter#filter(List)}). If the size of a filtered list reaches the passed threshold,
+     * the list is split into chunks that are filtered in parallel by the passed {@link ForkJoinPool}. The order of the filtered items is preserved.
+     * @param pool the pool executing the filter tasks. Pass null to disable parallel filtering.
+     * @param threshold the minimum size of a list that is filtered in parallel, which must be at least 1
+     * @return this {@link Filter} instance 
+     */
+    public Filter withParallelism(ForkJoinPool pool, int threshold){
+        if(threshold < 1){
+            throw new RuntimeException("The parallel threshold must be at least 1");
+        }
+        this.pool = pool;
+        this.parallelThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Enables the parallel filtering of lists having at least {@link Filter#DEFAULT_PARALLEL_THRESHOLD} items using the passed {@link ForkJoinPool} (see {@link Filter#withParallelism(ForkJoinPool, int)}).
+     * @param pool the pool executing the filter tasks. Pass null to disable parallel filtering.
+     * @return this {@link Filter} instance 
+     */
+    public Filter withParallelism(ForkJoinPool pool){
+        return this.withParallelism(pool, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
     /**
      * Returns all {@link FilterCriterion} of this filter as read only collection.
      * @return all {@link FilterCriterion} of this filter as read only collection
@@ -253,19 +310,99 @@ public class Filter {
         for(FilterCriterion filterCriterion : items){
             if(!filterCriterion.getMethod().applyFilterMethod(filterCriterion, entity)){
                 match = false;
+                if(evaluationMode != FilterEvaluationMode.EXHAUSTIVE){
+                    break;
+                }
             }
         }
         return match;
     }
 
+    /**
+     * Compiles this filter into an immutable {@link CompiledFilter}. Scopes, accessors of {@link Filterable} properties, and query parameter values are resolved once,
+     * hence the compiled filter can be applied to many entities without interpreting the {@link FilterCriterion} of this filter for each entity.
+     * The returned instance is thread-safe and is not affected by subsequent changes of this filter. It evaluates the criteria according to the evaluation mode of this filter
+     * (see {@link Filter#withEvaluationMode(FilterEvaluationMode)}).
+     * @param type the (expected) class of the entities the compiled filter is applied to. Accessors are resolved for this class in advance. Can be null.
+     * @return the compiled filter
+     */
+    public <T> CompiledFilter<T> compile(Class<T> type){
+        return new CompiledFilter<T>(items, type, evaluationMode, pool, parallelThreshold);
+    }
+
     public <T> List<T> filter(List<T> input){
-        List<T> results = new ArrayList<T>();
-        for(T entity : input){
-            if(matches(entity)){
-                results.add(entity);
-            }
-        }
-        return results;
+        CompiledFilter<T> compiledFilter = compile(null);
+        return compiledFilter.filter(input);
+    }
+
+    /**
+     * Returns a new list containing the first items of the passed list that match this filter. The evaluation stops once the passed number of matching items has been found,
+     * see {@link CompiledFilter#filter(List, int)}.
+     * @param input the list to be filtered
+     * @param maxItems the maximum number of matching items
+     * @return a new list containing the first matching items
+     */
+    public <T> List<T> filter(List<T> input, int maxItems){
+        CompiledFilter<T> compiledFilter = compile(null);
+        return compiledFilter.filter(input, maxItems);
+    }
+
+    /**
+     * Returns the number of items of the passed list that match this filter without collecting them, see {@link CompiledFilter#count(List)}
+     * @param input the list
+     * @return the number of matching items
+     */
+    public <T> int count(List<T> input){
+        CompiledFilter<T> compiledFilter = compile(null);
+        return compiledFilter.count(input);
+    }
+
+    /**
+     * Returns true if at least one item of the passed list matches this filter. The evaluation stops at the first matching item, see {@link CompiledFilter#anyMatch(List)}
+     * @param input the list
+     * @return true if at least one item matches this filter, else false
+     */
+    public <T> boolean anyMatch(List<T> input){
+        CompiledFilter<T> compiledFilter = compile(null);
+        return compiledFilter.anyMatch(input);
+    }
+
+    /**
+     * Returns a lazy stream of all items of the passed stream that match this filter. Items are filtered as they are consumed, i.e., no intermediate list is created.
+     * @param input the stream to be filtered
+     * @return a lazy stream of all matching items
+     */
+    public <T> Stream<T> stream(Stream<T> input){
+        CompiledFilter<T> compiledFilter = compile(null);
+        return compiledFilter.stream(input);
+    }
+
+    /**
+     * Returns a lazy stream of all items of the passed {@link Spliterator} that match this filter (see {@link Filter#stream(Stream)}).
+     * @param input the spliterator to be filtered
+     * @return a lazy stream of all matching items
+     */
+    public <T> Stream<T> stream(Spliterator<T> input){
+        return stream(StreamSupport.stream(input, false));
+    }
+
+    /**
+     * Returns a lazy stream of all items of the passed {@link Iterator} that match this filter (see {@link Filter#stream(Stream)}).
+     * Use this method to filter items of sources that should not be loaded into memory at once, e.g., database cursors.
+     * @param input the iterator to be filtered
+     * @return a lazy stream of all matching items
+     */
+    public <T> Stream<T> stream(Iterator<T> input){
+        return stream(Spliterators.spliteratorUnknownSize(input, Spliterator.ORDERED));
+    }
+
+    /**
+     * Returns a lazy stream of all items of the passed {@link Iterable} that match this filter (see {@link Filter#stream(Stream)}).
+     * @param input the iterable to be filtered
+     * @return a lazy stream of all matching items
+     */
+    public <T> Stream<T> stream(Iterable<T> input){
+        return stream(input.spliterator());
     }
 
     public <T> boolean filter(T input){
@@ -284,6 +421,10 @@ public class Filter {
         return new IpAddressFilterMethod();
     }
 
+    public static FilterMethod ExpressionFilterMethod(){
+        return new ExpressionFilterMethod();
+    }
+
     public static FilterMethod RhsNumericFilterMethod(){
         return new RhsNumericFilterMethod();
     }
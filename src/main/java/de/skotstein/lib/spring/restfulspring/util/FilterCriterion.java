@@ -16,6 +16,7 @@
 
 package de.skotstein.lib.spring.restfulspring.util;
 
+import java.util.Objects;
 
 public class FilterCriterion {
     private String name;
@@ -23,6 +24,7 @@ public class FilterCriterion {
     private Object value;
     private FilterMethod method;
     private Class scope;
+    private String normalizedName;
 
     /**
      * Initializes an instance of this class. The passed name argument is used for both name and query parameter key.
@@ -103,8 +105,20 @@ public class FilterCriterion {
     public FilterMethod getMethod() {
         return method;
     }
+    /**
+     * Returns the name of this {@link FilterCriterion} normalized the same way as {@link Filterable#query()} values (see {@link FilterableProperties#normalize(String)}).
+     * @return the normalized name
+     */
+    String getNormalizedName() {
+        if(Objects.isNull(normalizedName)){
+            normalizedName = FilterableProperties.normalize(name);
+        }
+        return normalizedName;
+    }
+
     public void setName(String name) {
         this.name = name;
+        this.normalizedName = null;
     }
     public void setQueryParameterKey(String key) {
         this.key = key;
@@ -0,0 +1,43 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+/**
+ * Specifies how the criteria of a {@link Filter} are evaluated for an entity (see {@link Filter#withEvaluationMode(FilterEvaluationMode)}).
+ */
+public enum FilterEvaluationMode {
+
+    /**
+     * All criteria are evaluated for each entity, even if a criterion has already failed. This is the default mode.
+     * Use this mode if each criterion should be validated, e.g., if a filter method throws an exception for an invalid query parameter value.
+     */
+    EXHAUSTIVE,
+
+    /**
+     * The criteria are evaluated in the order they have been added to the {@link Filter}. The evaluation stops at the first failed criterion.
+     */
+    SHORT_CIRCUIT,
+
+    /**
+     * The evaluation stops at the first failed criterion. The criteria are continuously reordered based on sampled runtime statistics so that cheap and selective
+     * criteria are evaluated first. The order adapts if the distribution of the filtered data changes. Statistics are shared by all filters having the same criteria (names, keys,
+     * filter methods, and scopes) regardless of their query parameter values, hence filters created per request benefit from the order learned by previous requests.
+     * Indexes of an {@link IndexedList} and a {@link ColumnarSnapshot} evaluate their criteria in the learned order as well.
+     * Note that this mode is only applied by a {@link CompiledFilter}, {@link Filter#filter(Object)} behaves like {@link FilterEvaluationMode#SHORT_CIRCUIT}.
+     */
+    ADAPTIVE
+}
@@ -0,0 +1,619 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Boolean filter expression combining comparisons of {@link Filterable} properties, e.g., "(status eq 'up' or load gt 0.8) and not region eq 'us'".
+ * The grammar is as follows (keywords are case-insensitive, 'not' binds stronger than 'and', 'and' binds stronger than 'or'):
+ * - expression := term ('or' term)*
+ * - term := factor ('and' factor)*
+ * - factor := 'not' factor | '(' expression ')' | property operator literal
+ * - operator := 'eq' | 'ne' | 'gt' | 'gte' | 'lt' | 'lte' | 'contains'
+ * - literal := a string in single or double quotes (a quote is escaped by doubling it), a number, 'true', 'false', or 'null'
+ * See {@link ComparisonFilterMethod} for the semantics of the operators. Like a {@link FilterCriterion}, a comparison is true for entities that do not have the property
+ * or whose getter throws an exception.
+ *
+ * An expression is parsed once into a tree. The operands of 'and' and 'or' are reordered by a planner using static estimates of costs and selectivities so that cheap and
+ * selective comparisons are evaluated first and the evaluation stops as soon as the result is known. If the expression is applied to an {@link IndexedList},
+ * comparisons on indexed properties are answered by the indexes and combined by bitmap operations. If it is applied to a {@link ColumnarSnapshot}, comparisons are evaluated
+ * column by column on the rows that are still undecided. Instances are immutable and can be shared among threads.
+ *
+ * Expressions are limited to {@value FilterExpression#MAX_LENGTH} characters and a nesting depth (parentheses and 'not') of {@value FilterExpression#MAX_DEPTH}.
+ */
+public final class FilterExpression {
+
+    private static final String INVALID_EXPRESSION = "Invalid Filter Expression";
+
+    /**
+     * Maximum number of characters of an expression
+     */
+    public static final int MAX_LENGTH = 4096;
+
+    /**
+     * Maximum nesting depth of parentheses and 'not' operators of an expression
+     */
+    public static final int MAX_DEPTH = 64;
+
+    /**
+     * Operator of a comparison
+     */
+    enum Operator {
+        EQ, NE, GT, GTE, LT, LTE, CONTAINS
+    }
+
+    private final Node root;
+
+    private FilterExpression(Node root){
+        this.root = root;
+    }
+
+    /**
+     * Parses the passed expression. A blank expression matches any entity. Throws a {@link ResponseStatusException} (400) if the expression is invalid
+     * or exceeds {@link FilterExpression#MAX_LENGTH} or {@link FilterExpression#MAX_DEPTH}.
+     * @param expression the expression
+     * @return the parsed expression
+     */
+    public static FilterExpression parse(String expression){
+        if(Objects.isNull(expression)){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_EXPRESSION);
+        }
+        if(expression.isBlank()){
+            return new FilterExpression(new Constant());
+        }
+        if(expression.length() > MAX_LENGTH){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_EXPRESSION + ": expression exceeds " + MAX_LENGTH + " characters");
+        }
+        return new FilterExpression(new Parser(expression).parse());
+    }
+
+    /**
+     * Returns true if the passed entity satisfies this expression
+     * @param entity the entity, which is not null
+     * @return true if the passed entity satisfies this expression, else false
+     */
+    public boolean test(Object entity){
+        return root.test(entity);
+    }
+
+    /**
+     * Returns the normalized form of this expression, i.e., keywords are lower case, property names are normalized, and parentheses are set where necessary.
+     * The order of the operands is preserved.
+     * @return the normalized form of this expression
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        root.appendTo(builder);
+        return builder.toString();
+    }
+
+    /**
+     * Returns the rows of the passed list satisfying this expression
+     * @param list the list, whose indexes are up to date
+     * @return the matching rows or null if the expression cannot be answered by the indexes of the list
+     */
+    CompressedBitmap select(IndexedList<?> list){
+        return root.select(list);
+    }
+
+    /**
+     * Returns a superset of the rows of the passed list satisfying this expression
+     * @param list the list, whose indexes are up to date
+     * @return the candidate rows or null if the candidates cannot be narrowed down by the indexes of the list
+     */
+    CompressedBitmap candidates(IndexedList<?> list){
+        return root.candidates(list);
+    }
+
+    /**
+     * Returns the rows of the passed candidates satisfying this expression
+     * @param snapshot the snapshot
+     * @param candidates the candidate rows
+     * @return the matching rows
+     */
+    long[] evaluate(ColumnarSnapshot<?> snapshot, long[] candidates){
+        return root.evaluate(snapshot, candidates);
+    }
+
+    /**
+     * Node of an expression tree
+     */
+    abstract static class Node {
+
+        abstract boolean test(Object entity);
+
+        /**
+         * Returns the expected costs of evaluating this node for an entity (relative to a numeric comparison)
+         * @return the expected costs
+         */
+        abstract double cost();
+
+        /**
+         * Returns the expected fraction of entities satisfying this node
+         * @return the expected selectivity
+         */
+        abstract double selectivity();
+
+        abstract CompressedBitmap select(IndexedList<?> list);
+
+        CompressedBitmap candidates(IndexedList<?> list){
+            return select(list);
+        }
+
+        abstract long[] evaluate(ColumnarSnapshot<?> snapshot, long[] candidates);
+
+        abstract void appendTo(StringBuilder builder);
+
+        /**
+         * Returns the precedence of this node, i.e., 0 for 'or', 1 for 'and', and 2 otherwise
+         * @return the precedence
+         */
+        int precedence(){
+            return 2;
+        }
+
+        void appendOperand(StringBuilder builder, Node operand){
+            if(operand.precedence() < precedence()){
+                builder.append('(');
+                operand.appendTo(builder);
+                builder.append(')');
+            }else{
+                operand.appendTo(builder);
+            }
+        }
+    }
+
+    /**
+     * Expression matching any entity
+     */
+    static final class Constant extends Node {
+
+        @Override
+        boolean test(Object entity) {
+            return true;
+        }
+
+        @Override
+        double cost() {
+            return 0;
+        }
+
+        @Override
+        double selectivity() {
+            return 1;
+        }
+
+        @Override
+        CompressedBitmap select(IndexedList<?> list) {
+            return list.all();
+        }
+
+        @Override
+        long[] evaluate(ColumnarSnapshot<?> snapshot, long[] candidates) {
+            return candidates.clone();
+        }
+
+        @Override
+        void appendTo(StringBuilder builder) {
+
+        }
+    }
+
+    /**
+     * Comparison of a property and a literal
+     */
+    static final class Comparison extends Node {
+
+        private final String property;
+        private final Operator operator;
+        private final Object literal;
+        private final CompiledCriterion criterion;
+
+        Comparison(String property, Operator operator, Object literal, String text){
+            this.property = FilterableProperties.normalize(property);
+            this.operator = operator;
+            this.literal = literal;
+            this.criterion = new CompiledCriterion(new FilterCriterion(this.property, this.property, text, new ComparisonFilterMethod(operator, literal)));
+        }
+
+        @Override
+        boolean test(Object entity) {
+            return criterion.test(entity);
+        }
+
+        @Override
+        double cost() {
+            if(operator == Operator.CONTAINS){
+                return 4;
+            }
+            return literal instanceof String ? 2 : 1;
+        }
+
+        @Override
+        double selectivity() {
+            switch(operator){
+                case EQ:
+                    return 0.1;
+                case NE:
+                    return 0.9;
+                case CONTAINS:
+                    return 0.25;
+                default:
+                    return 0.33;
+            }
+        }
+
+        @Override
+        CompressedBitmap select(IndexedList<?> list) {
+            return list.lookup(criterion);
+        }
+
+        @Override
+        long[] evaluate(ColumnarSnapshot<?> snapshot, long[] candidates) {
+            return snapshot.evaluate(criterion, candidates);
+        }
+
+        @Override
+        void appendTo(StringBuilder builder) {
+            builder.append(property).append(' ').append(operator.name().toLowerCase(Locale.ROOT)).append(' ');
+            if(literal instanceof String){
+                builder.append('\'').append(((String)literal).replace("'", "''")).append('\'');
+            }else if(literal instanceof BigDecimal){
+                builder.append(((BigDecimal)literal).toString());
+            }else{
+                builder.append(String.valueOf(literal));
+            }
+        }
+    }
+
+    /**
+     * Negation of an expression
+     */
+    static final class Not extends Node {
+
+        private final Node operand;
+
+        Not(Node operand){
+            this.operand = operand;
+        }
+
+        @Override
+        boolean test(Object entity) {
+            return !operand.test(entity);
+        }
+
+        @Override
+        double cost() {
+            return operand.cost();
+        }
+
+        @Override
+        double selectivity() {
+            return 1 - operand.selectivity();
+        }
+
+        @Override
+        CompressedBitmap select(IndexedList<?> list) {
+            CompressedBitmap rows = operand.select(list);
+            return Objects.isNull(rows) ? null : list.all().andNot(rows);
+        }
+
+        @Override
+        long[] evaluate(ColumnarSnapshot<?> snapshot, long[] candidates) {
+            long[] matches = operand.evaluate(snapshot, candidates);
+            for(int w = 0; w < matches.length; w++){
+                matches[w] = candidates[w] & ~matches[w];
+            }
+            return matches;
+        }
+
+        @Override
+        void appendTo(StringBuilder builder) {
+            builder.append("not ");
+            appendOperand(builder, operand);
+        }
+    }
+
+    /**
+     * Conjunction ('and') or disjunction ('or') of expressions
+     */
+    static final class Junction extends Node {
+
+        private final boolean conjunction;
+        private final List<Node> operands;
+        //operands in evaluation order
+        private final Node[] plan;
+
+        Junction(boolean conjunction, List<Node> operands){
+            this.conjunction = conjunction;
+            this.operands = operands;
+            this.plan = operands.toArray(new Node[operands.size()]);
+            //'and' evaluates the operands first that are cheap and likely to fail, 'or' the operands that are cheap and likely to succeed
+            if(conjunction){
+                Arrays.sort(plan, Comparator.comparingDouble(operand -> operand.cost() / Math.max(1e-9, 1 - operand.selectivity())));
+            }else{
+                Arrays.sort(plan, Comparator.comparingDouble(operand -> operand.cost() / Math.max(1e-9, operand.selectivity())));
+            }
+        }
+
+        @Override
+        boolean test(Object entity) {
+            for(Node operand : plan){
+                if(operand.test(entity) != conjunction){
+                    return !conjunction;
+                }
+            }
+            return conjunction;
+        }
+
+        @Override
+        double cost() {
+            double cost = 0;
+            double reached = 1;
+            for(Node operand : plan){
+                cost += reached * operand.cost();
+                reached *= conjunction ? operand.selectivity() : 1 - operand.selectivity();
+            }
+            return cost;
+        }
+
+        @Override
+        double selectivity() {
+            double selectivity = 1;
+            for(Node operand : plan){
+                selectivity *= conjunction ? operand.selectivity() : 1 - operand.selectivity();
+            }
+            return conjunction ? selectivity : 1 - selectivity;
+        }
+
+        @Override
+        CompressedBitmap select(IndexedList<?> list) {
+            CompressedBitmap rows = null;
+            for(Node operand : plan){
+                CompressedBitmap matches = operand.select(list);
+                if(Objects.isNull(matches)){
+                    return null;
+                }
+                rows = Objects.isNull(rows) ? matches : conjunction ? rows.and(matches) : rows.or(matches);
+            }
+            return rows;
+        }
+
+        @Override
+        CompressedBitmap candidates(IndexedList<?> list) {
+            CompressedBitmap rows = null;
+            for(Node operand : plan){
+                CompressedBitmap matches = operand.candidates(list);
+                if(Objects.isNull(matches)){
+                    if(conjunction){
+                        continue;
+                    }
+                    return null;
+                }
+                rows = Objects.isNull(rows) ? matches : conjunction ? rows.and(matches) : rows.or(matches);
+            }
+            return rows;
+        }
+
+        @Override
+        long[] evaluate(ColumnarSnapshot<?> snapshot, long[] candidates) {
+            if(conjunction){
+                long[] remaining = candidates;
+                for(Node operand : plan){
+                    remaining = operand.evaluate(snapshot, remaining);
+                }
+                return remaining == candidates ? candidates.clone() : remaining;
+            }
+            //only rows that do not match any previous operand are evaluated
+            long[] remaining = candidates.clone();
+            long[] matches = new long[candidates.length];
+            for(Node operand : plan){
+                long[] operandMatches = operand.evaluate(snapshot, remaining);
+                for(int w = 0; w < matches.length; w++){
+                    matches[w] |= operandMatches[w];
+                    remaining[w] &= ~operandMatches[w];
+                }
+            }
+            return matches;
+        }
+
+        @Override
+        int precedence() {
+            return conjunction ? 1 : 0;
+        }
+
+        @Override
+        void appendTo(StringBuilder builder) {
+            for(int i = 0; i < operands.size(); i++){
+                if(i > 0){
+                    builder.append(conjunction ? " and " : " or ");
+                }
+                appendOperand(builder, operands.get(i));
+            }
+        }
+    }
+
+    /**
+     * Recursive descent parser
+     */
+    private static final class Parser {
+
+        private final String input;
+        private int position = 0;
+        private int depth = 0;
+
+        Parser(String input){
+            this.input = input;
+        }
+
+        Node parse(){
+            Node node = parseExpression();
+            skipWhitespaces();
+            if(position < input.length()){
+                throw error("unexpected '" + input.charAt(position) + "'");
+            }
+            return node;
+        }
+
+        private Node parseExpression(){
+            List<Node> operands = new ArrayList<Node>();
+            operands.add(parseTerm());
+            while(acceptKeyword("or")){
+                operands.add(parseTerm());
+            }
+            return operands.size() == 1 ? operands.get(0) : new Junction(false, operands);
+        }
+
+        private Node parseTerm(){
+            List<Node> operands = new ArrayList<Node>();
+            operands.add(parseFactor());
+            while(acceptKeyword("and")){
+                operands.add(parseFactor());
+            }
+            return operands.size() == 1 ? operands.get(0) : new Junction(true, operands);
+        }
+
+        private Node parseFactor(){
+            if(acceptKeyword("not")){
+                enter();
+                Node node = new Not(parseFactor());
+                depth--;
+                return node;
+            }
+            skipWhitespaces();
+            if(position < input.length() && input.charAt(position) == '('){
+                position++;
+                enter();
+                Node node = parseExpression();
+                depth--;
+                skipWhitespaces();
+                if(position >= input.length() || input.charAt(position) != ')'){
+                    throw error("missing ')'");
+                }
+                position++;
+                return node;
+            }
+            String property = parseWord();
+            if(property.isEmpty()){
+                throw error("property expected");
+            }
+            String operatorName = parseWord();
+            Operator operator = null;
+            for(Operator candidate : Operator.values()){
+                if(candidate.name().equalsIgnoreCase(operatorName)){
+                    operator = candidate;
+                }
+            }
+            if(Objects.isNull(operator)){
+                throw error("operator expected");
+            }
+            return parseLiteral(property, operator);
+        }
+
+        /**
+         * Increments the nesting depth, the recursion of the parser is bounded so that deeply nested expressions are rejected instead of overflowing the stack
+         */
+        private void enter(){
+            if(++depth > MAX_DEPTH){
+                throw error("expression is nested deeper than " + MAX_DEPTH + " levels");
+            }
+        }
+
+        private Node parseLiteral(String property, Operator operator){
+            skipWhitespaces();
+            if(position >= input.length()){
+                throw error("literal expected");
+            }
+            char c = input.charAt(position);
+            if(c == '\'' || c == '"'){
+                StringBuilder value = new StringBuilder();
+                int start = position++;
+                while(true){
+                    if(position >= input.length()){
+                        throw error("unterminated string");
+                    }
+                    char next = input.charAt(position++);
+                    if(next == c){
+                        if(position < input.length() && input.charAt(position) == c){
+                            position++;
+                        }else{
+                            break;
+                        }
+                    }
+                    value.append(next);
+                }
+                return new Comparison(property, operator, value.toString(), input.substring(start, position));
+            }
+            String word = parseWord();
+            if(word.equalsIgnoreCase("true") || word.equalsIgnoreCase("false")){
+                return new Comparison(property, operator, Boolean.valueOf(word), word);
+            }else if(word.equalsIgnoreCase("null")){
+                return new Comparison(property, operator, null, word);
+            }
+            try{
+                return new Comparison(property, operator, new BigDecimal(word), word);
+            }catch(NumberFormatException e){
+                throw error("literal expected");
+            }
+        }
+
+        private String parseWord(){
+            skipWhitespaces();
+            int start = position;
+            while(position < input.length() && isWordCharacter(input.charAt(position))){
+                position++;
+            }
+            return input.substring(start, position);
+        }
+
+        private boolean acceptKeyword(String keyword){
+            skipWhitespaces();
+            int end = position + keyword.length();
+            if(end <= input.length() && input.regionMatches(true, position, keyword, 0, keyword.length())
+                && (end == input.length() || !isWordCharacter(input.charAt(end)))){
+                position = end;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespaces(){
+            while(position < input.length() && Character.isWhitespace(input.charAt(position))){
+                position++;
+            }
+        }
+
+        private static boolean isWordCharacter(char c){
+            return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.' || c == '+';
+        }
+
+        private ResponseStatusException error(String message){
+            return new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_EXPRESSION + ": " + message + " at position " + position);
+        }
+    }
+}
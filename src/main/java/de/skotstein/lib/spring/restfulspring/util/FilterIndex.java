@@ -0,0 +1,252 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Secondary index of an {@link IndexedList} over the values of a {@link Filterable} property. Rows are identified by their position in the list.
+ * Rows of items that do not have the property or whose getter throws an exception match any criterion (same semantics as {@link FilterMethod#applyFilterMethod(FilterCriterion, Object)}),
+ * rows having a null value match a criterion if its compiled predicate accepts null. Subclasses organize the non-null values.
+ */
+abstract class FilterIndex {
+
+    /**
+     * Marks rows of items that do not have the property or whose getter throws an exception
+     */
+    private static final Object UNAVAILABLE = new Object();
+
+    private final String name;
+    private Object[] values = new Object[16];
+    private CompressedBitmap unavailable = new CompressedBitmap();
+    private CompressedBitmap nulls = new CompressedBitmap();
+
+    FilterIndex(String name){
+        this.name = name;
+    }
+
+    /**
+     * Returns the normalized name of the indexed property
+     * @return the normalized name of the indexed property
+     */
+    String getName(){
+        return name;
+    }
+
+    /**
+     * Indexes the passed item at the passed row. The row must not be indexed yet.
+     * @param row the row
+     * @param item the item, which is not null
+     */
+    void add(int row, Object item){
+        Object value = UNAVAILABLE;
+        FilterableProperty property = FilterableProperties.of(item.getClass()).get(name);
+        if(!Objects.isNull(property)){
+            try{
+                value = property.read(item);
+            }catch(Throwable t){
+                value = UNAVAILABLE; //ignore
+            }
+        }
+        if(row >= values.length){
+            values = Arrays.copyOf(values, Math.max(row+1, values.length*2));
+        }
+        values[row] = value;
+        if(value == UNAVAILABLE){
+            unavailable.add(row);
+        }else if(Objects.isNull(value)){
+            nulls.add(row);
+        }else{
+            insert(value, row);
+        }
+    }
+
+    /**
+     * Returns the value of the passed row
+     * @param row the row, which is indexed
+     * @return the value, which is null if the value is null or if the row is unavailable
+     */
+    protected Object getValue(int row){
+        Object value = values[row];
+        return value == UNAVAILABLE ? null : value;
+    }
+
+    /**
+     * Removes the passed row from this index
+     * @param row the row
+     */
+    void remove(int row){
+        Object value = values[row];
+        values[row] = null;
+        if(value == UNAVAILABLE){
+            unavailable.remove(row);
+        }else if(Objects.isNull(value)){
+            nulls.remove(row);
+        }else{
+            delete(value, row);
+        }
+    }
+
+    /**
+     * Removes all rows from this index
+     */
+    void clear(){
+        values = new Object[16];
+        unavailable = new CompressedBitmap();
+        nulls = new CompressedBitmap();
+        clearValues();
+    }
+
+    /**
+     * Clears this index and indexes the passed items
+     * @param items the items
+     */
+    void rebuild(List<?> items){
+        clear();
+        values = new Object[Math.max(16, items.size())];
+        for(int row = 0; row < items.size(); row++){
+            add(row, items.get(row));
+        }
+    }
+
+    /**
+     * Returns the rows matching all passed criteria
+     * @param criteria the criteria, whose names are equal to the name of this index
+     * @return the matching rows
+     */
+    CompressedBitmap lookup(CompiledCriterion[] criteria){
+        CompressedBitmap result = lookupValues(criteria);
+        if(!unavailable.isEmpty()){
+            result = result.or(unavailable);
+        }
+        if(!nulls.isEmpty() && matchesAll(criteria, null)){
+            result = result.or(nulls);
+        }
+        return result;
+    }
+
+    /**
+     * Merges buffered changes into the data structures of this index. Called before lookups, but never concurrently to lookups.
+     */
+    void flush(){
+
+    }
+
+    /**
+     * Adds the passed non-null value of the passed row
+     * @param value the value
+     * @param row the row
+     */
+    protected abstract void insert(Object value, int row);
+
+    /**
+     * Removes the passed non-null value of the passed row
+     * @param value the value
+     * @param row the row
+     */
+    protected abstract void delete(Object value, int row);
+
+    /**
+     * Removes all non-null values
+     */
+    protected abstract void clearValues();
+
+    /**
+     * Returns all rows having a non-null value that matches all passed criteria
+     * @param criteria the criteria
+     * @return the matching rows
+     */
+    protected abstract CompressedBitmap lookupValues(CompiledCriterion[] criteria);
+
+    /**
+     * Returns true if the passed value matches the predicates of all passed criteria
+     * @param criteria the criteria
+     * @param value the value
+     * @return true if the passed value matches all criteria, else false
+     */
+    static boolean matchesAll(CompiledCriterion[] criteria, Object value){
+        for(CompiledCriterion criterion : criteria){
+            if(!criterion.getPredicate().test(value)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the rows of all values of the passed map that match all passed criteria to the passed result
+     * @param postings the values and their rows
+     * @param criteria the criteria
+     * @param result the result
+     */
+    static void collect(Map<Object,Postings> postings, CompiledCriterion[] criteria, BitSet result){
+        for(Map.Entry<Object,Postings> entry : postings.entrySet()){
+            if(matchesAll(criteria, entry.getKey())){
+                entry.getValue().addTo(result);
+            }
+        }
+    }
+
+    /**
+     * Sorted list of the rows having a particular value
+     */
+    static final class Postings {
+
+        private int[] rows = new int[2];
+        private int size = 0;
+
+        void add(int row){
+            if(size == rows.length){
+                rows = Arrays.copyOf(rows, size*2);
+            }
+            //rows are usually appended in ascending order
+            int i = size;
+            while(i > 0 && rows[i-1] > row){
+                rows[i] = rows[i-1];
+                i--;
+            }
+            rows[i] = row;
+            size++;
+        }
+
+        void remove(int row){
+            int i = Arrays.binarySearch(rows, 0, size, row);
+            if(i >= 0){
+                System.arraycopy(rows, i+1, rows, i, size-i-1);
+                size--;
+            }
+        }
+
+        boolean isEmpty(){
+            return size == 0;
+        }
+
+        int size(){
+            return size;
+        }
+
+        void addTo(BitSet result){
+            for(int i = 0; i < size; i++){
+                result.set(rows[i]);
+            }
+        }
+    }
+}
@@ -17,11 +17,8 @@
 package de.skotstein.lib.spring.restfulspring.util;
 
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.Objects;
-
-import org.springframework.web.server.ResponseStatusException;
+import java.util.function.Predicate;
 
 public abstract class FilterMethod {
     
@@ -43,28 +40,17 @@ public abstract class FilterMethod {
         if(Objects.isNull(filterCriterion.getQueryParameterValue())){
             return true;
         }
-        Class<?> clazz = entity.getClass();
-        for(Method method : clazz.getDeclaredMethods()){
-            Filterable annotation = method.getAnnotation(Filterable.class);
-            if(!Objects.isNull(annotation)){
-                if(annotation.query().toLowerCase().trim().compareTo(filterCriterion.getName().toLowerCase().trim())==0){
-                    try{
-                        method.setAccessible(true);
-                        return match(filterCriterion.getQueryParameterKey(),filterCriterion.getQueryParameterValue(),method.invoke(entity,new Object[0]));
-                    }catch(ResponseStatusException rse){
-                        throw rse;
-                    }catch(IllegalAccessException ie){
-                        return true; //ignore
-                    }catch(IllegalArgumentException iae){
-                        return true; //ignore
-                    }catch(InvocationTargetException ite){
-                        return true; //ignore
-                    }
-
-                }
-            }
+        FilterableProperty property = FilterableProperties.of(entity.getClass()).get(filterCriterion.getNormalizedName());
+        if(Objects.isNull(property)){
+            return true;
+        }
+        Object entityValue = null;
+        try{
+            entityValue = property.read(entity);
+        }catch(Throwable t){
+            return true; //ignore
         }
-        return true;
+        return match(filterCriterion.getQueryParameterKey(),filterCriterion.getQueryParameterValue(),entityValue);
     }
 
     /**
@@ -76,5 +62,59 @@ public abstract class FilterMethod {
      */
     protected abstract boolean match(String queryParameterKey, Object queryParameterValue, Object entityValue);
 
+    /**
+     * Compiles the passed filter criterion (key and value) into a predicate that is applied to entity values, see {@link Filter#compile(Class)}.
+     * The returned predicate must return the same result as {@link FilterMethod#match(String, Object, Object)} and must be safe to be used by multiple threads concurrently.
+     * Override this method to parse the query parameter value once instead of per entity. The default implementation delegates to {@link FilterMethod#match(String, Object, Object)}.
+     * @param queryParameterKey the query parameter key
+     * @param queryParameterValue the query parameter value, which is not null
+     * @return the predicate that is applied to entity values
+     */
+    protected Predicate<Object> compile(String queryParameterKey, Object queryParameterValue){
+        return entityValue -> match(queryParameterKey, queryParameterValue, entityValue);
+    }
+
+    /**
+     * Describes which entity values may satisfy the passed filter criterion (key and value) so that an index of an {@link IndexedList} can skip values
+     * that cannot match. The default implementation returns null, i.e., the index checks each distinct value with the compiled predicate.
+     * @param queryParameterKey the query parameter key
+     * @param queryParameterValue the query parameter value, which is not null
+     * @return the lookup or null if the matching values cannot be described
+     */
+    IndexLookup lookup(String queryParameterKey, Object queryParameterValue){
+        return null;
+    }
+
+    /**
+     * Returns a string identifying the behavior of this filter method, see {@link FilterResultCache}. Instances returning the same signature must return the same results
+     * for the same query parameters. The default implementation returns null, i.e., results of filters using this method are not cached. Override this method
+     * to enable caching, e.g., by returning the class name and the configuration of the instance.
+     * @return the signature of this filter method or null if results must not be cached
+     */
+    protected String getSignature(){
+        return null;
+    }
+
+    /**
+     * Returns the name of the passed class if this instance is of exactly that class, else null. Built-in filter methods return this signature, subclasses
+     * have to opt in to caching by overriding {@link FilterMethod#getSignature()} themselves.
+     * @param clazz the class declaring the signature
+     * @return the class name or null if this instance is of a subclass of the passed class
+     */
+    String classSignature(Class<?> clazz){
+        return getClass() == clazz ? clazz.getName() : null;
+    }
+
+    /**
+     * Returns the {@link FilterExpression} of the passed filter criterion (key and value) if the criterion is applied to entities as a whole instead of a single property
+     * (see {@link ExpressionFilterMethod}). The default implementation returns null.
+     * @param queryParameterKey the query parameter key
+     * @param queryParameterValue the query parameter value, which is not null
+     * @return the expression or null if the criterion is applied to a single property
+     */
+    FilterExpression expression(String queryParameterKey, Object queryParameterValue){
+        return null;
+    }
+
 }
 
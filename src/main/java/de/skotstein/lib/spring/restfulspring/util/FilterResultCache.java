@@ -0,0 +1,238 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Size-bounded cache of the results of filters applied to a particular source list. Results are identified by the canonical form of the filter,
+ * i.e., by the names, query parameter keys and values, methods (see {@link FilterMethod#getSignature()}), and scopes of its criteria regardless of their order,
+ * so that equivalent filters of different requests (e.g., default views of a collection resource) share a single result. If the cache is full, the least recently used result is evicted.
+ *
+ * Results are tagged with the version of the source list. If the version has changed (see {@link IndexedList#getVersion()}), all cached results are discarded with the next access,
+ * i.e., a {@link ColumnarSnapshot}, which is immutable, never invalidates its results. Filters having query parameter values other than strings, numbers, booleans, and characters
+ * or methods without signature are not cached but applied to the source list directly.
+ * The returned lists are unmodifiable and shared among callers. This class is thread-safe, results are computed without holding the lock of the cache.
+ */
+public class FilterResultCache<T> {
+
+    private final List<T> source;
+    private final LongSupplier version;
+    private final int capacity;
+    private final Map<String,List<T>> results;
+    private long cachedVersion;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long invalidations = 0;
+
+    /**
+     * Creates a cache of the results of filters applied to the passed {@link IndexedList}
+     * @param source the source list
+     * @param capacity the maximum number of cached results
+     */
+    public FilterResultCache(IndexedList<T> source, int capacity){
+        this(source, source::getVersion, capacity);
+    }
+
+    /**
+     * Creates a cache of the results of filters applied to the passed {@link ColumnarSnapshot}
+     * @param source the source list
+     * @param capacity the maximum number of cached results
+     */
+    public FilterResultCache(ColumnarSnapshot<T> source, int capacity){
+        this(source, () -> 0L, capacity);
+    }
+
+    /**
+     * Creates a cache of the results of filters applied to the passed list. The passed version supplier must return a different value whenever the list
+     * or the {@link Filterable} properties of its items have changed.
+     * @param source the source list
+     * @param version the supplier of the version of the source list
+     * @param capacity the maximum number of cached results
+     */
+    public FilterResultCache(List<T> source, LongSupplier version, int capacity){
+        if(Objects.isNull(source) || Objects.isNull(version)){
+            throw new RuntimeException("The passed source list or version is null");
+        }
+        if(capacity < 1){
+            throw new RuntimeException("The capacity must be greater than zero");
+        }
+        this.source = source;
+        this.version = version;
+        this.capacity = capacity;
+        this.cachedVersion = version.getAsLong();
+        this.results = new LinkedHashMap<String,List<T>>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String,List<T>> eldest) {
+                if(size() > FilterResultCache.this.capacity){
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the items of the source list that match the passed filter, see {@link Filter#filter(List)}. The result is taken from the cache if an equivalent filter
+     * has been applied to the current version of the source list before.
+     * @param filter the filter, can be null
+     * @return an unmodifiable list containing all matching items
+     */
+    public List<T> filter(Filter filter){
+        String key = key(filter);
+        if(Objects.isNull(key)){
+            return Collections.unmodifiableList(filter.filter(source));
+        }
+        long currentVersion = version.getAsLong();
+        synchronized(this){
+            if(currentVersion != cachedVersion){
+                invalidations += results.size();
+                results.clear();
+                cachedVersion = currentVersion;
+            }
+            List<T> result = results.get(key);
+            if(!Objects.isNull(result)){
+                hits++;
+                return result;
+            }
+            misses++;
+        }
+        List<T> result = Collections.unmodifiableList(Objects.isNull(filter) ? new ArrayList<T>(source) : filter.filter(source));
+        synchronized(this){
+            //results of outdated versions are not cached
+            if(currentVersion == cachedVersion && currentVersion == version.getAsLong()){
+                results.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Discards all cached results
+     */
+    public synchronized void clear(){
+        invalidations += results.size();
+        results.clear();
+    }
+
+    /**
+     * Returns the number of cached results
+     * @return the number of cached results
+     */
+    public synchronized int size(){
+        return results.size();
+    }
+
+    /**
+     * Returns the maximum number of cached results
+     * @return the maximum number of cached results
+     */
+    public int getCapacity(){
+        return capacity;
+    }
+
+    /**
+     * Returns the number of filter operations answered by the cache
+     * @return the number of hits
+     */
+    public synchronized long getHits(){
+        return hits;
+    }
+
+    /**
+     * Returns the number of filter operations that have been computed (excluding filters that cannot be cached)
+     * @return the number of misses
+     */
+    public synchronized long getMisses(){
+        return misses;
+    }
+
+    /**
+     * Returns the number of results that have been evicted because the cache was full
+     * @return the number of evictions
+     */
+    public synchronized long getEvictions(){
+        return evictions;
+    }
+
+    /**
+     * Returns the number of results that have been discarded because the source list has changed or {@link FilterResultCache#clear()} has been called
+     * @return the number of invalidations
+     */
+    public synchronized long getInvalidations(){
+        return invalidations;
+    }
+
+    /**
+     * Returns the fraction of filter operations answered by the cache
+     * @return the hit rate or 0 if no filter has been applied yet
+     */
+    public synchronized double getHitRate(){
+        long total = hits + misses;
+        return total == 0 ? 0 : (double)hits / total;
+    }
+
+    /**
+     * Returns the canonical form of the passed filter, i.e., the sorted descriptions of its criteria having a query parameter value
+     * @param filter the filter, can be null
+     * @return the canonical form or null if the filter cannot be cached
+     */
+    static String key(Filter filter){
+        if(Objects.isNull(filter)){
+            return "";
+        }
+        List<String> criteria = new ArrayList<String>();
+        for(FilterCriterion filterCriterion : filter.getItemsAsReadOnly()){
+            Object value = filterCriterion.getQueryParameterValue();
+            //criteria without query parameter value always match
+            if(Objects.isNull(value)){
+                continue;
+            }
+            String canonicalValue;
+            FilterExpression expression = filterCriterion.getMethod().expression(filterCriterion.getQueryParameterKey(), value);
+            if(!Objects.isNull(expression)){
+                canonicalValue = expression.toString();
+            }else if(value instanceof String || value instanceof Number || value instanceof Boolean || value instanceof Character){
+                canonicalValue = value.getClass().getName() + ":" + value;
+            }else{
+                return null;
+            }
+            String signature = filterCriterion.getMethod().getSignature();
+            //methods without signature may behave differently for the same query parameters
+            if(Objects.isNull(signature)){
+                return null;
+            }
+            criteria.add(escape(filterCriterion.getNormalizedName()) + "&" + escape(filterCriterion.getQueryParameterKey()) + "&" + escape(signature)
+                + "&" + (Objects.isNull(filterCriterion.getScope()) ? "" : escape(filterCriterion.getScope().getName())) + "&" + escape(canonicalValue));
+        }
+        Collections.sort(criteria);
+        return String.join(";", criteria);
+    }
+
+    private static String escape(String value){
+        return value.replace("%", "%25").replace("&", "%26").replace(";", "%3B");
+    }
+}
@@ -60,6 +60,14 @@ public class FilterableList<T> extends ArrayList<T>{
         }
     }
 
+    /**
+     * Returns a view of this list that is reduced without copying the items, see {@link FilterableListView}
+     * @return a view of this list
+     */
+    public FilterableListView<T> view(){
+        return new FilterableListView<T>(this);
+    }
+
     public void clearAndDeploy(List<T> target){
         target.clear();
         target.addAll(this);
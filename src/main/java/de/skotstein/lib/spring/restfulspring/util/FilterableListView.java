@@ -0,0 +1,126 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Read-only view of a source list that is reduced by filters and paginations without copying the items (see {@link FilterableList} for the copying variant).
+ * A view refers to the positions of its items in the source list: {@link FilterableListView#reduce(Filter)} stores the positions of the matching items only,
+ * {@link FilterableListView#reduce(Pagination)} narrows the range of positions without any allocation. Like {@link List#subList(int, int)}, the behavior of a view
+ * is undefined if the source list is structurally modified.
+ */
+public class FilterableListView<T> extends AbstractList<T> implements RandomAccess {
+
+    private final List<T> source;
+    //positions of the items in the source list or null if the view refers to a range of the source list
+    private final int[] positions;
+    private final int from;
+    private final int to;
+
+    /**
+     * Creates a view of all items of the passed source list
+     * @param source the source list
+     */
+    public FilterableListView(List<T> source){
+        this(source, null, 0, source.size());
+    }
+
+    private FilterableListView(List<T> source, int[] positions, int from, int to){
+        this.source = source;
+        this.positions = positions;
+        this.from = from;
+        this.to = to;
+    }
+
+    public static <T> FilterableListView<T> of(List<T> source){
+        return new FilterableListView<T>(source);
+    }
+
+    @Override
+    public T get(int index) {
+        if(index < 0 || index >= to - from){
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return source.get(position(index));
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    /**
+     * Returns a view of the items of this view that match the passed filter
+     * @param filter the filter, can be null
+     * @return a view of the matching items or this view if the passed filter is null
+     */
+    public FilterableListView<T> reduce(Filter filter){
+        if(Objects.isNull(filter)){
+            return this;
+        }
+        CompiledFilter<T> compiledFilter = filter.compile(null);
+        int[] matches = new int[Math.min(size(), 16)];
+        int size = 0;
+        for(int i = 0; i < size(); i++){
+            int position = position(i);
+            if(compiledFilter.test(source.get(position))){
+                if(size == matches.length){
+                    matches = Arrays.copyOf(matches, Math.max(16, matches.length * 2));
+                }
+                matches[size++] = position;
+            }
+        }
+        return new FilterableListView<T>(source, matches, 0, size);
+    }
+
+    /**
+     * Returns a view of the items of this view that are within the range of the passed pagination. The items before and after the range are counted
+     * by the passed pagination (see {@link Pagination#countItems(int)}).
+     * @param pagination the pagination, can be null
+     * @return a view of the items within the range or this view if the passed pagination is null
+     */
+    public FilterableListView<T> reduce(Pagination pagination){
+        if(Objects.isNull(pagination)){
+            return this;
+        }
+        pagination.countItems(size());
+        int start = Math.min(Math.max(0, pagination.getStart()), size());
+        int end = Objects.isNull(pagination.getLimit()) ? size() : (int)Math.min(size(), (long)pagination.getStart() + pagination.getLimit());
+        return new FilterableListView<T>(source, positions, from + start, from + Math.max(start, end));
+    }
+
+    /**
+     * Replaces the items of the passed target list with the items of this view. The target list may be the source list of this view,
+     * since the items are copied before the target list is cleared.
+     * @param target the target list
+     */
+    public void clearAndDeploy(List<T> target){
+        List<T> items = new ArrayList<T>(this);
+        target.clear();
+        target.addAll(items);
+    }
+
+    private int position(int index){
+        return Objects.isNull(positions) ? from + index : positions[from + index];
+    }
+}
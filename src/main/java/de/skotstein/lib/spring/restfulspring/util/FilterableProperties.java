@@ -0,0 +1,146 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Registry holding the {@link FilterableProperty} instances of a class, i.e., all declared getter methods annotated with {@link Filterable}.
+ * The metadata of a class is resolved once on first use and cached for the lifetime of the class. Accessors are bound via {@link LambdaMetafactory}
+ * (or a {@link MethodHandle} if a lambda cannot be spun for the getter), hence reading a property value does not involve reflection.
+ * Instances are immutable and can be shared among threads.
+ */
+public final class FilterableProperties {
+
+    private static final ClassValue<FilterableProperties> REGISTRY = new ClassValue<FilterableProperties>(){
+        @Override
+        protected FilterableProperties computeValue(Class<?> type) {
+            return new FilterableProperties(type);
+        }
+    };
+
+    private final Map<String,FilterableProperty> properties;
+
+    private FilterableProperties(Class<?> clazz){
+        Map<String,FilterableProperty> properties = new LinkedHashMap<String,FilterableProperty>();
+        for(Method method : clazz.getDeclaredMethods()){
+            Filterable annotation = method.getAnnotation(Filterable.class);
+            if(!Objects.isNull(annotation) && method.getParameterCount() == 0){
+                String name = normalize(annotation.query());
+                if(!properties.containsKey(name)){
+                    Function<Object,Object> accessor = bind(clazz, method);
+                    if(!Objects.isNull(accessor)){
+                        properties.put(name, new FilterableProperty(name, method.getReturnType(), accessor));
+                    }
+                }
+            }
+        }
+        this.properties = Collections.unmodifiableMap(properties);
+    }
+
+    /**
+     * Returns the {@link FilterableProperties} of the passed class. Note that only methods declared by the passed class itself are considered, i.e., inherited methods are ignored.
+     * @param clazz the class
+     * @return the (cached) {@link FilterableProperties} of the passed class
+     */
+    public static FilterableProperties of(Class<?> clazz){
+        return REGISTRY.get(clazz);
+    }
+
+    /**
+     * Normalizes the passed filter name the same way as {@link Filterable#query()} values are normalized, i.e., trims and lower-cases the name.
+     * @param name the filter name
+     * @return the normalized name or null if the passed name is null
+     */
+    public static String normalize(String name){
+        if(Objects.isNull(name)){
+            return null;
+        }
+        return name.toLowerCase().trim();
+    }
+
+    /**
+     * Returns the {@link FilterableProperty} having the passed normalized name (see {@link FilterableProperties#normalize(String)}).
+     * @param normalizedName the normalized name
+     * @return the property or null if the class does not have such a property
+     */
+    public FilterableProperty get(String normalizedName){
+        return properties.get(normalizedName);
+    }
+
+    /**
+     * Returns all properties of the class as read only collection.
+     * @return all properties of the class as read only collection
+     */
+    public Collection<FilterableProperty> getAll(){
+        return properties.values();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object,Object> bind(Class<?> clazz, Method method){
+        MethodHandle handle = null;
+        MethodHandles.Lookup lookup = null;
+        try{
+            lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+            handle = lookup.unreflect(method);
+        }catch(IllegalAccessException | RuntimeException e){
+            try{
+                method.setAccessible(true);
+                handle = MethodHandles.lookup().unreflect(method);
+                lookup = null;
+            }catch(IllegalAccessException | RuntimeException ie){
+                return null; //ignore, the method is not accessible
+            }
+        }
+        if(!Objects.isNull(lookup) && !Modifier.isStatic(method.getModifiers())){
+            try{
+                CallSite callSite = LambdaMetafactory.metafactory(lookup, "apply",
+                    MethodType.methodType(Function.class), MethodType.methodType(Object.class, Object.class),
+                    handle, MethodType.methodType(handle.type().wrap().returnType(), clazz));
+                return (Function<Object,Object>) callSite.getTarget().invokeExact();
+            }catch(Throwable t){
+                //fall through, use the method handle instead
+            }
+        }
+        if(Modifier.isStatic(method.getModifiers())){
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        final MethodHandle getter = handle.asType(MethodType.methodType(Object.class, Object.class));
+        return entity -> {
+            try{
+                return getter.invokeExact(entity);
+            }catch(RuntimeException | Error e){
+                throw e;
+            }catch(Throwable t){
+                throw new UndeclaredThrowableException(t);
+            }
+        };
+    }
+}
@@ -0,0 +1,62 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.function.Function;
+
+/**
+ * A getter method annotated with {@link Filterable} together with a pre-bound accessor that reads the property value from an entity.
+ * Instances are created once per class by {@link FilterableProperties} and are immutable.
+ */
+public final class FilterableProperty {
+
+    private final String name;
+    private final Class<?> type;
+    private final Function<Object,Object> accessor;
+
+    FilterableProperty(String name, Class<?> type, Function<Object,Object> accessor){
+        this.name = name;
+        this.type = type;
+        this.accessor = accessor;
+    }
+
+    /**
+     * Returns the normalized name of this property, i.e., the trimmed and lower-cased value of {@link Filterable#query()}.
+     * @return the normalized name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the declared return type of the annotated getter method.
+     * @return the declared return type
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Reads the value of this property from the passed entity. Exceptions and errors thrown by the getter method are passed through unchanged, filters treat
+     * any {@link Throwable} thrown by the getter as if the property were not available (like the former reflective invocation, which wrapped them in an InvocationTargetException).
+     * @param entity the entity, which must be an instance of the class this property has been resolved for
+     * @return the property value
+     */
+    public Object read(Object entity){
+        return accessor.apply(entity);
+    }
+}
@@ -0,0 +1,84 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * {@link FilterIndex} grouping rows by distinct value (and value class). Equality criteria are answered by a hash lookup, other criteria are evaluated once
+ * per distinct value instead of once per row.
+ */
+class HashFilterIndex extends FilterIndex {
+
+    private final Map<Class<?>,Map<Object,Postings>> partitions = new HashMap<Class<?>,Map<Object,Postings>>();
+
+    HashFilterIndex(String name){
+        super(name);
+    }
+
+    @Override
+    protected void insert(Object value, int row) {
+        partitions.computeIfAbsent(value.getClass(), c -> new HashMap<Object,Postings>()).computeIfAbsent(value, v -> new Postings()).add(row);
+    }
+
+    @Override
+    protected void delete(Object value, int row) {
+        Map<Object,Postings> partition = partitions.get(value.getClass());
+        Postings postings = partition.get(value);
+        postings.remove(row);
+        if(postings.isEmpty()){
+            partition.remove(value);
+            if(partition.isEmpty()){
+                partitions.remove(value.getClass());
+            }
+        }
+    }
+
+    @Override
+    protected void clearValues() {
+        partitions.clear();
+    }
+
+    @Override
+    protected CompressedBitmap lookupValues(CompiledCriterion[] criteria) {
+        BitSet result = new BitSet();
+        for(Map.Entry<Class<?>,Map<Object,Postings>> partition : partitions.entrySet()){
+            //use the smallest set of candidate keys
+            Object[] keys = null;
+            for(CompiledCriterion criterion : criteria){
+                Object[] criterionKeys = Objects.isNull(criterion.getLookup()) ? null : criterion.getLookup().keys(partition.getKey());
+                if(!Objects.isNull(criterionKeys) && (Objects.isNull(keys) || criterionKeys.length < keys.length)){
+                    keys = criterionKeys;
+                }
+            }
+            if(Objects.isNull(keys)){
+                collect(partition.getValue(), criteria, result);
+            }else{
+                for(Object key : keys){
+                    Postings postings = partition.getValue().get(key);
+                    if(!Objects.isNull(postings) && matchesAll(criteria, key)){
+                        postings.addTo(result);
+                    }
+                }
+            }
+        }
+        return CompressedBitmap.of(result);
+    }
+}
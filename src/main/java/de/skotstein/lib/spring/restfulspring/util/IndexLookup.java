@@ -0,0 +1,319 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Describes the entity values that may satisfy a compiled {@link FilterCriterion} so that a {@link FilterIndex} can narrow down the values it has to check
+ * (see {@link FilterMethod#lookup(String, Object)}). The description is conservative and per value class, i.e., it returns a superset of the matching values
+ * of a class or null if it cannot make a statement about values of that class. Since an index verifies each candidate value with the compiled predicate of the criterion,
+ * the description never has to be exact.
+ */
+final class IndexLookup {
+
+    /**
+     * No value of the class satisfies the criterion
+     */
+    static final Object[] NONE = new Object[0];
+
+    /**
+     * Maximum number of integral keys enumerated for a range
+     */
+    private static final int MAX_ENUMERATED_KEYS = 64;
+
+    private final Object key;
+    private final NumericCondition condition;
+    private final boolean bigDecimals;
+    private final String substring;
+    private final IpAddressPattern ipAddressPattern;
+
+    private IndexLookup(Object key, NumericCondition condition, boolean bigDecimals, String substring, IpAddressPattern ipAddressPattern){
+        this.key = key;
+        this.condition = condition;
+        this.bigDecimals = bigDecimals;
+        this.substring = substring;
+        this.ipAddressPattern = ipAddressPattern;
+    }
+
+    /**
+     * Creates a lookup for a criterion that is satisfied by values of the class of the passed key only if they are equal to the passed key.
+     * Values of other classes are not described.
+     * @param key the key
+     * @return the lookup
+     */
+    static IndexLookup equalTo(Object key){
+        return new IndexLookup(key, null, false, null, null);
+    }
+
+    /**
+     * Creates a lookup for a criterion that is satisfied by numeric values ({@link Byte}, {@link Short}, {@link Integer}, {@link Long}, {@link Float}, {@link Double},
+     * and optionally {@link BigDecimal}) if and only if they satisfy the passed condition. Values of other classes are not described.
+     * @param condition the numeric condition
+     * @param bigDecimals true if the lookup also describes {@link BigDecimal} values
+     * @return the lookup
+     */
+    static IndexLookup numeric(NumericCondition condition, boolean bigDecimals){
+        return new IndexLookup(null, condition, bigDecimals, null, null);
+    }
+
+    /**
+     * Creates a lookup for a criterion that is satisfied by {@link String} values only if they contain the passed substring, ignoring the case
+     * (see {@link CaseInsensitiveMatcher}). Values of other classes are not described.
+     * @param substring the case-folded substring (see {@link CaseInsensitiveMatcher#fold(char)})
+     * @return the lookup
+     */
+    static IndexLookup substring(String substring){
+        return new IndexLookup(null, null, false, substring, null);
+    }
+
+    /**
+     * Creates a lookup for a criterion that is satisfied by valid IP addresses (strings) if and only if they match the passed pattern, see {@link IpAddressPattern#matches(CharSequence)}.
+     * Other values are not described.
+     * @param pattern the IP address pattern
+     * @return the lookup
+     */
+    static IndexLookup ipAddress(IpAddressPattern pattern){
+        return new IndexLookup(null, null, false, null, pattern);
+    }
+
+    /**
+     * Returns the IP address pattern of this lookup
+     * @return the IP address pattern or null if this is not an IP address lookup
+     */
+    IpAddressPattern getIpAddressPattern(){
+        return ipAddressPattern;
+    }
+
+    /**
+     * Returns a copy of this lookup that additionally describes {@link String} values, see {@link IndexLookup#substring(String)}
+     * @param substring the case-folded substring
+     * @return the lookup
+     */
+    IndexLookup withSubstring(String substring){
+        return new IndexLookup(key, condition, bigDecimals, substring, ipAddressPattern);
+    }
+
+    /**
+     * Returns the case-folded substring of this lookup
+     * @return the case-folded substring or null if this is not a substring lookup
+     */
+    String getSubstring(){
+        return substring;
+    }
+
+    /**
+     * Returns the numeric condition of this lookup
+     * @return the numeric condition or null if this is not a numeric lookup
+     */
+    NumericCondition getCondition(){
+        return condition;
+    }
+
+    /**
+     * Returns all values of the passed class that may satisfy the criterion.
+     * @param clazz the value class
+     * @return the candidate values, {@link IndexLookup#NONE} if no value of the passed class satisfies the criterion, or null if the candidate values are unknown
+     */
+    Object[] keys(Class<?> clazz){
+        if(!Objects.isNull(key)){
+            return key.getClass() == clazz ? new Object[]{key} : null;
+        }
+        if(Objects.isNull(condition) || !isIntegral(clazz)){
+            return null;
+        }
+        if(condition.isLongEmpty()){
+            return NONE;
+        }
+        long[] longValues = condition.getLongValues();
+        if(Objects.isNull(longValues)){
+            long lower = Math.max(condition.getLongLower(), minValue(clazz));
+            long upper = Math.min(condition.getLongUpper(), maxValue(clazz));
+            if(lower > upper){
+                return NONE;
+            }
+            if(upper - lower >= MAX_ENUMERATED_KEYS || upper - lower < 0){
+                return null;
+            }
+            Object[] keys = new Object[(int)(upper - lower + 1)];
+            for(int i = 0; i < keys.length; i++){
+                keys[i] = box(lower + i, clazz);
+            }
+            return keys;
+        }
+        Object[] keys = new Object[longValues.length];
+        int counter = 0;
+        for(long value : longValues){
+            if(value >= minValue(clazz) && value <= maxValue(clazz)){
+                keys[counter++] = box(value, clazz);
+            }
+        }
+        return counter == 0 ? NONE : Arrays.copyOf(keys, counter);
+    }
+
+    /**
+     * Returns the inclusive range of values of the passed class that may satisfy the criterion.
+     * @param clazz the value class
+     * @return an array containing the lower and the upper bound (null if unbounded), {@link IndexLookup#NONE} if no value of the passed class satisfies the criterion,
+     * or null if the range is unknown
+     */
+    Object[] range(Class<?> clazz){
+        if(!Objects.isNull(key)){
+            return key.getClass() == clazz ? new Object[]{key, key} : null;
+        }
+        if(Objects.isNull(condition)){
+            return null;
+        }
+        if(isIntegral(clazz)){
+            if(condition.isLongEmpty()){
+                return NONE;
+            }
+            long lower = Math.max(condition.getLongLower(), minValue(clazz));
+            long upper = Math.min(condition.getLongUpper(), maxValue(clazz));
+            if(lower > upper){
+                return NONE;
+            }
+            return new Object[]{box(lower, clazz), box(upper, clazz)};
+        }else if(clazz == Double.class){
+            //widened by one ulp since the index orders -0.0 before 0.0
+            return new Object[]{Math.nextDown(condition.getDoubleLower()), Math.nextUp(condition.getDoubleUpper())};
+        }else if(clazz == Float.class){
+            return new Object[]{Math.nextDown((float)condition.getDoubleLower()), Math.nextUp((float)condition.getDoubleUpper())};
+        }else if(clazz == BigDecimal.class && bigDecimals){
+            BigDecimal[] values = condition.getValues();
+            if(!Objects.isNull(values)){
+                return new Object[]{values[0], values[values.length-1]};
+            }
+            return new Object[]{condition.getLower(), condition.getUpper()};
+        }
+        return null;
+    }
+
+    /**
+     * Returns the exact ranges of keys of a {@link SortedColumn} matching the criterion. Keys of integral values are the values themselves,
+     * keys of floating point values are encoded by {@link SortedColumn#encode(double)}.
+     * @param clazz the value class, i.e., {@link Byte}, {@link Short}, {@link Integer}, {@link Long}, {@link Float}, or {@link Double}
+     * @return sorted, disjoint pairs of inclusive lower and upper bounds (empty if no value of the passed class matches) or null if the matching values of the passed class are unknown
+     */
+    long[] ranges(Class<?> clazz){
+        if(!Objects.isNull(key)){
+            if(key.getClass() == clazz && isIntegral(clazz)){
+                long value = ((Number)key).longValue();
+                return new long[]{value, value};
+            }
+            return null;
+        }
+        if(Objects.isNull(condition)){
+            return null;
+        }
+        if(isIntegral(clazz)){
+            if(condition.isLongEmpty()){
+                return new long[0];
+            }
+            long[] longValues = condition.getLongValues();
+            if(Objects.isNull(longValues)){
+                long lower = Math.max(condition.getLongLower(), minValue(clazz));
+                long upper = Math.min(condition.getLongUpper(), maxValue(clazz));
+                return lower > upper ? new long[0] : new long[]{lower, upper};
+            }
+            long[] ranges = new long[longValues.length*2];
+            int counter = 0;
+            for(long value : longValues){
+                if(value >= minValue(clazz) && value <= maxValue(clazz) && (counter == 0 || ranges[counter-1] < value)){
+                    ranges[counter++] = value;
+                    ranges[counter++] = value;
+                }
+            }
+            return Arrays.copyOf(ranges, counter);
+        }else if(clazz == Double.class || clazz == Float.class){
+            double[] doubleValues = condition.getDoubleValues();
+            if(Objects.isNull(doubleValues)){
+                long lower = encodeLower(condition.getDoubleLower(), condition.isLowerInclusive());
+                long upper = encodeUpper(condition.getDoubleUpper(), condition.isUpperInclusive());
+                return lower > upper ? new long[0] : new long[]{lower, upper};
+            }
+            long[] ranges = new long[doubleValues.length*2];
+            int counter = 0;
+            for(double value : doubleValues){
+                long lower = encodeLower(value, true);
+                long upper = encodeUpper(value, true);
+                //skip duplicates, e.g., -0.0 and 0.0
+                if(counter > 0 && ranges[counter-1] >= lower){
+                    continue;
+                }
+                ranges[counter++] = lower;
+                ranges[counter++] = upper;
+            }
+            return Arrays.copyOf(ranges, counter);
+        }
+        return null;
+    }
+
+    //-0.0 and 0.0 are equal, but have different keys
+    private static long encodeLower(double bound, boolean inclusive){
+        if(bound == 0){
+            return inclusive ? SortedColumn.encode(-0.0) : SortedColumn.encode(0.0)+1;
+        }
+        return inclusive ? SortedColumn.encode(bound) : SortedColumn.encode(bound)+1;
+    }
+
+    private static long encodeUpper(double bound, boolean inclusive){
+        if(bound == 0){
+            return inclusive ? SortedColumn.encode(0.0) : SortedColumn.encode(-0.0)-1;
+        }
+        return inclusive ? SortedColumn.encode(bound) : SortedColumn.encode(bound)-1;
+    }
+
+    private static boolean isIntegral(Class<?> clazz){
+        return clazz == Long.class || clazz == Integer.class || clazz == Short.class || clazz == Byte.class;
+    }
+
+    private static long minValue(Class<?> clazz){
+        if(clazz == Integer.class){
+            return Integer.MIN_VALUE;
+        }else if(clazz == Short.class){
+            return Short.MIN_VALUE;
+        }else if(clazz == Byte.class){
+            return Byte.MIN_VALUE;
+        }
+        return Long.MIN_VALUE;
+    }
+
+    private static long maxValue(Class<?> clazz){
+        if(clazz == Integer.class){
+            return Integer.MAX_VALUE;
+        }else if(clazz == Short.class){
+            return Short.MAX_VALUE;
+        }else if(clazz == Byte.class){
+            return Byte.MAX_VALUE;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static Object box(long value, Class<?> clazz){
+        if(clazz == Integer.class){
+            return Integer.valueOf((int)value);
+        }else if(clazz == Short.class){
+            return Short.valueOf((short)value);
+        }else if(clazz == Byte.class){
+            return Byte.valueOf((byte)value);
+        }
+        return Long.valueOf(value);
+    }
+}
@@ -0,0 +1,334 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * List maintaining secondary indexes over {@link Filterable} properties of its items. If a {@link Filter} is applied to an {@link IndexedList}
+ * (see {@link Filter#filter(java.util.List)} and {@link CompiledFilter#filter(java.util.List)}), criteria on indexed properties are answered by the indexes,
+ * only the remaining criteria are evaluated for the candidate items. Criteria answered by an index are not evaluated per item, i.e., the {@link FilterEvaluationMode}
+ * only applies to the remaining criteria. Indexes are identified by the name of the {@link Filterable} annotation and are used for criteria having the same name.
+ *
+ * Appending and replacing items updates the indexes incrementally. Inserting or removing items at other positions than the end of the list shifts the positions
+ * of subsequent items, hence the indexes are rebuilt lazily with the next filter operation. The values of indexed properties must not change while an item is part of the list,
+ * call {@link IndexedList#reindex()} after modifying items.
+ * Like {@link ArrayList}, this class is not synchronized. Multiple threads may filter the list concurrently as long as it is not modified. Null items are not permitted.
+ */
+public class IndexedList<T> extends AbstractList<T> implements RandomAccess {
+
+    private final ArrayList<T> items = new ArrayList<T>();
+    private final Map<String,FilterIndex> indexes = new LinkedHashMap<String,FilterIndex>();
+    private final Map<Class<?>,Integer> classes = new HashMap<Class<?>,Integer>();
+    private volatile boolean dirty = false;
+    private volatile boolean pending = false;
+    private volatile long version = 0;
+
+    public IndexedList(){
+
+    }
+
+    public IndexedList(Collection<? extends T> items){
+        this.addAll(items);
+    }
+
+    /**
+     * Adds a hash index over the property having the passed name. A hash index answers equality criteria by a hash lookup (e.g., {@link DefaultLongFilterMethod}),
+     * other criteria are evaluated once per distinct value. Use this index for properties having few distinct values or for equality criteria.
+     * @param name the name of the {@link Filterable} property
+     * @return this {@link IndexedList} instance
+     */
+    public IndexedList<T> withHashIndex(String name){
+        return withIndex(new HashFilterIndex(FilterableProperties.normalize(name)));
+    }
+
+    /**
+     * Adds a sorted index over the property having the passed name. A sorted index answers range criteria (e.g., {@link RhsNumericFilterMethod}) by evaluating only
+     * the values within the range, other criteria are evaluated once per distinct value.
+     * @param name the name of the {@link Filterable} property
+     * @return this {@link IndexedList} instance
+     */
+    public IndexedList<T> withSortedIndex(String name){
+        return withIndex(new SortedFilterIndex(FilterableProperties.normalize(name)));
+    }
+
+    /**
+     * Adds a bitmap index over the property having the passed name. A bitmap index keeps a compressed bitmap of rows per distinct value, criteria are evaluated
+     * once per distinct value and the bitmaps of the matching values are combined by word-level bitmap operations. Use this index for properties having
+     * few distinct values (e.g., booleans, enums, or enum-like strings).
+     * @param name the name of the {@link Filterable} property
+     * @return this {@link IndexedList} instance
+     */
+    public IndexedList<T> withBitmapIndex(String name){
+        return withIndex(new BitmapFilterIndex(FilterableProperties.normalize(name)));
+    }
+
+    /**
+     * Adds a trigram index over the property having the passed name. A trigram index answers case-insensitive substring criteria (e.g., {@link DefaultStringFilterMethod})
+     * by intersecting the rows of the trigrams of the substring, only the resulting candidates are verified. Use this index for string properties that are searched by substrings.
+     * @param name the name of the {@link Filterable} property
+     * @return this {@link IndexedList} instance
+     */
+    public IndexedList<T> withTrigramIndex(String name){
+        return withIndex(new TrigramFilterIndex(FilterableProperties.normalize(name)));
+    }
+
+    /**
+     * Adds an IP address index over the property having the passed name. An IP address index stores IP v4 and IP v6 addresses in radix tries and answers
+     * criteria using {@link IpAddressFilterMethod} (wildcard patterns and CIDR prefixes) by walking the matching subtrees.
+     * @param name the name of the {@link Filterable} property
+     * @return this {@link IndexedList} instance
+     */
+    public IndexedList<T> withIpAddressIndex(String name){
+        return withIndex(new IpAddressFilterIndex(FilterableProperties.normalize(name)));
+    }
+
+    /**
+     * Removes the index over the property having the passed name
+     * @param name the name of the {@link Filterable} property
+     * @return this {@link IndexedList} instance
+     */
+    public IndexedList<T> withoutIndex(String name){
+        indexes.remove(FilterableProperties.normalize(name));
+        return this;
+    }
+
+    /**
+     * Returns true if this list has an index over the property having the passed name
+     * @param name the name of the {@link Filterable} property
+     * @return true if this list has an index over the property having the passed name, else false
+     */
+    public boolean hasIndex(String name){
+        return indexes.containsKey(FilterableProperties.normalize(name));
+    }
+
+    /**
+     * Rebuilds all indexes with the next filter operation. Call this method if the values of indexed properties of items of this list have changed.
+     */
+    public void reindex(){
+        dirty = true;
+        version++;
+    }
+
+    /**
+     * Returns the version of this list. The version changes whenever items are added, replaced, or removed, and whenever {@link IndexedList#reindex()} is called,
+     * i.e., results derived from this list (see {@link FilterResultCache}) are outdated if the version has changed.
+     * @return the version of this list
+     */
+    public long getVersion(){
+        return version;
+    }
+
+    @Override
+    public T get(int index) {
+        return items.get(index);
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+
+    @Override
+    public T set(int index, T element) {
+        Objects.requireNonNull(element, "The passed item is null");
+        T previous = items.set(index, element);
+        version++;
+        removeClass(previous);
+        addClass(element);
+        if(!dirty){
+            for(FilterIndex filterIndex : indexes.values()){
+                filterIndex.remove(index);
+                filterIndex.add(index, element);
+            }
+            pending = true;
+        }
+        return previous;
+    }
+
+    @Override
+    public void add(int index, T element) {
+        Objects.requireNonNull(element, "The passed item is null");
+        items.add(index, element);
+        addClass(element);
+        modCount++;
+        version++;
+        if(index != items.size()-1){
+            dirty = true;
+        }else if(!dirty){
+            for(FilterIndex filterIndex : indexes.values()){
+                filterIndex.add(index, element);
+            }
+            pending = true;
+        }
+    }
+
+    @Override
+    public T remove(int index) {
+        if(index == items.size()-1 && !dirty){
+            for(FilterIndex filterIndex : indexes.values()){
+                filterIndex.remove(index);
+            }
+            pending = true;
+        }else{
+            dirty = true;
+        }
+        T previous = items.remove(index);
+        removeClass(previous);
+        modCount++;
+        version++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        items.clear();
+        classes.clear();
+        for(FilterIndex filterIndex : indexes.values()){
+            filterIndex.clear();
+        }
+        dirty = false;
+        modCount++;
+        version++;
+    }
+
+    /**
+     * Returns the rows matching the criteria that can be answered by the indexes of this list
+     * @param criteria the criteria
+     * @param answered set to true for each criterion that has been answered by an index
+     * @return the matching rows or null if none of the passed criteria can be answered by an index
+     */
+    CompressedBitmap select(CompiledCriterion[] criteria, boolean[] answered){
+        ensureIndexes();
+        //group the criteria by index so that multiple criteria on the same property are answered by a single lookup
+        Map<FilterIndex,List<CompiledCriterion>> groups = new LinkedHashMap<FilterIndex,List<CompiledCriterion>>();
+        List<CompressedBitmap> expressions = new ArrayList<CompressedBitmap>();
+        for(int i = 0; i < criteria.length; i++){
+            FilterExpression expression = criteria[i].getExpression();
+            if(!Objects.isNull(expression)){
+                //expressions are answered by combining the lookups of their comparisons, otherwise the indexes narrow down the candidates
+                if(isInScope(criteria[i].getScope())){
+                    CompressedBitmap matches = expression.select(this);
+                    answered[i] = !Objects.isNull(matches);
+                    if(Objects.isNull(matches)){
+                        matches = expression.candidates(this);
+                    }
+                    if(!Objects.isNull(matches)){
+                        expressions.add(matches);
+                    }
+                }
+                continue;
+            }
+            FilterIndex filterIndex = indexes.get(criteria[i].getName());
+            if(!Objects.isNull(filterIndex) && isInScope(criteria[i].getScope())){
+                groups.computeIfAbsent(filterIndex, k -> new ArrayList<CompiledCriterion>()).add(criteria[i]);
+                answered[i] = true;
+            }
+        }
+        CompressedBitmap rows = null;
+        for(CompressedBitmap matches : expressions){
+            rows = Objects.isNull(rows) ? matches : rows.and(matches);
+        }
+        for(Map.Entry<FilterIndex,List<CompiledCriterion>> group : groups.entrySet()){
+            CompressedBitmap matches = group.getKey().lookup(group.getValue().toArray(new CompiledCriterion[group.getValue().size()]));
+            rows = Objects.isNull(rows) ? matches : rows.and(matches);
+            if(rows.isEmpty()){
+                break;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the rows matching the passed criterion if it can be answered by an index of this list. The indexes must be up to date.
+     * @param criterion the criterion
+     * @return the matching rows or null if the criterion cannot be answered by an index
+     */
+    CompressedBitmap lookup(CompiledCriterion criterion){
+        FilterIndex filterIndex = indexes.get(criterion.getName());
+        if(Objects.isNull(filterIndex) || !isInScope(criterion.getScope())){
+            return null;
+        }
+        return filterIndex.lookup(new CompiledCriterion[]{criterion});
+    }
+
+    /**
+     * Returns all rows of this list
+     * @return all rows
+     */
+    CompressedBitmap all(){
+        return CompressedBitmap.range(items.size());
+    }
+
+    /**
+     * Returns true if all items of this list are instances of the passed scope
+     * @param scope the scope, can be null
+     * @return true if all items are instances of the passed scope, else false
+     */
+    boolean isInScope(Class<?> scope){
+        if(Objects.isNull(scope)){
+            return true;
+        }
+        for(Class<?> clazz : classes.keySet()){
+            if(!scope.isAssignableFrom(clazz)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private IndexedList<T> withIndex(FilterIndex filterIndex){
+        filterIndex.rebuild(items);
+        filterIndex.flush();
+        indexes.put(filterIndex.getName(), filterIndex);
+        return this;
+    }
+
+    private void ensureIndexes(){
+        if(dirty || pending){
+            synchronized(this){
+                if(dirty){
+                    for(FilterIndex filterIndex : indexes.values()){
+                        filterIndex.rebuild(items);
+                    }
+                }
+                for(FilterIndex filterIndex : indexes.values()){
+                    filterIndex.flush();
+                }
+                //readers skip the synchronized block once both flags are cleared, hence they are cleared after all indexes are flushed
+                dirty = false;
+                pending = false;
+            }
+        }
+    }
+
+    private void addClass(T item){
+        classes.merge(item.getClass(), 1, Integer::sum);
+    }
+
+    private void removeClass(T item){
+        classes.computeIfPresent(item.getClass(), (c, counter) -> counter == 1 ? null : counter - 1);
+    }
+}
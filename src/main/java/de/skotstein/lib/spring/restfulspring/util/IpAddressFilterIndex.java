@@ -0,0 +1,152 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * {@link FilterIndex} over IP addresses. Valid IP v4 and IP v6 addresses are stored in two {@link IpAddressTrie}s, criteria using {@link IpAddressFilterMethod}
+ * are answered by walking the subtrees matching their patterns (IP v4 patterns also walk the IP v4-mapped IP v6 addresses). Other criteria are verified for the resulting rows only.
+ * Values that are not valid IP addresses (including values that are not strings) are evaluated once per distinct value, i.e., they cause the same errors as without an index.
+ */
+class IpAddressFilterIndex extends FilterIndex {
+
+    private static final long IP_V4_MAPPED_PREFIX = 0xFFFFL << 32;
+
+    private final IpAddressTrie ipV4 = new IpAddressTrie(32);
+    private final IpAddressTrie ipV6 = new IpAddressTrie(128);
+    private final Map<Object,Postings> others = new HashMap<Object,Postings>();
+
+    IpAddressFilterIndex(String name){
+        super(name);
+    }
+
+    @Override
+    protected void insert(Object value, int row) {
+        long[] address = parse(value);
+        if(Objects.isNull(address)){
+            others.computeIfAbsent(value, v -> new Postings()).add(row);
+        }else if(address.length == 1){
+            ipV4.add(address[0], 0L, row);
+        }else{
+            ipV6.add(address[0], address[1], row);
+        }
+    }
+
+    @Override
+    protected void delete(Object value, int row) {
+        long[] address = parse(value);
+        if(Objects.isNull(address)){
+            Postings postings = others.get(value);
+            postings.remove(row);
+            if(postings.isEmpty()){
+                others.remove(value);
+            }
+        }else if(address.length == 1){
+            ipV4.remove(address[0], 0L, row);
+        }else{
+            ipV6.remove(address[0], address[1], row);
+        }
+    }
+
+    @Override
+    protected void clearValues() {
+        ipV4.clear();
+        ipV6.clear();
+        others.clear();
+    }
+
+    @Override
+    protected CompressedBitmap lookupValues(CompiledCriterion[] criteria) {
+        BitSet result = new BitSet();
+        collect(others, criteria, result);
+        List<long[]> ipV4Patterns = new ArrayList<long[]>();
+        List<long[]> ipV6Patterns = new ArrayList<long[]>();
+        List<CompiledCriterion> unresolved = new ArrayList<CompiledCriterion>();
+        boolean ipV4Satisfiable = true;
+        for(CompiledCriterion criterion : criteria){
+            IpAddressPattern pattern = Objects.isNull(criterion.getLookup()) ? null : criterion.getLookup().getIpAddressPattern();
+            if(Objects.isNull(pattern)){
+                unresolved.add(criterion);
+            }else if(pattern.isIpV6()){
+                //IP v4 addresses never match IP v6 patterns
+                ipV4Satisfiable = false;
+                ipV6Patterns.add(new long[]{pattern.getHighValue(), pattern.getLowValue(), pattern.getHighMask(), pattern.getLowMask()});
+            }else if(!pattern.isSatisfiable()){
+                return CompressedBitmap.of(result);
+            }else{
+                long value = pattern.getValue() & 0xFFFFFFFFL;
+                long mask = pattern.getMask() & 0xFFFFFFFFL;
+                ipV4Patterns.add(new long[]{value << 32, 0L, mask << 32, 0L});
+                ipV6Patterns.add(new long[]{0L, IP_V4_MAPPED_PREFIX | value, -1L, 0xFFFFFFFFL << 32 | mask});
+            }
+        }
+        BitSet addresses = new BitSet();
+        if(ipV4Satisfiable){
+            ipV4.collect(ipV4Patterns.toArray(new long[ipV4Patterns.size()][]), addresses);
+        }
+        ipV6.collect(ipV6Patterns.toArray(new long[ipV6Patterns.size()][]), addresses);
+        if(unresolved.isEmpty()){
+            result.or(addresses);
+        }else{
+            CompiledCriterion[] remaining = unresolved.toArray(new CompiledCriterion[unresolved.size()]);
+            for(int row = addresses.nextSetBit(0); row >= 0; row = addresses.nextSetBit(row+1)){
+                if(matchesAll(remaining, getValue(row))){
+                    result.set(row);
+                }
+            }
+        }
+        return CompressedBitmap.of(result);
+    }
+
+    /**
+     * Parses the passed value into an IP address
+     * @param value the value
+     * @return an array containing the IP v4 address in the upper 32 bits, an array containing the upper and lower 64 bits of an IP v6 address, or null if the value is not a valid IP address
+     */
+    private static long[] parse(Object value){
+        if(!(value instanceof String)){
+            return null;
+        }
+        String address = (String)value;
+        int from = 0;
+        int to = address.length();
+        while(from < to && address.charAt(from) <= ' '){
+            from++;
+        }
+        while(to > from && address.charAt(to-1) <= ' '){
+            to--;
+        }
+        if(from == to){
+            return null;
+        }
+        long ipV4Address = IpAddressPattern.parseIpV4(address, from, to);
+        if(ipV4Address >= 0){
+            return new long[]{ipV4Address << 32};
+        }
+        int layout = IpAddressPattern.ipV6Layout(address, from, to);
+        if(layout < 0){
+            return null;
+        }
+        return new long[]{IpAddressPattern.ipV6Word(address, from, to, layout, 0), IpAddressPattern.ipV6Word(address, from, to, layout, 1)};
+    }
+}
@@ -17,9 +17,7 @@
 package de.skotstein.lib.spring.restfulspring.util;
 
 import java.util.Objects;
-
-import org.springframework.http.HttpStatus;
-import org.springframework.web.server.ResponseStatusException;
+import java.util.function.Predicate;
 
 public class IpAddressFilterMethod extends FilterMethod{
 
@@ -58,54 +56,43 @@ public class IpAddressFilterMethod extends FilterMethod{
             }
         }
 
-        //step 1: read IP Filter
-        String[] ipFilterSegments = new String[4];
-        for(int i = 0; i < ipFilterSegments.length; i++){
-            ipFilterSegments[i] = "";
-        }
-        int segmentCounter = 0;
-        for(int i = 0; i < queryIpAddress.length(); i++){
-            if(queryIpAddress.charAt(i) == '.'){
-                segmentCounter++;
-                if(segmentCounter > 3){
-                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,"Invalid IP Filtering Schema");
-                }
-            }else if(queryIpAddress.charAt(i)=='*'){
-                ipFilterSegments[segmentCounter] = "*";
-            }else{
-                char digit = queryIpAddress.charAt(i);
-                if(!Character.isDigit(digit)){
-                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,"Invalid IP Filtering Schema");
-                }else{
-                    if(ipFilterSegments[segmentCounter].compareTo("*")!=0){
-                        ipFilterSegments[segmentCounter]+=digit;
-                    }
-                }
-            }
+        return IpAddressPattern.compile(queryIpAddress).matches(entityIpAddress);
+    }
+
+    @Override
+    protected Predicate<Object> compile(String queryParameterKey, Object queryParameterValue) {
+        if(Objects.isNull(queryParameterValue)){
+            return v -> true;
         }
-        //finally replace all untouched segments with *
-        for(int i = 0; i < ipFilterSegments.length; i++){
-            if(ipFilterSegments[i].compareTo("")==0){
-                ipFilterSegments[i] = "*";
-            }
+        if(!(queryParameterValue instanceof String)){
+            throw new RuntimeException("Query parameter for filtering IP addresses must by type of string");
         }
-
-        //step 2: read IP Address
-        String[] ipAddressSegments = entityIpAddress.split("\\.");
-        if(ipAddressSegments.length != 4){
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,"The client IP is invalid");
+        if(((String)queryParameterValue).isBlank()){
+            return v -> true;
         }
-
-        //step 3: compare IP Address with IP Filter
-        for(int i = 0; i < 4; i++){
-            if(ipFilterSegments[i].compareTo("*")==0){
-                continue;
-            }
-            if(ipFilterSegments[i].compareTo(ipAddressSegments[i])!=0){
+        //parse the pattern once, entity addresses are parsed without allocation
+        IpAddressPattern pattern = IpAddressPattern.compile((String)queryParameterValue);
+        return v -> {
+            if(Objects.isNull(v)){
                 return false;
             }
+            if(!(v instanceof String)){
+                throw new RuntimeException("IP address (entity value) must by type of string");
+            }
+            return pattern.matches((String)v);
+        };
+    }
+
+    @Override
+    IndexLookup lookup(String queryParameterKey, Object queryParameterValue) {
+        if(!(queryParameterValue instanceof String) || ((String)queryParameterValue).isBlank()){
+            return null;
         }
-        return true;
+        return IndexLookup.ipAddress(IpAddressPattern.compile((String)queryParameterValue));
     }
 
+    @Override
+    protected String getSignature() {
+        return classSignature(IpAddressFilterMethod.class);
+    }
 }
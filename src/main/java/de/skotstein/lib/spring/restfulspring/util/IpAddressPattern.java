@@ -0,0 +1,505 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.Objects;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Compiled IP address filter pattern. A pattern is parsed once into a bit mask and a value, matching an IP address is a mask-and-compare of the address bits
+ * that does not allocate any objects. The following pattern formats are supported:
+ * - IP v4 wildcard patterns consisting of at most four segments separated by dots, e.g., "192.168.*.*", "10.0" (missing segments are treated as wildcards),
+ *   or "10.*.1*.5" (a segment containing a wildcard symbol matches any value).
+ * - IP v4 CIDR notation, e.g., "10.0.0.0/8"
+ * - IP v6 addresses with optional CIDR prefix length, e.g., "2001:db8::1", "2001:db8::/32". A group consisting of a wildcard symbol matches any value, e.g., "fe80:*::1".
+ *   The last 32 bits can be written in dotted decimal notation, e.g., "::ffff:10.0.0.0/104".
+ * IP v4 patterns also match IP v4-mapped IP v6 addresses, e.g., "::ffff:10.0.0.1". Note that segments are compared numerically, i.e., "10.0.0.01" matches "10.0.0.1".
+ */
+public final class IpAddressPattern {
+
+    private static final String INVALID_SCHEMA = "Invalid IP Filtering Schema";
+
+    private final boolean ipV6;
+    private final boolean satisfiable;
+    private final int mask;
+    private final int value;
+    private final long highMask;
+    private final long highValue;
+    private final long lowMask;
+    private final long lowValue;
+
+    private IpAddressPattern(int mask, int value, boolean satisfiable){
+        this.ipV6 = false;
+        this.satisfiable = satisfiable;
+        this.mask = mask;
+        this.value = value & mask;
+        this.highMask = 0;
+        this.highValue = 0;
+        this.lowMask = 0;
+        this.lowValue = 0;
+    }
+
+    private IpAddressPattern(long highMask, long highValue, long lowMask, long lowValue){
+        this.ipV6 = true;
+        this.satisfiable = true;
+        this.mask = 0;
+        this.value = 0;
+        this.highMask = highMask;
+        this.highValue = highValue & highMask;
+        this.lowMask = lowMask;
+        this.lowValue = lowValue & lowMask;
+    }
+
+    /**
+     * Parses the passed pattern. Throws a {@link ResponseStatusException} (400) if the pattern is invalid.
+     * @param pattern the pattern
+     * @return the compiled pattern
+     */
+    public static IpAddressPattern compile(String pattern){
+        if(Objects.isNull(pattern)){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_SCHEMA);
+        }
+        pattern = pattern.trim();
+        int slash = pattern.indexOf('/');
+        boolean hasPrefix = slash >= 0;
+        int prefixLength = 0;
+        String address = pattern;
+        if(hasPrefix){
+            prefixLength = parsePrefixLength(pattern.substring(slash+1));
+            address = pattern.substring(0, slash);
+        }
+        if(address.indexOf(':') >= 0){
+            //an IP v6 address without prefix length is matched in full
+            return compileIpV6(address, hasPrefix ? prefixLength : 128);
+        }else if(hasPrefix){
+            return compileIpV4Cidr(address, prefixLength);
+        }else{
+            return compileIpV4Wildcard(address);
+        }
+    }
+
+    /**
+     * Returns true if the passed IP address matches this pattern. Leading and trailing whitespaces are ignored.
+     * An address that is neither a valid IP v4 nor IP v6 address does not match any pattern.
+     * @param address the IP address
+     * @return true if the passed address matches this pattern, else false
+     */
+    public boolean matches(CharSequence address){
+        int from = 0;
+        int to = address.length();
+        while(from < to && address.charAt(from) <= ' '){
+            from++;
+        }
+        while(to > from && address.charAt(to-1) <= ' '){
+            to--;
+        }
+        if(from == to){
+            return false;
+        }
+        if(!ipV6){
+            long ipV4 = parseIpV4(address, from, to);
+            if(ipV4 < 0){
+                int groups = ipV6Layout(address, from, to);
+                if(groups < 0){
+                    return false;
+                }
+                //IP v4-mapped IP v6 address
+                if(ipV6Word(address, from, to, groups, 0) != 0 || (ipV6Word(address, from, to, groups, 1) >>> 32) != 0xFFFFL){
+                    return false;
+                }
+                ipV4 = ipV6Word(address, from, to, groups, 1) & 0xFFFFFFFFL;
+            }
+            return matchesIpV4((int)ipV4);
+        }else{
+            int groups = ipV6Layout(address, from, to);
+            if(groups < 0){
+                return false;
+            }
+            return matchesIpV6(ipV6Word(address, from, to, groups, 0), ipV6Word(address, from, to, groups, 1));
+        }
+    }
+
+    /**
+     * Returns true if the passed IP v4 address (32 bits) matches this pattern
+     * @param address the IP v4 address
+     * @return true if the passed address matches this pattern, else false
+     */
+    public boolean matchesIpV4(int address){
+        return !ipV6 && satisfiable && (address & mask) == value;
+    }
+
+    /**
+     * Returns true if the passed IP v6 address (128 bits) matches this pattern
+     * @param high the upper 64 bits of the address
+     * @param low the lower 64 bits of the address
+     * @return true if the passed address matches this pattern, else false
+     */
+    public boolean matchesIpV6(long high, long low){
+        return ipV6 && (high & highMask) == highValue && (low & lowMask) == lowValue;
+    }
+
+    /**
+     * Returns true if this is an IP v6 pattern
+     * @return true if this is an IP v6 pattern, else false
+     */
+    public boolean isIpV6(){
+        return ipV6;
+    }
+
+    /**
+     * Returns false if no IP address can match this pattern, e.g., if a segment of an IP v4 pattern is greater than 255.
+     * @return false if no IP address can match this pattern
+     */
+    public boolean isSatisfiable(){
+        return satisfiable;
+    }
+
+    int getMask(){
+        return mask;
+    }
+
+    int getValue(){
+        return value;
+    }
+
+    long getHighMask(){
+        return highMask;
+    }
+
+    long getHighValue(){
+        return highValue;
+    }
+
+    long getLowMask(){
+        return lowMask;
+    }
+
+    long getLowValue(){
+        return lowValue;
+    }
+
+    /**
+     * Parses the passed IP v4 address in dotted decimal notation.
+     * @param address the address
+     * @param from index of the first character
+     * @param to index after the last character
+     * @return the address as unsigned 32 bit value or -1 if the address is not a valid IP v4 address
+     */
+    static long parseIpV4(CharSequence address, int from, int to){
+        long result = 0;
+        int segments = 0;
+        int segment = 0;
+        int digits = 0;
+        for(int i = from; i < to; i++){
+            char c = address.charAt(i);
+            if(c >= '0' && c <= '9'){
+                segment = segment*10 + (c-'0');
+                digits++;
+                if(digits > 3 || segment > 255){
+                    return -1;
+                }
+            }else if(c == '.'){
+                if(digits == 0 || segments == 3){
+                    return -1;
+                }
+                result = (result << 8) | segment;
+                segments++;
+                segment = 0;
+                digits = 0;
+            }else{
+                return -1;
+            }
+        }
+        if(digits == 0 || segments != 3){
+            return -1;
+        }
+        return (result << 8) | segment;
+    }
+
+    /**
+     * Validates the passed IP v6 address and returns its layout, i.e., the number of groups (bits 0-7) and the position of the '::' abbreviation (bits 8-15, 0xFF if not present).
+     * @param address the address
+     * @param from index of the first character
+     * @param to index after the last character
+     * @return the layout of the address or -1 if the address is not a valid IP v6 address
+     */
+    static int ipV6Layout(CharSequence address, int from, int to){
+        int groups = 0;
+        int abbreviation = 0xFF;
+        int i = from;
+        if(to - from >= 2 && address.charAt(i) == ':' && address.charAt(i+1) == ':'){
+            abbreviation = 0;
+            i += 2;
+        }else if(to - from < 2){
+            return -1;
+        }
+        while(i < to){
+            int end = i;
+            boolean dotted = false;
+            while(end < to && address.charAt(end) != ':'){
+                if(address.charAt(end) == '.'){
+                    dotted = true;
+                }
+                end++;
+            }
+            if(dotted){
+                if(end != to || parseIpV4(address, i, end) < 0){
+                    return -1;
+                }
+                groups += 2;
+            }else{
+                if(end - i < 1 || end - i > 4){
+                    return -1;
+                }
+                for(int k = i; k < end; k++){
+                    if(Character.digit(address.charAt(k), 16) < 0){
+                        return -1;
+                    }
+                }
+                groups++;
+            }
+            if(end == to){
+                i = end;
+                break;
+            }
+            //skip ':'
+            i = end+1;
+            if(i < to && address.charAt(i) == ':'){
+                if(abbreviation != 0xFF){
+                    return -1;
+                }
+                abbreviation = groups;
+                i++;
+            }else if(i == to){
+                return -1;
+            }
+        }
+        if(groups > 8 || (abbreviation == 0xFF && groups != 8) || (abbreviation != 0xFF && groups > 7)){
+            return -1;
+        }
+        return groups | (abbreviation << 8);
+    }
+
+    /**
+     * Returns the upper (word 0) or lower (word 1) 64 bits of the passed IP v6 address.
+     * @param address the address, which must be valid
+     * @param from index of the first character
+     * @param to index after the last character
+     * @param layout the layout returned by {@link IpAddressPattern#ipV6Layout(CharSequence, int, int)}
+     * @param word 0 for the upper or 1 for the lower 64 bits
+     * @return the requested 64 bits of the address
+     */
+    static long ipV6Word(CharSequence address, int from, int to, int layout, int word){
+        int groups = layout & 0xFF;
+        int abbreviation = (layout >>> 8) & 0xFF;
+        int missing = abbreviation == 0xFF ? 0 : 8 - groups;
+        long result = 0;
+        int group = 0;
+        int i = from;
+        if(abbreviation == 0){
+            i += 2;
+        }
+        while(i < to){
+            int end = i;
+            while(end < to && address.charAt(end) != ':'){
+                end++;
+            }
+            int position = group < abbreviation ? group : group + missing;
+            if(end == to && (end - i > 4 || indexOf(address, '.', i, end) >= 0)){
+                long ipV4 = parseIpV4(address, i, end);
+                result |= groupBits(ipV4 >>> 16, position, word) | groupBits(ipV4 & 0xFFFF, position+1, word);
+            }else{
+                long value = 0;
+                for(int k = i; k < end; k++){
+                    value = (value << 4) | Character.digit(address.charAt(k), 16);
+                }
+                result |= groupBits(value, position, word);
+            }
+            group++;
+            i = end+1;
+            if(i < to && address.charAt(i) == ':'){
+                i++;
+            }
+        }
+        return result;
+    }
+
+    private static long groupBits(long value, int position, int word){
+        if(position / 4 != word){
+            return 0;
+        }
+        return value << (16 * (3 - position % 4));
+    }
+
+    private static int indexOf(CharSequence sequence, char c, int from, int to){
+        for(int i = from; i < to; i++){
+            if(sequence.charAt(i) == c){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int parsePrefixLength(String prefixLength){
+        prefixLength = prefixLength.trim();
+        //only digits are allowed, i.e., signs (e.g., "/-1") are rejected
+        if(prefixLength.isEmpty() || prefixLength.length() > 3){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_SCHEMA);
+        }
+        int result = 0;
+        for(int i = 0; i < prefixLength.length(); i++){
+            char c = prefixLength.charAt(i);
+            if(c < '0' || c > '9'){
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_SCHEMA);
+            }
+            result = result*10 + (c-'0');
+        }
+        return result;
+    }
+
+    private static IpAddressPattern compileIpV4Wildcard(String pattern){
+        int mask = 0;
+        int value = 0;
+        boolean satisfiable = true;
+        int segmentCounter = 0;
+        int segment = 0;
+        boolean wildcard = false;
+        boolean empty = true;
+        for(int i = 0; i <= pattern.length(); i++){
+            char c = i < pattern.length() ? pattern.charAt(i) : '.';
+            if(c == '.'){
+                if(segmentCounter > 3){
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_SCHEMA);
+                }
+                if(!wildcard && !empty){
+                    if(segment > 255){
+                        satisfiable = false;
+                    }
+                    mask |= 0xFF << (8 * (3 - segmentCounter));
+                    value |= (segment & 0xFF) << (8 * (3 - segmentCounter));
+                }
+                segmentCounter++;
+                segment = 0;
+                wildcard = false;
+                empty = true;
+            }else if(c == '*'){
+                wildcard = true;
+            }else if(Character.isDigit(c)){
+                if(!wildcard){
+                    segment = Math.min(segment*10 + Character.digit(c, 10), 1000);
+                    empty = false;
+                }
+            }else{
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_SCHEMA);
+            }
+        }
+        return new IpAddressPattern(mask, value, satisfiable);
+    }
+
+    private static IpAddressPattern compileIpV4Cidr(String address, int prefixLength){
+        if(prefixLength < 0 || prefixLength > 32){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_SCHEMA);
+        }
+        String[] segments = address.split("\\.", -1);
+        if(segments.length > 4){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_SCHEMA);
+        }
+        int value = 0;
+        for(int i = 0; i < 4; i++){
+            int segment = 0;
+            if(i < segments.length){
+                try{
+                    segment = Integer.parseInt(segments[i].trim());
+                }catch(NumberFormatException nfe){
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_SCHEMA);
+                }
+                if(segment < 0 || segment > 255){
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_SCHEMA);
+                }
+            }
+            value |= segment << (8 * (3 - i));
+        }
+        int mask = prefixLength == 0 ? 0 : -1 << (32 - prefixLength);
+        return new IpAddressPattern(mask, value, true);
+    }
+
+    private static IpAddressPattern compileIpV6(String address, int prefixLength){
+        if(prefixLength < 0 || prefixLength > 128){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_SCHEMA);
+        }
+        //replace an embedded IP v4 address (e.g., "::ffff:10.0.0.1") by two groups
+        int lastGroup = address.lastIndexOf(':') + 1;
+        if(address.indexOf('.', lastGroup) >= 0){
+            long ipV4 = parseIpV4(address, lastGroup, address.length());
+            if(ipV4 < 0){
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_SCHEMA);
+            }
+            address = address.substring(0, lastGroup) + Long.toHexString(ipV4 >>> 16) + ":" + Long.toHexString(ipV4 & 0xFFFF);
+        }
+        //replace wildcard groups by zero groups and remember their positions
+        String[] parts = address.split("::", -1);
+        if(parts.length > 2){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_SCHEMA);
+        }
+        String[] head = parts[0].isEmpty() ? new String[0] : parts[0].split(":", -1);
+        String[] tail = parts.length < 2 || parts[1].isEmpty() ? new String[0] : parts[1].split(":", -1);
+        int missing = 8 - head.length - tail.length;
+        if(missing < 0 || (parts.length == 1 && missing != 0) || (parts.length == 2 && missing < 1)){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_SCHEMA);
+        }
+        long[] masks = new long[2];
+        long[] values = new long[2];
+        for(int position = 0; position < 8; position++){
+            String group = null;
+            if(position < head.length){
+                group = head[position];
+            }else if(position >= head.length + missing){
+                group = tail[position - head.length - missing];
+            }
+            int groupValue = 0;
+            boolean wildcard = false;
+            if(!Objects.isNull(group)){
+                if(group.compareTo("*")==0){
+                    wildcard = true;
+                }else{
+                    if(group.isEmpty() || group.length() > 4){
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_SCHEMA);
+                    }
+                    for(int i = 0; i < group.length(); i++){
+                        int digit = Character.digit(group.charAt(i), 16);
+                        if(digit < 0){
+                            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_SCHEMA);
+                        }
+                        groupValue = (groupValue << 4) | digit;
+                    }
+                }
+            }
+            int shift = 16 * (3 - position % 4);
+            if(!wildcard && position * 16 < prefixLength){
+                long groupMask = 0xFFFFL;
+                if((position+1) * 16 > prefixLength){
+                    groupMask = (0xFFFFL << (16 - (prefixLength - position * 16))) & 0xFFFFL;
+                }
+                masks[position / 4] |= groupMask << shift;
+            }
+            values[position / 4] |= ((long)groupValue) << shift;
+        }
+        return new IpAddressPattern(masks[0], values[0], masks[1], values[1]);
+    }
+}
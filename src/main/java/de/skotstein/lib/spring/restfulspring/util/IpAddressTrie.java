@@ -0,0 +1,201 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.BitSet;
+
+import de.skotstein.lib.spring.restfulspring.util.FilterIndex.Postings;
+
+/**
+ * Binary radix trie with path compression (Patricia trie) over IP addresses of a fixed width (32 bits for IP v4, 128 bits for IP v6) used by {@link IpAddressFilterIndex}.
+ * An address is represented by two longs, its most significant bit is the most significant bit of the first long, i.e., an IP v4 address is stored in the upper 32 bits
+ * of the first long. Each leaf keeps the rows having that address. Inner nodes always have two children and store the common prefix of all addresses below,
+ * hence a pattern consisting of a bit mask and a value (see {@link IpAddressPattern}) is answered by walking only the subtrees whose prefixes match the pattern.
+ */
+final class IpAddressTrie {
+
+    private final int width;
+    private Node root;
+
+    /**
+     * Creates a trie for addresses having the passed number of bits
+     * @param width 32 or 128
+     */
+    IpAddressTrie(int width){
+        this.width = width;
+    }
+
+    /**
+     * Adds the passed row to the passed address
+     * @param high the upper 64 bits of the address
+     * @param low the lower 64 bits of the address
+     * @param row the row
+     */
+    void add(long high, long low, int row){
+        root = add(root, high, low, row);
+    }
+
+    /**
+     * Removes the passed row from the passed address
+     * @param high the upper 64 bits of the address
+     * @param low the lower 64 bits of the address
+     * @param row the row
+     */
+    void remove(long high, long low, int row){
+        root = remove(root, high, low, row);
+    }
+
+    void clear(){
+        root = null;
+    }
+
+    /**
+     * Adds the rows of all addresses matching all passed patterns to the passed result. Each pattern is an array consisting of the upper and lower 64 bits of the value
+     * followed by the upper and lower 64 bits of the mask, an address matches a pattern if the masked bits of the address are equal to the value.
+     * @param patterns the patterns
+     * @param result the result
+     */
+    void collect(long[][] patterns, BitSet result){
+        collect(root, patterns, result);
+    }
+
+    private Node add(Node node, long high, long low, int row){
+        if(node == null){
+            return leaf(high, low, row);
+        }
+        int common = Math.min(node.length, commonPrefixLength(node.high, node.low, high, low));
+        if(common < node.length){
+            //split the compressed path
+            Node inner = new Node(high, low, common);
+            Node leaf = leaf(high, low, row);
+            if(bit(high, low, common) == 0){
+                inner.zero = leaf;
+                inner.one = node;
+            }else{
+                inner.zero = node;
+                inner.one = leaf;
+            }
+            return inner;
+        }
+        if(node.length == width){
+            node.rows.add(row);
+        }else if(bit(high, low, node.length) == 0){
+            node.zero = add(node.zero, high, low, row);
+        }else{
+            node.one = add(node.one, high, low, row);
+        }
+        return node;
+    }
+
+    private Node remove(Node node, long high, long low, int row){
+        if(node == null){
+            return null;
+        }
+        if(node.length == width){
+            if(node.high == high && node.low == low){
+                node.rows.remove(row);
+                return node.rows.isEmpty() ? null : node;
+            }
+            return node;
+        }
+        if(bit(high, low, node.length) == 0){
+            node.zero = remove(node.zero, high, low, row);
+        }else{
+            node.one = remove(node.one, high, low, row);
+        }
+        //collapse inner nodes having a single child
+        if(node.zero == null){
+            return node.one;
+        }else if(node.one == null){
+            return node.zero;
+        }
+        return node;
+    }
+
+    private void collect(Node node, long[][] patterns, BitSet result){
+        if(node == null){
+            return;
+        }
+        long highPrefix = highPrefixMask(node.length);
+        long lowPrefix = lowPrefixMask(node.length);
+        for(long[] pattern : patterns){
+            if(((node.high ^ pattern[0]) & pattern[2] & highPrefix) != 0 || ((node.low ^ pattern[1]) & pattern[3] & lowPrefix) != 0){
+                return;
+            }
+        }
+        if(node.length == width){
+            node.rows.addTo(result);
+        }else{
+            collect(node.zero, patterns, result);
+            collect(node.one, patterns, result);
+        }
+    }
+
+    private Node leaf(long high, long low, int row){
+        Node leaf = new Node(high, low, width);
+        leaf.rows = new Postings();
+        leaf.rows.add(row);
+        return leaf;
+    }
+
+    private static int commonPrefixLength(long high1, long low1, long high2, long low2){
+        if(high1 != high2){
+            return Long.numberOfLeadingZeros(high1 ^ high2);
+        }
+        return 64 + Long.numberOfLeadingZeros(low1 ^ low2);
+    }
+
+    private static int bit(long high, long low, int position){
+        if(position < 64){
+            return (int)(high >>> (63 - position)) & 1;
+        }
+        return (int)(low >>> (127 - position)) & 1;
+    }
+
+    private static long highPrefixMask(int length){
+        if(length == 0){
+            return 0L;
+        }
+        return length >= 64 ? -1L : -1L << (64 - length);
+    }
+
+    private static long lowPrefixMask(int length){
+        if(length <= 64){
+            return 0L;
+        }
+        return length >= 128 ? -1L : -1L << (128 - length);
+    }
+
+    /**
+     * Node of the trie. The first length bits of the address are the prefix shared by all addresses below, leaves have the full width and keep rows.
+     */
+    private static final class Node {
+
+        private final long high;
+        private final long low;
+        private final int length;
+        private Node zero;
+        private Node one;
+        private Postings rows;
+
+        Node(long high, long low, int length){
+            this.high = high;
+            this.low = low;
+            this.length = length;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package de.skotstein.lib.spring.restfulspring.util;
 
+import java.math.BigDecimal;
 import java.util.Objects;
+import java.util.function.Predicate;
 
 public class MinMaxFilterMethod extends FilterMethod{
 
@@ -38,6 +40,12 @@ public class MinMaxFilterMethod extends FilterMethod{
         this.matchNullValues = matchNullValues;
     }
 
+    @Override
+    protected String getSignature() {
+        String signature = classSignature(MinMaxFilterMethod.class);
+        return Objects.isNull(signature) ? null : signature + "(" + greaterThan + "," + equalTo + "," + matchNullValues + ")";
+    }
+
     @Override
     protected boolean match(String queryParameterKey, Object queryParameterValue, Object entityValue) {
         if(Objects.isNull(entityValue)){
@@ -58,6 +66,64 @@ public class MinMaxFilterMethod extends FilterMethod{
         }
     }
 
+    @Override
+    protected Predicate<Object> compile(String queryParameterKey, Object queryParameterValue) {
+        boolean matchNullValues = this.matchNullValues;
+        if(!isNumeric(queryParameterValue)){
+            return entityValue -> Objects.isNull(entityValue) ? matchNullValues : true;
+        }
+        NumericCondition condition = condition(queryParameterValue);
+        if(Objects.isNull(condition)){
+            return super.compile(queryParameterKey, queryParameterValue);
+        }
+        return entityValue -> {
+            if(Objects.isNull(entityValue)){
+                return matchNullValues;
+            }
+            if(isInteger(entityValue)){
+                return condition.test(((Number)entityValue).longValue());
+            }else if(entityValue instanceof Float || entityValue instanceof Double){
+                return condition.test(((Number)entityValue).doubleValue());
+            }
+            return true;
+        };
+    }
+
+    @Override
+    IndexLookup lookup(String queryParameterKey, Object queryParameterValue) {
+        NumericCondition condition = condition(queryParameterValue);
+        if(Objects.isNull(condition)){
+            return null;
+        }
+        return IndexLookup.numeric(condition, false);
+    }
+
+    /**
+     * Translates the passed query parameter value into a {@link NumericCondition}
+     * @param queryParameterValue the query parameter value
+     * @return the condition or null if the query parameter value is not a finite number
+     */
+    private NumericCondition condition(Object queryParameterValue){
+        if(!isNumeric(queryParameterValue)){
+            return null;
+        }
+        BigDecimal operand = null;
+        if(isInteger(queryParameterValue)){
+            operand = BigDecimal.valueOf(integerToLong(queryParameterValue));
+        }else{
+            double value = numericToDouble(queryParameterValue);
+            if(Double.isNaN(value) || Double.isInfinite(value)){
+                return null;
+            }
+            operand = new BigDecimal(value);
+        }
+        if(this.greaterThan){
+            return NumericCondition.range(operand, this.equalTo, null, true);
+        }else{
+            return NumericCondition.range(null, true, operand, this.equalTo);
+        }
+    }
+
     private boolean isNumeric(Object value){
         return isInteger(value) || value instanceof Float || value instanceof Double;
     }
@@ -0,0 +1,126 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * {@link StreamingResponseBody} writing the items of a collection resource as newline-delimited JSON ({@value NdjsonResponseBody#MEDIA_TYPE_VALUE}), i.e., each item
+ * (including its "_links") is written as a single line. Items are pulled from the passed stream (e.g., a stream returned by {@link Filter#stream(Stream)} and
+ * {@link Pagination#paginate(Stream)}) one at a time while the previous items are written to the blocking output stream of the response, hence a slow client
+ * slows down the filter pipeline instead of increasing the heap usage.
+ *
+ * The output is flushed after a number of items (see {@link NdjsonResponseBody#withFlushInterval(int)}) rather than after each line, so that a compressing
+ * output stream (e.g., gzip) fills its blocks. The passed stream is closed after writing.
+ */
+public class NdjsonResponseBody implements StreamingResponseBody {
+
+    /**
+     * The media type of newline-delimited JSON
+     */
+    public static final String MEDIA_TYPE_VALUE = "application/x-ndjson";
+
+    /**
+     * The media type of newline-delimited JSON
+     */
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    private final ObjectMapper mapper;
+    private final Stream<?> items;
+    private Class<?> view = null;
+    private int flushInterval = 256;
+
+    /**
+     * Creates a streaming body of the passed items
+     * @param mapper the object mapper, e.g., the mapper configured for the application
+     * @param items the stream of items to be written
+     */
+    public NdjsonResponseBody(ObjectMapper mapper, Stream<?> items){
+        if(Objects.isNull(mapper) || Objects.isNull(items)){
+            throw new RuntimeException("The passed mapper or items are null");
+        }
+        this.mapper = mapper;
+        this.items = items;
+    }
+
+    /**
+     * Serializes the items with the passed JSON view (e.g., {@link de.skotstein.lib.spring.restfulspring.model.representations.HypermediaRepresentation})
+     * @param view the JSON view
+     * @return this {@link NdjsonResponseBody} instance
+     */
+    public NdjsonResponseBody withView(Class<?> view){
+        this.view = view;
+        return this;
+    }
+
+    /**
+     * Sets the number of items after which the written lines are flushed to the client (default: 256). Pass 1 to send each item immediately, e.g., if
+     * the items are produced slowly and the client should process them as early as possible.
+     * @param flushInterval the number of items between two flushes
+     * @return this {@link NdjsonResponseBody} instance
+     */
+    public NdjsonResponseBody withFlushInterval(int flushInterval){
+        if(flushInterval < 1){
+            throw new RuntimeException("The flush interval must be greater than zero");
+        }
+        this.flushInterval = flushInterval;
+        return this;
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        //lines are flushed in batches rather than one by one
+        ObjectWriter writer = (Objects.isNull(view) ? mapper.writer() : mapper.writerWithView(view))
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .without(SerializationFeature.INDENT_OUTPUT);
+        try(Stream<?> stream = items; JsonGenerator generator = mapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)){
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            //each line is terminated by a line feed instead of separating root values by a space
+            generator.setRootValueSeparator(new SerializedString(""));
+            int[] written = {0};
+            try{
+                stream.sequential().forEachOrdered(item -> {
+                    try{
+                        writer.writeValue(generator, item);
+                        generator.writeRaw('\n');
+                        if(++written[0] % flushInterval == 0){
+                            generator.flush();
+                        }
+                    }catch(IOException e){
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }catch(UncheckedIOException e){
+                throw e.getCause();
+            }
+        }
+    }
+}
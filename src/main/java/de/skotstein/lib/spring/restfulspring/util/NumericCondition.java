@@ -0,0 +1,417 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Numeric condition that is parsed once from a query parameter value and then evaluated against many entity values.
+ * The condition consists of an operator and one or more operands. The following operators are supported:
+ * - 'eq:' (default if no operator is specified), e.g., 'eq:5' or '5'
+ * - 'gt:', 'gte:', 'lt:', and 'lte:', e.g., 'gte:5'
+ * - 'between:' (lower and upper bound inclusive), e.g., 'between:1..10'
+ * - 'in:', e.g., 'in:1,2,3'
+ * Operands are parsed as {@link BigDecimal} and translated into a range of long values and a range of double values. Hence, entity values of type
+ * {@link Byte}, {@link Short}, {@link Integer}, and {@link Long} are compared as primitive long values, values of type {@link Float} and {@link Double} are compared
+ * as primitive double values, and values of type {@link BigDecimal} and {@link BigInteger} are compared exactly.
+ */
+public final class NumericCondition {
+
+    private static final String INVALID_CONDITION = "Numeric filter does not contain a numeric value. Make sure that the filter is a numeric value optionally prefixed by one of the following operators: 'eq:' (default), 'lt:', 'lte:', 'gt:', 'gte:', 'between:' (e.g., 'between:1..10'), or 'in:' (e.g., 'in:1,2,3')";
+
+    private static final BigDecimal LONG_MIN = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal LONG_MAX = BigDecimal.valueOf(Long.MAX_VALUE);
+    private static final BigDecimal BELOW_LONG_MIN = LONG_MIN.subtract(BigDecimal.ONE);
+    private static final BigDecimal ABOVE_LONG_MAX = LONG_MAX.add(BigDecimal.ONE);
+
+    //range (null bound means unbounded), not used for 'in:'
+    private final BigDecimal lower;
+    private final boolean lowerInclusive;
+    private final BigDecimal upper;
+    private final boolean upperInclusive;
+    //sorted operands of 'in:', else null
+    private final BigDecimal[] values;
+
+    //long representation (inclusive)
+    private final boolean longEmpty;
+    private final long longLower;
+    private final long longUpper;
+    private final long[] longValues;
+
+    //double representation
+    private final double doubleLower;
+    private final double doubleUpper;
+    private final double[] doubleValues;
+
+    private NumericCondition(BigDecimal lower, boolean lowerInclusive, BigDecimal upper, boolean upperInclusive){
+        this.lower = lower;
+        this.lowerInclusive = lowerInclusive;
+        this.upper = upper;
+        this.upperInclusive = upperInclusive;
+        this.values = null;
+
+        long longLower = Long.MIN_VALUE;
+        long longUpper = Long.MAX_VALUE;
+        boolean longEmpty = false;
+        if(!Objects.isNull(lower)){
+            BigDecimal bound = lowerInclusive ? round(lower, RoundingMode.CEILING) : round(lower, RoundingMode.FLOOR).add(BigDecimal.ONE);
+            if(bound.compareTo(LONG_MAX) > 0){
+                longEmpty = true;
+            }else if(bound.compareTo(LONG_MIN) > 0){
+                longLower = bound.longValueExact();
+            }
+        }
+        if(!Objects.isNull(upper)){
+            BigDecimal bound = upperInclusive ? round(upper, RoundingMode.FLOOR) : round(upper, RoundingMode.CEILING).subtract(BigDecimal.ONE);
+            if(bound.compareTo(LONG_MIN) < 0){
+                longEmpty = true;
+            }else if(bound.compareTo(LONG_MAX) < 0){
+                longUpper = bound.longValueExact();
+            }
+        }
+        this.longEmpty = longEmpty || longLower > longUpper;
+        this.longLower = longLower;
+        this.longUpper = longUpper;
+        this.longValues = null;
+
+        this.doubleLower = Objects.isNull(lower) ? Double.NEGATIVE_INFINITY : lower.doubleValue();
+        this.doubleUpper = Objects.isNull(upper) ? Double.POSITIVE_INFINITY : upper.doubleValue();
+        this.doubleValues = null;
+    }
+
+    private NumericCondition(BigDecimal[] values){
+        this.lower = null;
+        this.lowerInclusive = true;
+        this.upper = null;
+        this.upperInclusive = true;
+        this.values = values.clone();
+        Arrays.sort(this.values);
+
+        //operands that are not integral or out of range cannot match a long value
+        long[] longValues = new long[values.length];
+        int longCounter = 0;
+        for(BigDecimal value : this.values){
+            if(value.signum() == 0 || value.stripTrailingZeros().scale() <= 0){
+                if(value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0){
+                    longValues[longCounter++] = value.longValue();
+                }
+            }
+        }
+        this.longValues = Arrays.copyOf(longValues, longCounter);
+        this.longEmpty = longCounter == 0;
+        this.longLower = longCounter == 0 ? 0 : this.longValues[0];
+        this.longUpper = longCounter == 0 ? 0 : this.longValues[longCounter-1];
+
+        this.doubleValues = new double[values.length];
+        for(int i = 0; i < values.length; i++){
+            this.doubleValues[i] = this.values[i].doubleValue();
+        }
+        Arrays.sort(this.doubleValues);
+        this.doubleLower = this.doubleValues[0];
+        this.doubleUpper = this.doubleValues[this.doubleValues.length-1];
+    }
+
+    /**
+     * Parses the passed condition, e.g., 'gte:5', 'between:1..10', or 'in:1,2,3'.
+     * Throws a {@link ResponseStatusException} (400) if the condition is invalid.
+     * @param condition the condition
+     * @return the parsed condition
+     */
+    public static NumericCondition parse(String condition){
+        if(Objects.isNull(condition)){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_CONDITION);
+        }
+        condition = condition.trim();
+        if(condition.startsWith("eq:")){
+            BigDecimal operand = parseOperand(condition.substring(3));
+            return new NumericCondition(operand, true, operand, true);
+        }else if(condition.startsWith("gt:")){
+            return new NumericCondition(parseOperand(condition.substring(3)), false, null, true);
+        }else if(condition.startsWith("gte:")){
+            return new NumericCondition(parseOperand(condition.substring(4)), true, null, true);
+        }else if(condition.startsWith("lt:")){
+            return new NumericCondition(null, true, parseOperand(condition.substring(3)), false);
+        }else if(condition.startsWith("lte:")){
+            return new NumericCondition(null, true, parseOperand(condition.substring(4)), true);
+        }else if(condition.startsWith("between:")){
+            String range = condition.substring(8);
+            int separator = range.indexOf("..");
+            if(separator < 0){
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_CONDITION);
+            }
+            BigDecimal lower = parseOperand(range.substring(0, separator));
+            BigDecimal upper = parseOperand(range.substring(separator+2));
+            if(lower.compareTo(upper) > 0){
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,"The lower bound of a 'between:' filter must not be greater than the upper bound");
+            }
+            return new NumericCondition(lower, true, upper, true);
+        }else if(condition.startsWith("in:")){
+            //empty operands (e.g., 'in:1,2,') are rejected
+            String[] operands = condition.substring(3).split(",", -1);
+            BigDecimal[] values = new BigDecimal[operands.length];
+            for(int i = 0; i < operands.length; i++){
+                values[i] = parseOperand(operands[i]);
+            }
+            return new NumericCondition(values);
+        }else{
+            BigDecimal operand = parseOperand(condition);
+            return new NumericCondition(operand, true, operand, true);
+        }
+    }
+
+    /**
+     * Creates a condition that matches values within the passed range
+     * @param lower the lower bound or null if unbounded
+     * @param lowerInclusive true if the lower bound is inclusive
+     * @param upper the upper bound or null if unbounded
+     * @param upperInclusive true if the upper bound is inclusive
+     * @return the condition
+     */
+    static NumericCondition range(BigDecimal lower, boolean lowerInclusive, BigDecimal upper, boolean upperInclusive){
+        return new NumericCondition(lower, lowerInclusive, upper, upperInclusive);
+    }
+
+    /**
+     * Creates a condition that matches values equal to the passed value
+     * @param value the value
+     * @return the condition
+     */
+    public static NumericCondition equalTo(Number value){
+        BigDecimal operand = toBigDecimal(value);
+        return new NumericCondition(operand, true, operand, true);
+    }
+
+    /**
+     * Returns true if the passed value satisfies this condition.
+     * Throws a {@link RuntimeException} if the passed value is neither null nor a number.
+     * @param value the value
+     * @return true if the passed value satisfies this condition, false if not or if the value is null
+     */
+    public boolean test(Object value){
+        if(Objects.isNull(value)){
+            return false;
+        }
+        if(value instanceof Integer){
+            return test(((Integer)value).intValue());
+        }else if(value instanceof Long){
+            return test(((Long)value).longValue());
+        }else if(value instanceof Double){
+            return test(((Double)value).doubleValue());
+        }else if(value instanceof Short){
+            return test(((Short)value).shortValue());
+        }else if(value instanceof Byte){
+            return test(((Byte)value).byteValue());
+        }else if(value instanceof Float){
+            return test(((Float)value).floatValue());
+        }else if(value instanceof BigDecimal){
+            return test((BigDecimal)value);
+        }else if(value instanceof BigInteger){
+            return test(new BigDecimal((BigInteger)value));
+        }else{
+            throw new RuntimeException("Entity value must be type of Byte, Short, Integer, Long, Float, Double, BigInteger, or BigDecimal");
+        }
+    }
+
+    /**
+     * Returns true if the passed value satisfies this condition
+     * @param value the value
+     * @return true if the passed value satisfies this condition, else false
+     */
+    public boolean test(long value){
+        if(longEmpty || value < longLower || value > longUpper){
+            return false;
+        }
+        return Objects.isNull(longValues) || Arrays.binarySearch(longValues, value) >= 0;
+    }
+
+    /**
+     * Returns true if the passed value satisfies this condition
+     * @param value the value
+     * @return true if the passed value satisfies this condition, else false
+     */
+    public boolean test(double value){
+        if(!Objects.isNull(doubleValues)){
+            //binary search distinguishes -0.0 and 0.0
+            if(value == 0){
+                value = 0.0;
+            }
+            return value >= doubleLower && value <= doubleUpper && Arrays.binarySearch(doubleValues, value) >= 0;
+        }
+        return (lowerInclusive ? value >= doubleLower : value > doubleLower) && (upperInclusive ? value <= doubleUpper : value < doubleUpper);
+    }
+
+    /**
+     * Returns true if the passed value satisfies this condition
+     * @param value the value
+     * @return true if the passed value satisfies this condition, false if not or if the value is null
+     */
+    public boolean test(BigDecimal value){
+        if(Objects.isNull(value)){
+            return false;
+        }
+        if(!Objects.isNull(values)){
+            return Arrays.binarySearch(values, value) >= 0;
+        }
+        if(!Objects.isNull(lower)){
+            int comparison = value.compareTo(lower);
+            if(comparison < 0 || (comparison == 0 && !lowerInclusive)){
+                return false;
+            }
+        }
+        if(!Objects.isNull(upper)){
+            int comparison = value.compareTo(upper);
+            if(comparison > 0 || (comparison == 0 && !upperInclusive)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if no long value satisfies this condition
+     * @return true if no long value satisfies this condition
+     */
+    boolean isLongEmpty(){
+        return longEmpty;
+    }
+
+    /**
+     * Returns the smallest long value that may satisfy this condition
+     * @return the inclusive lower bound for long values
+     */
+    long getLongLower(){
+        return longLower;
+    }
+
+    /**
+     * Returns the greatest long value that may satisfy this condition
+     * @return the inclusive upper bound for long values
+     */
+    long getLongUpper(){
+        return longUpper;
+    }
+
+    /**
+     * Returns the sorted long operands of an 'in:' condition
+     * @return the sorted long operands or null if this is not an 'in:' condition
+     */
+    long[] getLongValues(){
+        return longValues;
+    }
+
+    /**
+     * Returns the sorted double operands of an 'in:' condition
+     * @return the sorted double operands or null if this is not an 'in:' condition
+     */
+    double[] getDoubleValues(){
+        return doubleValues;
+    }
+
+    /**
+     * Returns the lower bound for double values, see {@link NumericCondition#isLowerInclusive()}
+     * @return the lower bound for double values
+     */
+    double getDoubleLower(){
+        return doubleLower;
+    }
+
+    /**
+     * Returns the upper bound for double values, see {@link NumericCondition#isUpperInclusive()}
+     * @return the upper bound for double values
+     */
+    double getDoubleUpper(){
+        return doubleUpper;
+    }
+
+    boolean isLowerInclusive(){
+        return lowerInclusive;
+    }
+
+    boolean isUpperInclusive(){
+        return upperInclusive;
+    }
+
+    /**
+     * Returns the exact lower bound
+     * @return the exact lower bound or null if the condition is not bounded below or if this is an 'in:' condition
+     */
+    BigDecimal getLower(){
+        return lower;
+    }
+
+    /**
+     * Returns the exact upper bound
+     * @return the exact upper bound or null if the condition is not bounded above or if this is an 'in:' condition
+     */
+    BigDecimal getUpper(){
+        return upper;
+    }
+
+    /**
+     * Returns the sorted operands of an 'in:' condition
+     * @return the sorted operands or null if this is not an 'in:' condition
+     */
+    BigDecimal[] getValues(){
+        return values;
+    }
+
+    /**
+     * Rounds the passed value to an integral value. Values beyond the range of long are clamped first and values whose magnitude is less than one are rounded by their sign,
+     * since the costs of {@link BigDecimal#setScale(int, RoundingMode)} grow with the exponent of the value (e.g., '1e-99999999').
+     * @param value the value
+     * @param roundingMode {@link RoundingMode#CEILING} or {@link RoundingMode#FLOOR}
+     * @return the rounded value, which is within [Long.MIN_VALUE-1, Long.MAX_VALUE+1]
+     */
+    private static BigDecimal round(BigDecimal value, RoundingMode roundingMode){
+        if(value.compareTo(BELOW_LONG_MIN) < 0){
+            return BELOW_LONG_MIN;
+        }else if(value.compareTo(ABOVE_LONG_MAX) > 0){
+            return ABOVE_LONG_MAX;
+        }else if(value.precision() <= value.scale()){
+            //-1 < value < 1
+            return BigDecimal.valueOf(value.signum(), 1).setScale(0, roundingMode);
+        }
+        return value.setScale(0, roundingMode);
+    }
+
+    private static BigDecimal parseOperand(String operand){
+        try{
+            return new BigDecimal(operand.trim());
+        }catch(NumberFormatException nfe){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,INVALID_CONDITION);
+        }
+    }
+
+    private static BigDecimal toBigDecimal(Number value){
+        if(value instanceof BigDecimal){
+            return (BigDecimal)value;
+        }else if(value instanceof BigInteger){
+            return new BigDecimal((BigInteger)value);
+        }else if(value instanceof Double || value instanceof Float){
+            return new BigDecimal(value.doubleValue());
+        }else{
+            return BigDecimal.valueOf(value.longValue());
+        }
+    }
+}
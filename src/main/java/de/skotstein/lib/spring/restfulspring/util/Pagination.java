@@ -20,6 +20,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import de.skotstein.lib.spring.restfulspring.model.entities.Hypermedia;
 
@@ -30,6 +32,7 @@ public class Pagination {
 
     private int start = 0;
     private Integer limit = null;
+    private boolean exactTotals = true;
 
     public Pagination(Integer start, Integer limit){
         if(start == null){
@@ -40,6 +43,40 @@ public class Pagination {
         this.limit = limit;
     }
     
+    /**
+     * Specifies whether the items after the range of this pagination are counted exactly (default). If set to false, items are only filtered and counted until the item
+     * following the range has been found, which is sufficient to decide whether a next page exists (see {@link Pagination#addHyperlinksIfUsed(Hypermedia, Filter)}).
+     * In this case, {@link Pagination#getItemsAfter()} returns at most 1 and {@link Pagination#getPageQueries(Filter)} only returns the pages up to the next page.
+     * @param exactTotals false if filtering stops after the item following the range
+     * @return this {@link Pagination} instance
+     */
+    public Pagination withExactTotals(boolean exactTotals){
+        this.exactTotals = exactTotals;
+        return this;
+    }
+
+    /**
+     * Returns true if the items after the range of this pagination are counted exactly, see {@link Pagination#withExactTotals(boolean)}
+     * @return true if the items after the range are counted exactly, else false
+     */
+    public boolean isExactTotals(){
+        return exactTotals;
+    }
+
+    /**
+     * Returns the number of leading items that are required to paginate a list, i.e., the end of the range plus the item following the range if totals are not counted exactly,
+     * else {@link Integer#MAX_VALUE}. Items beyond this number do not affect the result of this pagination and need not be filtered.
+     * @return the number of required items, which is positive
+     */
+    public int getRequiredItems(){
+        if(exactTotals || Objects.isNull(limit)){
+            return Integer.MAX_VALUE;
+        }
+        //negative starts and limits are clamped like in skipItem, i.e., the result is at least 1
+        long end = Math.max(0, Math.max(start, (long)start+limit));
+        return (int)Math.min(Integer.MAX_VALUE, end + 1);
+    }
+
     public int getItemsAfter() {
         return itemsAfter;
     }
@@ -54,13 +91,44 @@ public class Pagination {
             itemsBefore++;
             return true;
         }
-        if(limit != null && index >= start+limit){
+        if(limit != null && index >= (long)start+limit){
             itemsAfter++;
             return true;
         }
         return false;
     }
 
+    /**
+     * Counts the items before and after the range of this pagination for the passed total number of items, i.e., same result as calling {@link Pagination#skipItem(int)}
+     * for each index but without iterating the items. Use this method together with {@link Filter#count(List)} if only the totals are needed.
+     * @param totalItems the total number of items
+     */
+    public void countItems(int totalItems){
+        //negative starts and limits are clamped like in skipItem, the end of the range is computed as long to avoid an overflow
+        itemsBefore += Math.max(0, Math.min(start, totalItems));
+        if(limit != null){
+            long end = Math.max(0, Math.max(start, (long)start+limit));
+            itemsAfter += (int)Math.max(0, totalItems - end);
+        }
+    }
+
+    /**
+     * Returns a lazy stream containing the items of the passed stream that are within the range of this pagination. Items are counted as they are consumed (see {@link Pagination#skipItem(int)}),
+     * i.e., the number of items after the range (see {@link Pagination#getItemsAfter()}) is only complete once the returned stream has been consumed entirely.
+     * If totals are not counted exactly (see {@link Pagination#withExactTotals(boolean)}), the returned stream stops after the item following the range.
+     * The passed stream is processed sequentially.
+     * @param items the stream to be paginated
+     * @return a lazy stream containing the items within the range of this pagination
+     */
+    public <T> Stream<T> paginate(Stream<T> items){
+        AtomicInteger index = new AtomicInteger();
+        Stream<T> requiredItems = items.sequential();
+        if(getRequiredItems() != Integer.MAX_VALUE){
+            requiredItems = requiredItems.limit(getRequiredItems());
+        }
+        return requiredItems.filter(item -> !skipItem(index.getAndIncrement()));
+    }
+
     public boolean addHyperlinksIfUsed(Hypermedia representation, Filter filter){
         if((itemsAfter == 0 && itemsBefore == 0) || limit == null){
             return false;
@@ -160,6 +228,14 @@ public class Pagination {
         }
     }
 
+    /**
+     * Returns the specified start index
+     * @return the start index
+     */
+    public int getStart(){
+        return start;
+    }
+
     /**
      * Returns the specified limit
      * @return
@@ -0,0 +1,100 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/join task that applies a {@link CompiledFilter} to a range of chunks of an input list. Chunks are index ranges of the list, i.e., the list is not copied
+ * unless it does not support random access. Each chunk collects its matches in a separate list, the lists are concatenated in chunk order afterwards,
+ * hence the order of the input is preserved.
+ */
+class ParallelFilterTask<T> extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final CompiledFilter<T> filter;
+    private final List<T> input;
+    private final List<List<T>> results;
+    private final int chunkSize;
+    private final int fromChunk;
+    private final int toChunk;
+
+    private ParallelFilterTask(CompiledFilter<T> filter, List<T> input, List<List<T>> results, int chunkSize, int fromChunk, int toChunk){
+        this.filter = filter;
+        this.input = input;
+        this.results = results;
+        this.chunkSize = chunkSize;
+        this.fromChunk = fromChunk;
+        this.toChunk = toChunk;
+    }
+
+    /**
+     * Filters the passed input list with the passed filter using the passed pool. The input list must not be modified while it is filtered.
+     * @param filter the compiled filter
+     * @param input the input items
+     * @param pool the pool executing the task
+     * @return a new list containing all matching items in input order
+     */
+    static <T> List<T> filter(CompiledFilter<T> filter, List<T> input, ForkJoinPool pool){
+        if(input.isEmpty()){
+            return new ArrayList<T>();
+        }
+        if(!(input instanceof RandomAccess)){
+            input = new ArrayList<T>(input);
+        }
+        int chunkSize = Math.max(1024, input.size() / (pool.getParallelism() * 4));
+        int chunks = (input.size() + chunkSize - 1) / chunkSize;
+        List<List<T>> results = new ArrayList<List<T>>(Collections.nCopies(chunks, Collections.emptyList()));
+        pool.invoke(new ParallelFilterTask<T>(filter, input, results, chunkSize, 0, chunks));
+        int size = 0;
+        for(List<T> result : results){
+            size += result.size();
+        }
+        List<T> matches = new ArrayList<T>(size);
+        for(List<T> result : results){
+            matches.addAll(result);
+        }
+        return matches;
+    }
+
+    @Override
+    protected void compute() {
+        if(toChunk - fromChunk > 1){
+            int middle = (fromChunk + toChunk) >>> 1;
+            invokeAll(new ParallelFilterTask<T>(filter, input, results, chunkSize, fromChunk, middle),
+                new ParallelFilterTask<T>(filter, input, results, chunkSize, middle, toChunk));
+        }else{
+            int from = fromChunk * chunkSize;
+            int to = Math.min(input.size(), from + chunkSize);
+            List<T> matches = new ArrayList<T>();
+            for(int i = from; i < to; i++){
+                T entity = input.get(i);
+                if(filter.test(entity)){
+                    matches.add(entity);
+                }
+            }
+            //each chunk writes a distinct element, the results are read after the task has been joined
+            results.set(fromChunk, matches);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package de.skotstein.lib.spring.restfulspring.util;
 
 import java.util.List;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.JsonNode;
 
 public interface RestClient {
     
@@ -111,6 +114,32 @@ public interface RestClient {
 
     public RestClient delete(String uri) throws RestClientIOException, RestClientRequestException;
 
+    /**
+     * Performs a GET request for a newline-delimited JSON representation (application/x-ndjson) and passes each item to the passed consumer as soon as it has been received,
+     * i.e., the response body is not buffered. The 'Accept' header is set to 'application/x-ndjson' unless it has been specified, gzip-compressed responses are decompressed.
+     * The result of the request holds the status code and the headers, but no response content. The connection is closed even if the consumer throws an exception.
+     * @param uri the URI
+     * @param consumer the consumer of the items
+     * @return the {@link RestClient}
+     * @throws RestClientIOException is thrown if the connection fails
+     * @throws RestClientRequestException is thrown if the remote service responds with an error status code
+     * @throws RestClientSchemaException is thrown if a line does not contain a JSON value, the items preceding this line have already been passed to the consumer
+     */
+    public RestClient getNdjson(String uri, Consumer<JsonNode> consumer) throws RestClientIOException, RestClientRequestException, RestClientSchemaException;
+
+    /**
+     * Performs a GET request for a newline-delimited JSON representation (application/x-ndjson) and passes each item, deserialized as the passed type, to the passed consumer
+     * as soon as it has been received, see {@link RestClient#getNdjson(String, Consumer)}.
+     * @param uri the URI
+     * @param valueType the type of the items
+     * @param consumer the consumer of the items
+     * @return the {@link RestClient}
+     * @throws RestClientIOException is thrown if the connection fails
+     * @throws RestClientRequestException is thrown if the remote service responds with an error status code
+     * @throws RestClientSchemaException is thrown if a line cannot be deserialized as the passed type, the items preceding this line have already been passed to the consumer
+     */
+    public <T> RestClient getNdjson(String uri, Class<T> valueType, Consumer<? super T> consumer) throws RestClientIOException, RestClientRequestException, RestClientSchemaException;
+
     /**
      * Chooses the URI advertised with the passed link relation for the subsequent request.
      * @param rel link relation
@@ -14,8 +14,12 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Stack;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.springframework.http.HttpStatus;
@@ -155,6 +159,56 @@ public class RestClientImpl implements RestClient, RestClientTransition{
         return this;
     }
 
+    @Override
+    public RestClient getNdjson(String uri, Consumer<JsonNode> consumer) throws RestClientIOException, RestClientRequestException, RestClientSchemaException{
+        return getNdjson(uri, JsonNode.class, consumer);
+    }
+
+    @Override
+    public <T> RestClient getNdjson(String uri, Class<T> valueType, Consumer<? super T> consumer) throws RestClientIOException, RestClientRequestException, RestClientSchemaException{
+        if(Objects.isNull(valueType) || Objects.isNull(consumer)){
+            throw new RuntimeException("The passed value type or consumer is null");
+        }
+        RestClientResult result = new RestClientResult();
+        uri = this.basePath+uri;
+        result.setUri(uri);
+
+        HttpURLConnection connection = null;
+        try{
+            connection = connect(uri, "GET");
+            if(!requestHeaders.containsKey("Accept")){
+                connection.setRequestProperty("Accept", NdjsonResponseBody.MEDIA_TYPE_VALUE);
+            }
+            if(!requestHeaders.containsKey("Accept-Encoding")){
+                connection.setRequestProperty("Accept-Encoding", "gzip");
+            }
+
+            if(readStatus(connection, result, "GET", uri, true) && result.getStatusCode() != 204){
+                //items are parsed one by one while the body is received
+                int items = 0;
+                try(MappingIterator<T> iterator = objectMapper.readerFor(valueType).readValues(decode(connection, connection.getInputStream()))){
+                    while(iterator.hasNextValue()){
+                        T item = iterator.nextValue();
+                        items++;
+                        consumer.accept(item);
+                    }
+                }catch(JsonProcessingException jpe){
+                    //the items received so far have already been consumed
+                    throw new RestClientSchemaException("The item "+(items+1)+" of the response to 'GET "+uri+"' cannot be read: "+jpe.getOriginalMessage(), HttpStatus.BAD_GATEWAY);
+                }
+            }
+        }catch(IOException ioe){
+            throw new RestClientIOException(ioe.getMessage(),HttpStatus.BAD_GATEWAY);
+        }finally{
+            //also if the consumer has thrown an exception
+            if(!Objects.isNull(connection)){
+                connection.disconnect();
+            }
+        }
+        resultStack.add(result);
+        return this;
+    }
+
     /**
      * Performs an HTTP request that has no request body
      * @param uri
@@ -167,67 +221,25 @@ public class RestClientImpl implements RestClient, RestClientTransition{
         
         result.setUri(uri);
         
+        HttpURLConnection connection = null;
         try{
-            URL url = new URL(uri);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            
-            //set method
-            connection.setRequestMethod(method);
-
-            //add request header (if specified)
-            /*
-            for (SimpleEntry<String,String> header : headers) {
-                connection.setRequestProperty(header.getKey(), header.getValue());
-            }
-            */
-            for(String name : requestHeaders.keySet()){
-                for (String value : requestHeaders.get(name)) {
-                    connection.setRequestProperty(name, value);
-                }
-            }
+            connection = connect(uri, method);
 
             if(method.compareTo("POST")==0 || method.compareTo("PUT")==0){
                 connection.setDoOutput(true);
                 connection.getOutputStream().close();
             }
 
-            int status = connection.getResponseCode();
-
-            //write status code to results
-            result.setStatusCode(status);
-            //write status message to results
-            result.setMessage(connection.getResponseMessage());
-
-            //read headers
-            result.setResponseHeaders(connection.getHeaderFields());
-
-            InputStream errorStream = connection.getErrorStream();
-            if(Objects.isNull(errorStream)){
+            if(readStatus(connection, result, method, uri, false) && result.getStatusCode() != 204){
                 //successful case
-                if(status != 204){
-                    result.setResponseContent(connection.getInputStream().readAllBytes());
-                }
-            }else{
-                //error case
-                BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(errorStream));
-                StringBuffer errorContent = new StringBuffer();
-                String errorInputLine = null;
-                while((errorInputLine = bufferedReader.readLine())!=null){
-                    errorContent.append(errorInputLine);
-                }
-                bufferedReader.close();
-                if(requestExceptionEnabled){
-                    RestClientRequestException re = new RestClientRequestException("The request '"+method+" "+uri+"' results into a status code '"+status+"'.");
-                    re.setRestClientResult(result);
-                    throw re;
-                }else{
-                    result.setErrorContent(errorContent.toString());
-                }
-                
+                result.setResponseContent(connection.getInputStream().readAllBytes());
             }
-            connection.disconnect();
         }catch(IOException ioe){
             throw new RestClientIOException(ioe.getMessage(),HttpStatus.BAD_GATEWAY);
+        }finally{
+            if(!Objects.isNull(connection)){
+                connection.disconnect();
+            }
         }
         resultStack.add(result);
     }
@@ -244,6 +256,7 @@ public class RestClientImpl implements RestClient, RestClientTransition{
         uri = this.basePath+uri;
         result.setUri(uri);
 
+        HttpURLConnection connection = null;
         try{
 
             //build query string
@@ -259,25 +272,7 @@ public class RestClientImpl implements RestClient, RestClientTransition{
                 uri+=query;
             }
             
-            URL url = new URL(uri);
-
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            
-            //set method
-            connection.setRequestMethod(method);
-
-            //add request header (if specified)
-            /*
-            for (SimpleEntry<String,String> header : headers) {
-                connection.setRequestProperty(header.getKey(), header.getValue());
-            }
-            */
-            for(String name : requestHeaders.keySet()){
-                for (String value : requestHeaders.get(name)) {
-                    connection.setRequestProperty(name, value);
-                }
-            }
-
+            connection = connect(uri, method);
 
             //write request payload
             connection.setDoOutput(true);
@@ -285,46 +280,103 @@ public class RestClientImpl implements RestClient, RestClientTransition{
             os.write(requestContent);
             os.flush();
             os.close();
-            
-            //write status code to results
-            int status = connection.getResponseCode();
-            result.setStatusCode(status);
-            //write status message to results
-            result.setMessage(connection.getResponseMessage());
 
-            //read headers
-            result.setResponseHeaders(connection.getHeaderFields());
-
-            InputStream errorStream = connection.getErrorStream();
-            if(Objects.isNull(errorStream)){
+            if(readStatus(connection, result, method, uri, false) && result.getStatusCode() != 204){
                 //successful case
-                if(status != 204){
-                    result.setResponseContent(connection.getInputStream().readAllBytes());
-                }
-            }else{
-                //error case
-                BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(errorStream));
-                StringBuffer errorContent = new StringBuffer();
-                String errorInputLine = null;
-                while((errorInputLine = bufferedReader.readLine())!=null){
-                    errorContent.append(errorInputLine);
-                }
-                bufferedReader.close();
-                if(requestExceptionEnabled){
-                    RestClientRequestException re = new RestClientRequestException("The request '"+method+" "+uri+"' results into a status code '"+status+"'.");
-                    re.setRestClientResult(result);
-                    throw re;
-                }else{
-                    result.setErrorContent(errorContent.toString());
-                }
+                result.setResponseContent(connection.getInputStream().readAllBytes());
             }
-            connection.disconnect();
         }catch(IOException ioe){
             throw new RestClientIOException(ioe.getMessage(),HttpStatus.BAD_GATEWAY);
+        }finally{
+            if(!Objects.isNull(connection)){
+                connection.disconnect();
+            }
         }
         resultStack.add(result);
     }
 
+    /**
+     * Opens a connection to the passed URI and adds the request headers of this client
+     * @param uri the URI
+     * @param method the HTTP method
+     * @return the connection
+     * @throws IOException
+     */
+    private HttpURLConnection connect(String uri, String method) throws IOException{
+        URL url = new URL(uri);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+
+        //set method
+        connection.setRequestMethod(method);
+
+        //add request header (if specified)
+        for(String name : requestHeaders.keySet()){
+            for (String value : requestHeaders.get(name)) {
+                connection.setRequestProperty(name, value);
+            }
+        }
+        return connection;
+    }
+
+    /**
+     * Writes the status code, status message, and headers of the response to the passed result. If the response has an error body, the body is read and either a
+     * {@link RestClientRequestException} is thrown or the body is written to the passed result as error content, see {@link RestClient#withRequestException(boolean)}.
+     * Like the successful body, the error body is only decompressed by requests that decompress their responses.
+     * @param connection the connection
+     * @param result the result
+     * @param method the HTTP method
+     * @param uri the URI
+     * @param decompress true if a gzip-encoded error body is decompressed
+     * @return true if the response is successful, i.e., the response body can be read from the input stream of the connection, else false
+     * @throws IOException
+     * @throws RestClientRequestException
+     */
+    private boolean readStatus(HttpURLConnection connection, RestClientResult result, String method, String uri, boolean decompress) throws IOException, RestClientRequestException{
+        //write status code to results
+        int status = connection.getResponseCode();
+        result.setStatusCode(status);
+        //write status message to results
+        result.setMessage(connection.getResponseMessage());
+
+        //read headers
+        result.setResponseHeaders(connection.getHeaderFields());
+
+        InputStream errorStream = connection.getErrorStream();
+        if(Objects.isNull(errorStream)){
+            return true;
+        }
+        //error case
+        BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(decompress ? decode(connection, errorStream) : errorStream));
+        StringBuffer errorContent = new StringBuffer();
+        String errorInputLine = null;
+        while((errorInputLine = bufferedReader.readLine())!=null){
+            errorContent.append(errorInputLine);
+        }
+        bufferedReader.close();
+        if(requestExceptionEnabled){
+            RestClientRequestException re = new RestClientRequestException("The request '"+method+" "+uri+"' results into a status code '"+status+"'.");
+            re.setRestClientResult(result);
+            throw re;
+        }else{
+            result.setErrorContent(errorContent.toString());
+        }
+        return false;
+    }
+
+    /**
+     * Decompresses the passed stream of a response if the response is gzip-encoded
+     * @param connection the connection
+     * @param inputStream the input or error stream of the connection
+     * @return the decompressed stream
+     * @throws IOException
+     */
+    private static InputStream decode(HttpURLConnection connection, InputStream inputStream) throws IOException{
+        if("gzip".equalsIgnoreCase(connection.getContentEncoding())){
+            return new GZIPInputStream(inputStream);
+        }
+        return inputStream;
+    }
+
     @Override
     public RestClientTransition follow(String rel) throws RestClientExpectationFailedException, RestClientSchemaException{
         return follow(rel, null);
@@ -18,90 +18,55 @@ package de.skotstein.lib.spring.restfulspring.util;
 
 
 import java.util.Objects;
+import java.util.function.Predicate;
 
-import org.springframework.http.HttpStatus;
-import org.springframework.web.server.ResponseStatusException;
-
+/**
+ * Filter method for numeric entity values. The query parameter value is a numeric value optionally prefixed by one of the following operators:
+ * 'eq:' (default), 'lt:', 'lte:', 'gt:', 'gte:', 'between:' (e.g., 'between:1..10'), or 'in:' (e.g., 'in:1,2,3'). See {@link NumericCondition}.
+ */
 public class RhsNumericFilterMethod extends FilterMethod{
 
     @Override
     protected boolean match(String queryParameterKey, Object queryParameterValue, Object entityValue) {
-        Integer queryValue = 0;
-        Integer entityNumericValue = 0;
-        String operator = null;
-        
+        return compile(queryParameterKey, queryParameterValue).test(entityValue);
+    }
+
+    @Override
+    protected Predicate<Object> compile(String queryParameterKey, Object queryParameterValue) {
+        NumericCondition condition = null;
+
         //check query parameter value
         if(Objects.isNull(queryParameterValue)){ //if parameter is not set
-            return true;
+            return v -> true;
         }else{
             if(queryParameterValue instanceof String){
                 String queryParameterValueAsString = (String)queryParameterValue;
-                queryParameterValueAsString = queryParameterValueAsString.trim();
                 if(queryParameterValueAsString.isBlank()){ //if parameter is blank
-                    return true;
-                }
-                //parse query parameter
-                if(queryParameterValueAsString.startsWith("eq:")){
-                    operator = "eq";
-                    queryParameterValueAsString = queryParameterValueAsString.substring(3);
-                }else if(queryParameterValueAsString.startsWith("gt:")){
-                    operator = "gt";
-                    queryParameterValueAsString = queryParameterValueAsString.substring(3);
-                }
-                else if(queryParameterValueAsString.startsWith("gte:")){
-                    operator = "gte";
-                    queryParameterValueAsString = queryParameterValueAsString.substring(4);
-                }
-                else if(queryParameterValueAsString.startsWith("lt:")){
-                    operator = "lt";
-                    queryParameterValueAsString = queryParameterValueAsString.substring(3);
-                }
-                else if(queryParameterValueAsString.startsWith("lte:")){
-                    operator = "lte";
-                    queryParameterValueAsString = queryParameterValueAsString.substring(4);
-                }else{
-                    operator = "eq";
+                    return v -> true;
                 }
-                try{
-                    queryValue = Integer.parseInt(queryParameterValueAsString);
-                }catch(NumberFormatException nfe){
-                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,"Numeric filter does not contain a numeric value. Make sure that the filter is a numeric value optionally prefixed by one of the following operators: 'eq:' (default), 'lt:', 'lte:', 'gt:', or 'gte:'");
-                }
-
-            }else if(queryParameterValue instanceof Integer){
-                operator = "eq";
-                queryValue = (Integer)queryParameterValue;
+                //parse query parameter once
+                condition = NumericCondition.parse(queryParameterValueAsString);
+            }else if(queryParameterValue instanceof Number){
+                condition = NumericCondition.equalTo((Number)queryParameterValue);
             }else{
-                throw new RuntimeException("Query parameter for filtering IP addresses must by type of string or integer");
+                throw new RuntimeException("Query parameter for filtering numeric values must by type of string or number");
             }
         }
+        return condition::test;
+    }
 
-        //check entity value
-        if(Objects.isNull(entityValue)){
-            return false;
-        }else{
-            if(entityValue instanceof Integer){
-                entityNumericValue = (Integer)entityValue;
-            }else{
-                throw new RuntimeException("Entity value must be type of Integer");
-            }
+    @Override
+    IndexLookup lookup(String queryParameterKey, Object queryParameterValue) {
+        if(queryParameterValue instanceof String && !((String)queryParameterValue).isBlank()){
+            return IndexLookup.numeric(NumericCondition.parse((String)queryParameterValue), true);
+        }else if(queryParameterValue instanceof Number){
+            return IndexLookup.numeric(NumericCondition.equalTo((Number)queryParameterValue), true);
         }
+        return null;
+    }
 
-        //compare values
-        switch(operator){
-            case "eq":
-                return entityNumericValue.intValue() == queryValue.intValue();
-            case "gt":
-                return entityNumericValue.intValue() > queryValue.intValue();
-            case "gte":
-                return entityNumericValue.intValue() >= queryValue.intValue();
-            case "lt":
-                return entityNumericValue.intValue() < queryValue.intValue();
-            case "lte":
-                return entityNumericValue.intValue() <= queryValue.intValue();
-            default:
-                return false;
-        }
+    @Override
+    protected String getSignature() {
+        return classSignature(RhsNumericFilterMethod.class);
     }
-    
 }
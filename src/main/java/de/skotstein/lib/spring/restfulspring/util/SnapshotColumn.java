@@ -0,0 +1,289 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Column of a {@link ColumnarSnapshot} holding the values of a {@link Filterable} property of all rows. Rows are grouped into words of 64 rows, sets of rows
+ * (selections) are long arrays having one bit per row. Rows of items that do not have the property or whose getter throws an exception match any criterion
+ * (same semantics as {@link FilterMethod#applyFilterMethod(FilterCriterion, Object)}), rows having a null value match a criterion if its compiled predicate accepts null.
+ * If all non-null values are of the same numeric class, the values are stored as long keys (see {@link NumericColumn}), otherwise they are dictionary-encoded
+ * (see {@link DictionaryColumn}).
+ */
+abstract class SnapshotColumn {
+
+    /**
+     * Marks rows of items that do not have the property or whose getter throws an exception
+     */
+    private static final Object UNAVAILABLE = new Object();
+
+    protected final int size;
+    private final long[] unavailable;
+    private final long[] nulls;
+    /**
+     * Rows having a non-null value
+     */
+    protected final long[] present;
+
+    protected SnapshotColumn(Object[] values){
+        this.size = values.length;
+        this.unavailable = new long[words(size)];
+        this.nulls = new long[words(size)];
+        this.present = new long[words(size)];
+        for(int row = 0; row < size; row++){
+            if(values[row] == UNAVAILABLE){
+                unavailable[row >>> 6] |= 1L << row;
+            }else if(Objects.isNull(values[row])){
+                nulls[row >>> 6] |= 1L << row;
+            }else{
+                present[row >>> 6] |= 1L << row;
+            }
+        }
+    }
+
+    /**
+     * Reads the property having the passed name of all passed items and creates a column
+     * @param name the normalized name of the property
+     * @param items the items, which are not null
+     * @return the column
+     */
+    static SnapshotColumn of(String name, List<?> items){
+        Object[] values = new Object[items.size()];
+        Class<?> clazz = null;
+        FilterableProperty property = null;
+        Class<?> valueClass = null;
+        boolean numeric = true;
+        for(int row = 0; row < values.length; row++){
+            Object item = items.get(row);
+            if(item.getClass() != clazz){
+                clazz = item.getClass();
+                property = FilterableProperties.of(clazz).get(name);
+            }
+            Object value = UNAVAILABLE;
+            if(!Objects.isNull(property)){
+                try{
+                    value = property.read(item);
+                }catch(Throwable t){
+                    value = UNAVAILABLE; //ignore
+                }
+            }
+            values[row] = value;
+            if(value != UNAVAILABLE && !Objects.isNull(value)){
+                if(Objects.isNull(valueClass)){
+                    valueClass = value.getClass();
+                    numeric = NumericColumn.isNumeric(valueClass);
+                }else if(valueClass != value.getClass()){
+                    numeric = false;
+                }
+            }
+        }
+        if(numeric && !Objects.isNull(valueClass)){
+            return new NumericColumn(values, valueClass);
+        }
+        return new DictionaryColumn(values);
+    }
+
+    /**
+     * Returns the number of words of a selection of the passed number of rows
+     * @param size the number of rows
+     * @return the number of words
+     */
+    static int words(int size){
+        return (size + 63) >>> 6;
+    }
+
+    /**
+     * Returns the rows of the passed candidates that match the passed criterion
+     * @param criterion the criterion
+     * @param candidates the candidate rows
+     * @return the matching rows
+     */
+    long[] evaluate(CompiledCriterion criterion, long[] candidates){
+        long[] result = new long[candidates.length];
+        boolean nullMatches = false;
+        for(int w = 0; w < candidates.length; w++){
+            if((candidates[w] & nulls[w]) != 0){
+                nullMatches = criterion.getPredicate().test(null);
+                break;
+            }
+        }
+        for(int w = 0; w < candidates.length; w++){
+            result[w] = candidates[w] & (nullMatches ? unavailable[w] | nulls[w] : unavailable[w]);
+        }
+        evaluateValues(criterion, candidates, result);
+        return result;
+    }
+
+    /**
+     * Adds the rows of the passed candidates having a non-null value that matches the passed criterion to the passed result
+     * @param criterion the criterion
+     * @param candidates the candidate rows
+     * @param result the result
+     */
+    protected abstract void evaluateValues(CompiledCriterion criterion, long[] candidates, long[] result);
+
+    /**
+     * Column of values of a single numeric class stored as long keys. Keys of integral values are the values themselves, keys of floating point values
+     * are encoded by {@link SortedColumn#encode(double)}. Criteria whose matching values are described by key ranges (see {@link IndexLookup#ranges(Class)})
+     * are evaluated by comparing keys in a loop over the key array, other criteria are evaluated on boxed values.
+     */
+    static final class NumericColumn extends SnapshotColumn {
+
+        private final Class<?> clazz;
+        private final long[] keys;
+
+        NumericColumn(Object[] values, Class<?> clazz){
+            super(values);
+            this.clazz = clazz;
+            this.keys = new long[values.length];
+            boolean floatingPoint = clazz == Double.class || clazz == Float.class;
+            for(int row = 0; row < values.length; row++){
+                if((present[row >>> 6] & (1L << row)) != 0){
+                    Number value = (Number)values[row];
+                    keys[row] = floatingPoint ? SortedColumn.encode(value.doubleValue()) : value.longValue();
+                }
+            }
+        }
+
+        static boolean isNumeric(Class<?> clazz){
+            return clazz == Long.class || clazz == Integer.class || clazz == Short.class || clazz == Byte.class || clazz == Double.class || clazz == Float.class;
+        }
+
+        @Override
+        protected void evaluateValues(CompiledCriterion criterion, long[] candidates, long[] result) {
+            long[] ranges = Objects.isNull(criterion.getLookup()) ? null : criterion.getLookup().ranges(clazz);
+            if(Objects.isNull(ranges)){
+                evaluatePredicate(criterion.getPredicate(), candidates, result);
+            }else{
+                for(int i = 0; i < ranges.length; i += 2){
+                    evaluateRange(ranges[i], ranges[i+1], candidates, result);
+                }
+            }
+        }
+
+        private void evaluateRange(long lower, long upper, long[] candidates, long[] result){
+            //a key is within the range if its unsigned distance from the lower bound does not exceed the width of the range
+            long width = (upper - lower) + Long.MIN_VALUE;
+            for(int w = 0; w < candidates.length; w++){
+                long mask = candidates[w] & present[w];
+                if(mask == 0){
+                    continue;
+                }
+                int base = w << 6;
+                int end = Math.min(64, size - base);
+                long bits = 0;
+                for(int b = 0; b < end; b++){
+                    long distance = (keys[base + b] - lower) + Long.MIN_VALUE;
+                    bits |= (distance <= width ? 1L : 0L) << b;
+                }
+                result[w] |= bits & mask;
+            }
+        }
+
+        private void evaluatePredicate(Predicate<Object> predicate, long[] candidates, long[] result){
+            for(int w = 0; w < candidates.length; w++){
+                long mask = candidates[w] & present[w];
+                while(mask != 0){
+                    int row = (w << 6) | Long.numberOfTrailingZeros(mask);
+                    if(predicate.test(value(keys[row]))){
+                        result[w] |= 1L << row;
+                    }
+                    mask &= mask - 1;
+                }
+            }
+        }
+
+        private Object value(long key){
+            if(clazz == Long.class){
+                return Long.valueOf(key);
+            }else if(clazz == Integer.class){
+                return Integer.valueOf((int)key);
+            }else if(clazz == Short.class){
+                return Short.valueOf((short)key);
+            }else if(clazz == Byte.class){
+                return Byte.valueOf((byte)key);
+            }else if(clazz == Float.class){
+                return Float.valueOf((float)SortedColumn.decode(key));
+            }
+            return Double.valueOf(SortedColumn.decode(key));
+        }
+    }
+
+    /**
+     * Dictionary-encoded column. Each row refers to an entry of the dictionary of distinct values, criteria are evaluated once per distinct value
+     * of the candidate rows and the outcomes are looked up by dictionary id.
+     */
+    static final class DictionaryColumn extends SnapshotColumn {
+
+        private static final byte UNKNOWN = 0;
+        private static final byte MATCH = 1;
+        private static final byte MISMATCH = 2;
+
+        private final int[] ids;
+        private final Object[] dictionary;
+
+        DictionaryColumn(Object[] values){
+            super(values);
+            this.ids = new int[values.length];
+            Map<Object,Integer> distinct = new HashMap<Object,Integer>();
+            for(int row = 0; row < values.length; row++){
+                if((present[row >>> 6] & (1L << row)) != 0){
+                    Integer id = distinct.get(values[row]);
+                    if(Objects.isNull(id)){
+                        id = distinct.size();
+                        distinct.put(values[row], id);
+                    }
+                    ids[row] = id;
+                }
+            }
+            this.dictionary = new Object[distinct.size()];
+            for(Map.Entry<Object,Integer> entry : distinct.entrySet()){
+                dictionary[entry.getValue()] = entry.getKey();
+            }
+        }
+
+        @Override
+        protected void evaluateValues(CompiledCriterion criterion, long[] candidates, long[] result) {
+            Predicate<Object> predicate = criterion.getPredicate();
+            byte[] outcomes = new byte[dictionary.length];
+            for(int w = 0; w < candidates.length; w++){
+                long mask = candidates[w] & present[w];
+                if(mask == 0){
+                    continue;
+                }
+                long bits = 0;
+                while(mask != 0){
+                    int b = Long.numberOfTrailingZeros(mask);
+                    int id = ids[(w << 6) | b];
+                    byte outcome = outcomes[id];
+                    if(outcome == UNKNOWN){
+                        outcome = predicate.test(dictionary[id]) ? MATCH : MISMATCH;
+                        outcomes[id] = outcome;
+                    }
+                    bits |= (long)(outcome & 1) << b;
+                    mask &= mask - 1;
+                }
+                result[w] |= bits;
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.LongPredicate;
+
+/**
+ * Primitive sorted column of (key, row) pairs used by {@link SortedFilterIndex} for numeric values. Keys are stored in a sorted long array, hence ranges
+ * are found by binary search without boxing. Floating point values are stored as order-preserving long keys (see {@link SortedColumn#encode(double)}).
+ * Added pairs are buffered and removed pairs are marked as deleted, both are merged into the sorted arrays by {@link SortedColumn#flush()}.
+ */
+final class SortedColumn {
+
+    private long[] keys = new long[0];
+    private int[] rows = new int[0];
+    private int size = 0;
+    private final BitSet deleted = new BitSet();
+    private int deletedCounter = 0;
+
+    private long[] pendingKeys = new long[8];
+    private int[] pendingRows = new int[8];
+    private int pendingSize = 0;
+
+    /**
+     * Encodes the passed double value into a long key so that the order of keys corresponds to the numeric order of values.
+     * Note that -0.0 is ordered before 0.0 and NaN is ordered after positive infinity.
+     * @param value the value
+     * @return the key
+     */
+    static long encode(double value){
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & 0x7FFFFFFFFFFFFFFFL);
+    }
+
+    /**
+     * Decodes the passed key into a double value, see {@link SortedColumn#encode(double)}
+     * @param key the key
+     * @return the value
+     */
+    static double decode(long key){
+        return Double.longBitsToDouble(key ^ ((key >> 63) & 0x7FFFFFFFFFFFFFFFL));
+    }
+
+    void add(long key, int row){
+        if(pendingSize == pendingKeys.length){
+            pendingKeys = Arrays.copyOf(pendingKeys, pendingSize*2);
+            pendingRows = Arrays.copyOf(pendingRows, pendingSize*2);
+        }
+        pendingKeys[pendingSize] = key;
+        pendingRows[pendingSize] = row;
+        pendingSize++;
+    }
+
+    void remove(long key, int row){
+        for(int i = pendingSize-1; i >= 0; i--){
+            if(pendingRows[i] == row && pendingKeys[i] == key){
+                pendingSize--;
+                pendingKeys[i] = pendingKeys[pendingSize];
+                pendingRows[i] = pendingRows[pendingSize];
+                return;
+            }
+        }
+        for(int p = lowerBound(key); p < size && keys[p] == key; p++){
+            if(rows[p] == row && !deleted.get(p)){
+                deleted.set(p);
+                deletedCounter++;
+                return;
+            }
+        }
+    }
+
+    boolean isEmpty(){
+        return size - deletedCounter + pendingSize == 0;
+    }
+
+    /**
+     * Merges buffered pairs into the sorted arrays and removes deleted pairs
+     */
+    void flush(){
+        if(pendingSize == 0 && deletedCounter == 0){
+            return;
+        }
+        sort(pendingKeys, pendingRows, 0, pendingSize-1);
+        int mergedSize = size - deletedCounter + pendingSize;
+        long[] mergedKeys = new long[mergedSize];
+        int[] mergedRows = new int[mergedSize];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while(i < size || j < pendingSize){
+            if(i < size && deleted.get(i)){
+                i++;
+            }else if(j >= pendingSize || (i < size && keys[i] <= pendingKeys[j])){
+                mergedKeys[k] = keys[i];
+                mergedRows[k++] = rows[i++];
+            }else{
+                mergedKeys[k] = pendingKeys[j];
+                mergedRows[k++] = pendingRows[j++];
+            }
+        }
+        keys = mergedKeys;
+        rows = mergedRows;
+        size = mergedSize;
+        deleted.clear();
+        deletedCounter = 0;
+        pendingSize = 0;
+        if(pendingKeys.length > 1024){
+            pendingKeys = new long[8];
+            pendingRows = new int[8];
+        }
+    }
+
+    /**
+     * Adds the rows of all keys within the passed inclusive range to the passed result. The column must be flushed.
+     * @param lower the lower bound
+     * @param upper the upper bound
+     * @param result the result
+     */
+    void collect(long lower, long upper, BitSet result){
+        for(int p = lowerBound(lower); p < size && keys[p] <= upper; p++){
+            result.set(rows[p]);
+        }
+    }
+
+    /**
+     * Adds the rows of all keys within the passed inclusive range that match the passed predicate to the passed result. The predicate is evaluated once per distinct key.
+     * The column must be flushed.
+     * @param lower the lower bound
+     * @param upper the upper bound
+     * @param predicate the predicate
+     * @param result the result
+     */
+    void collect(long lower, long upper, LongPredicate predicate, BitSet result){
+        int p = lowerBound(lower);
+        while(p < size && keys[p] <= upper){
+            long key = keys[p];
+            int end = p+1;
+            while(end < size && keys[end] == key){
+                end++;
+            }
+            if(predicate.test(key)){
+                for(; p < end; p++){
+                    result.set(rows[p]);
+                }
+            }
+            p = end;
+        }
+    }
+
+    private int lowerBound(long key){
+        int low = 0;
+        int high = size;
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(keys[middle] < key){
+                low = middle+1;
+            }else{
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static void sort(long[] keys, int[] rows, int from, int to){
+        while(from < to){
+            long pivot = keys[(from + to) >>> 1];
+            int i = from;
+            int j = to;
+            while(i <= j){
+                while(keys[i] < pivot){
+                    i++;
+                }
+                while(keys[j] > pivot){
+                    j--;
+                }
+                if(i <= j){
+                    long key = keys[i];
+                    keys[i] = keys[j];
+                    keys[j] = key;
+                    int row = rows[i];
+                    rows[i] = rows[j];
+                    rows[j] = row;
+                    i++;
+                    j--;
+                }
+            }
+            //recurse into the smaller part
+            if(j - from < to - i){
+                sort(keys, rows, from, j);
+                from = i;
+            }else{
+                sort(keys, rows, i, to);
+                to = j;
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * {@link FilterIndex} keeping the distinct values of each comparable value class in sorted order. Values of type {@link Byte}, {@link Short}, {@link Integer}, {@link Long},
+ * {@link Float}, and {@link Double} are stored in primitive {@link SortedColumn}s. Range criteria (e.g., {@link RhsNumericFilterMethod} and {@link MinMaxFilterMethod}) are answered
+ * by binary search, multiple criteria on the same property (e.g., a minimum and a maximum) are combined into a single range scan.
+ * Other criteria are evaluated once per distinct value. Values of other comparable classes are kept in a {@link TreeMap}, values that compare as equal are treated as the same value.
+ */
+class SortedFilterIndex extends FilterIndex {
+
+    private final Map<Class<?>,SortedColumn> columns = new HashMap<Class<?>,SortedColumn>();
+    private final Map<Class<?>,Map<Object,Postings>> partitions = new HashMap<Class<?>,Map<Object,Postings>>();
+
+    SortedFilterIndex(String name){
+        super(name);
+    }
+
+    @Override
+    protected void insert(Object value, int row) {
+        if(isNumeric(value.getClass())){
+            columns.computeIfAbsent(value.getClass(), c -> new SortedColumn()).add(key(value), row);
+        }else{
+            partitions.computeIfAbsent(value.getClass(), c -> Comparable.class.isAssignableFrom(c) ? new TreeMap<Object,Postings>() : new HashMap<Object,Postings>())
+                .computeIfAbsent(value, v -> new Postings()).add(row);
+        }
+    }
+
+    @Override
+    protected void delete(Object value, int row) {
+        if(isNumeric(value.getClass())){
+            columns.get(value.getClass()).remove(key(value), row);
+            return;
+        }
+        Map<Object,Postings> partition = partitions.get(value.getClass());
+        Postings postings = partition.get(value);
+        postings.remove(row);
+        if(postings.isEmpty()){
+            partition.remove(value);
+            if(partition.isEmpty()){
+                partitions.remove(value.getClass());
+            }
+        }
+    }
+
+    @Override
+    protected void clearValues() {
+        columns.clear();
+        partitions.clear();
+    }
+
+    @Override
+    void flush() {
+        for(SortedColumn column : columns.values()){
+            column.flush();
+        }
+    }
+
+    @Override
+    protected CompressedBitmap lookupValues(CompiledCriterion[] criteria) {
+        BitSet result = new BitSet();
+        for(Map.Entry<Class<?>,SortedColumn> column : columns.entrySet()){
+            lookupColumn(column.getKey(), column.getValue(), criteria, result);
+        }
+        for(Map.Entry<Class<?>,Map<Object,Postings>> partition : partitions.entrySet()){
+            lookupPartition(partition.getKey(), partition.getValue(), criteria, result);
+        }
+        return CompressedBitmap.of(result);
+    }
+
+    private void lookupColumn(Class<?> clazz, SortedColumn column, CompiledCriterion[] criteria, BitSet result){
+        long[] ranges = new long[]{Long.MIN_VALUE, Long.MAX_VALUE};
+        List<CompiledCriterion> unresolved = new ArrayList<CompiledCriterion>();
+        for(CompiledCriterion criterion : criteria){
+            long[] criterionRanges = Objects.isNull(criterion.getLookup()) ? null : criterion.getLookup().ranges(clazz);
+            if(Objects.isNull(criterionRanges)){
+                unresolved.add(criterion);
+            }else{
+                ranges = intersect(ranges, criterionRanges);
+            }
+        }
+        if(unresolved.isEmpty()){
+            for(int i = 0; i < ranges.length; i += 2){
+                column.collect(ranges[i], ranges[i+1], result);
+            }
+        }else{
+            CompiledCriterion[] remaining = unresolved.toArray(new CompiledCriterion[unresolved.size()]);
+            for(int i = 0; i < ranges.length; i += 2){
+                column.collect(ranges[i], ranges[i+1], key -> matchesAll(remaining, value(key, clazz)), result);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void lookupPartition(Class<?> clazz, Map<Object,Postings> partition, CompiledCriterion[] criteria, BitSet result){
+        if(!(partition instanceof NavigableMap)){
+            collect(partition, criteria, result);
+            return;
+        }
+        //narrow down the values to the intersection of all known ranges
+        Comparable<Object> lower = null;
+        Comparable<Object> upper = null;
+        for(CompiledCriterion criterion : criteria){
+            Object[] range = Objects.isNull(criterion.getLookup()) ? null : criterion.getLookup().range(clazz);
+            if(Objects.isNull(range)){
+                continue;
+            }
+            if(range.length == 0){
+                return;
+            }
+            if(!Objects.isNull(range[0]) && (Objects.isNull(lower) || lower.compareTo(range[0]) < 0)){
+                lower = (Comparable<Object>)range[0];
+            }
+            if(!Objects.isNull(range[1]) && (Objects.isNull(upper) || upper.compareTo(range[1]) > 0)){
+                upper = (Comparable<Object>)range[1];
+            }
+        }
+        NavigableMap<Object,Postings> values = (NavigableMap<Object,Postings>)partition;
+        if(!Objects.isNull(lower) && !Objects.isNull(upper)){
+            if(lower.compareTo(upper) > 0){
+                return;
+            }
+            values = values.subMap(lower, true, upper, true);
+        }else if(!Objects.isNull(lower)){
+            values = values.tailMap(lower, true);
+        }else if(!Objects.isNull(upper)){
+            values = values.headMap(upper, true);
+        }
+        collect(values, criteria, result);
+    }
+
+    /**
+     * Returns the intersection of the passed sorted, disjoint ranges
+     * @param a pairs of inclusive lower and upper bounds
+     * @param b pairs of inclusive lower and upper bounds
+     * @return pairs of inclusive lower and upper bounds
+     */
+    static long[] intersect(long[] a, long[] b){
+        long[] ranges = new long[a.length + b.length];
+        int counter = 0;
+        int i = 0;
+        int j = 0;
+        while(i < a.length && j < b.length){
+            long lower = Math.max(a[i], b[j]);
+            long upper = Math.min(a[i+1], b[j+1]);
+            if(lower <= upper){
+                ranges[counter++] = lower;
+                ranges[counter++] = upper;
+            }
+            if(a[i+1] < b[j+1]){
+                i += 2;
+            }else{
+                j += 2;
+            }
+        }
+        return Arrays.copyOf(ranges, counter);
+    }
+
+    private static boolean isNumeric(Class<?> clazz){
+        return clazz == Long.class || clazz == Integer.class || clazz == Short.class || clazz == Byte.class || clazz == Double.class || clazz == Float.class;
+    }
+
+    private static long key(Object value){
+        if(value instanceof Double || value instanceof Float){
+            return SortedColumn.encode(((Number)value).doubleValue());
+        }
+        return ((Number)value).longValue();
+    }
+
+    private static Object value(long key, Class<?> clazz){
+        if(clazz == Long.class){
+            return Long.valueOf(key);
+        }else if(clazz == Integer.class){
+            return Integer.valueOf((int)key);
+        }else if(clazz == Short.class){
+            return Short.valueOf((short)key);
+        }else if(clazz == Byte.class){
+            return Byte.valueOf((byte)key);
+        }else if(clazz == Float.class){
+            return Float.valueOf((float)SortedColumn.decode(key));
+        }
+        return Double.valueOf(SortedColumn.decode(key));
+    }
+}
@@ -0,0 +1,127 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import de.skotstein.lib.spring.restfulspring.model.entities.Hypermedia;
+
+/**
+ * {@link StreamingResponseBody} writing a collection resource as JSON without holding its items in memory. The properties of the collection are written first
+ * (starting with "_links"), afterwards the items are serialized one at a time by a {@link JsonGenerator} as they are consumed from the passed stream, e.g., a stream
+ * returned by {@link Filter#stream(Stream)} and {@link Pagination#paginate(Stream)}. Hence, the heap usage does not depend on the number of items and the first bytes
+ * are sent before the first item has been filtered.
+ *
+ * The output is equivalent to serializing the collection with the passed {@link ObjectMapper} after adding all items, except that the items property is the last property.
+ * Since the hyperlinks are written first, hyperlinks depending on the items (e.g., {@link Pagination#addHyperlinksIfUsed(Hypermedia, Filter)}) must be added
+ * in advance, e.g., based on {@link Filter#count(java.util.List)}. The passed stream is closed after writing.
+ */
+public class StreamingJsonResponseBody implements StreamingResponseBody {
+
+    private static final String LINKS = "_links";
+
+    private final ObjectMapper mapper;
+    private final Hypermedia collection;
+    private final String itemsProperty;
+    private final Stream<?> items;
+    private Class<?> view = null;
+
+    /**
+     * Creates a streaming body of the passed collection
+     * @param mapper the object mapper, e.g., the mapper configured for the application
+     * @param collection the collection resource, its own items are not written
+     * @param itemsProperty the name of the JSON property holding the items
+     * @param items the stream of items to be written
+     */
+    public StreamingJsonResponseBody(ObjectMapper mapper, Hypermedia collection, String itemsProperty, Stream<?> items){
+        if(Objects.isNull(mapper) || Objects.isNull(collection) || Objects.isNull(itemsProperty) || Objects.isNull(items)){
+            throw new RuntimeException("The passed mapper, collection, items property, or items are null");
+        }
+        this.mapper = mapper;
+        this.collection = collection;
+        this.itemsProperty = itemsProperty;
+        this.items = items;
+    }
+
+    /**
+     * Serializes the collection and its items with the passed JSON view (e.g., {@link de.skotstein.lib.spring.restfulspring.model.representations.HypermediaRepresentation})
+     * @param view the JSON view
+     * @return this {@link StreamingJsonResponseBody} instance
+     */
+    public StreamingJsonResponseBody withView(Class<?> view){
+        this.view = view;
+        return this;
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        //items are flushed by the buffer of the generator rather than one by one
+        ObjectWriter writer = (Objects.isNull(view) ? mapper.writer() : mapper.writerWithView(view)).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        //the properties of the collection are small, hence they are serialized into a tree first so that the items property can be replaced
+        JsonNode properties = mapper.readTree(writer.writeValueAsBytes(collection));
+        try(Stream<?> stream = items; JsonGenerator generator = mapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)){
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            if(properties instanceof ObjectNode){
+                if(properties.has(LINKS)){
+                    generator.writeFieldName(LINKS);
+                    generator.writeTree(properties.get(LINKS));
+                }
+                for(Iterator<Map.Entry<String,JsonNode>> fields = properties.fields(); fields.hasNext();){
+                    Map.Entry<String,JsonNode> field = fields.next();
+                    if(!field.getKey().equals(LINKS) && !field.getKey().equals(itemsProperty)){
+                        generator.writeFieldName(field.getKey());
+                        generator.writeTree(field.getValue());
+                    }
+                }
+            }
+            generator.writeFieldName(itemsProperty);
+            generator.writeStartArray();
+            //send the properties of the collection before the first item is filtered
+            generator.flush();
+            try{
+                stream.sequential().forEachOrdered(item -> {
+                    try{
+                        writer.writeValue(generator, item);
+                    }catch(IOException e){
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }catch(UncheckedIOException e){
+                throw e.getCause();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+}
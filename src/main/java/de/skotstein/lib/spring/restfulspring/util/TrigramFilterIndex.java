@@ -0,0 +1,152 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * {@link FilterIndex} over {@link String} values keeping a posting list (a {@link CompressedBitmap} of rows) per trigram, i.e., per sequence of three case-folded
+ * characters (see {@link CaseInsensitiveMatcher#fold(char)}). Substring criteria (e.g., {@link DefaultStringFilterMethod}) having at least three characters are answered
+ * by intersecting the posting lists of the trigrams of the substring. The resulting candidates are verified with the compiled predicates of all criteria, since a string
+ * containing all trigrams of a substring does not necessarily contain the substring. Shorter substrings and other criteria are verified for all rows having a string value.
+ * Values of other classes are evaluated once per distinct value.
+ */
+class TrigramFilterIndex extends FilterIndex {
+
+    private final Map<Long,CompressedBitmap> trigrams = new HashMap<Long,CompressedBitmap>();
+    private CompressedBitmap strings = new CompressedBitmap();
+    private final Map<Object,CompressedBitmap> others = new HashMap<Object,CompressedBitmap>();
+
+    TrigramFilterIndex(String name){
+        super(name);
+    }
+
+    @Override
+    protected void insert(Object value, int row) {
+        if(value instanceof String){
+            String string = (String)value;
+            strings.add(row);
+            for(int i = 0; i + 3 <= string.length(); i++){
+                trigrams.computeIfAbsent(foldedTrigram(string, i), t -> new CompressedBitmap()).add(row);
+            }
+        }else{
+            others.computeIfAbsent(value, v -> new CompressedBitmap()).add(row);
+        }
+    }
+
+    @Override
+    protected void delete(Object value, int row) {
+        if(value instanceof String){
+            String string = (String)value;
+            strings.remove(row);
+            for(int i = 0; i + 3 <= string.length(); i++){
+                Long trigram = foldedTrigram(string, i);
+                CompressedBitmap rows = trigrams.get(trigram);
+                //a trigram may occur multiple times in the same string
+                if(!Objects.isNull(rows)){
+                    rows.remove(row);
+                    if(rows.isEmpty()){
+                        trigrams.remove(trigram);
+                    }
+                }
+            }
+        }else{
+            CompressedBitmap rows = others.get(value);
+            rows.remove(row);
+            if(rows.isEmpty()){
+                others.remove(value);
+            }
+        }
+    }
+
+    @Override
+    protected void clearValues() {
+        trigrams.clear();
+        strings = new CompressedBitmap();
+        others.clear();
+    }
+
+    @Override
+    protected CompressedBitmap lookupValues(CompiledCriterion[] criteria) {
+        CompressedBitmap result = new CompressedBitmap();
+        for(Map.Entry<Object,CompressedBitmap> entry : others.entrySet()){
+            if(matchesAll(criteria, entry.getKey())){
+                result = result.or(entry.getValue());
+            }
+        }
+        CompressedBitmap candidates = candidates(criteria);
+        if(Objects.isNull(candidates)){
+            return result;
+        }
+        CompressedBitmap matches = new CompressedBitmap();
+        candidates.forEach(row -> {
+            if(matchesAll(criteria, getValue(row))){
+                matches.add(row);
+            }
+        });
+        return result.isEmpty() ? matches : result.or(matches);
+    }
+
+    /**
+     * Returns the rows having a string value that contains all trigrams of the substrings of the passed criteria
+     * @param criteria the criteria
+     * @return the candidate rows or null if there is no candidate
+     */
+    private CompressedBitmap candidates(CompiledCriterion[] criteria){
+        List<CompressedBitmap> postings = new ArrayList<CompressedBitmap>();
+        for(CompiledCriterion criterion : criteria){
+            String substring = Objects.isNull(criterion.getLookup()) ? null : criterion.getLookup().getSubstring();
+            if(Objects.isNull(substring)){
+                continue;
+            }
+            for(int i = 0; i + 3 <= substring.length(); i++){
+                CompressedBitmap rows = trigrams.get(trigram(substring, i));
+                if(Objects.isNull(rows)){
+                    return null;
+                }
+                postings.add(rows);
+            }
+        }
+        if(postings.isEmpty()){
+            return strings;
+        }
+        //intersect the shortest posting lists first
+        postings.sort(Comparator.comparingInt(CompressedBitmap::cardinality));
+        CompressedBitmap candidates = postings.get(0);
+        for(int i = 1; i < postings.size() && !candidates.isEmpty(); i++){
+            candidates = candidates.and(postings.get(i));
+        }
+        return candidates;
+    }
+
+    private static Long foldedTrigram(String string, int from){
+        return trigram(CaseInsensitiveMatcher.fold(string.charAt(from)), CaseInsensitiveMatcher.fold(string.charAt(from+1)), CaseInsensitiveMatcher.fold(string.charAt(from+2)));
+    }
+
+    private static Long trigram(String folded, int from){
+        return trigram(folded.charAt(from), folded.charAt(from+1), folded.charAt(from+2));
+    }
+
+    private static Long trigram(char first, char second, char third){
+        return Long.valueOf(((long)first << 32) | ((long)second << 16) | third);
+    }
+}
@@ -0,0 +1,204 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.model.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class HyperlinkListTest {
+
+    private static final String[] RELS = {"self", "next", "previous", "item", "collection", null};
+
+    private static Hyperlink randomHyperlink(Random random, List<Hyperlink> known){
+        //hyperlinks are reused so that a hyperlink is contained multiple times or in both lists
+        if(!known.isEmpty() && random.nextInt(3) == 0){
+            return known.get(random.nextInt(known.size()));
+        }
+        Hyperlink hyperlink = new Hyperlink("/" + random.nextInt(1000), RELS[random.nextInt(RELS.length)]);
+        known.add(hyperlink);
+        return hyperlink;
+    }
+
+    private static void assertSameLookups(List<Hyperlink> expected, HyperlinkList actual){
+        assertEquals(expected.size(), actual.size());
+        for(int i = 0; i < expected.size(); i++){
+            assertSame(expected.get(i), actual.get(i));
+        }
+        for(String rel : RELS){
+            List<Hyperlink> related = new ArrayList<Hyperlink>();
+            for(Hyperlink hyperlink : expected){
+                if(Objects.equals(hyperlink.getRel(), rel)){
+                    related.add(hyperlink);
+                }
+            }
+            List<Hyperlink> actualRelated = actual.getAll(rel);
+            assertEquals(related.size(), actualRelated.size(), rel);
+            for(int i = 0; i < related.size(); i++){
+                assertSame(related.get(i), actualRelated.get(i), rel);
+            }
+            assertSame(related.isEmpty() ? null : related.get(0), actual.getFirst(rel), rel);
+            assertEquals(!related.isEmpty(), actual.containsRel(rel), rel);
+        }
+    }
+
+    private static void modify(Random random, List<Hyperlink> expected, HyperlinkList actual, List<Hyperlink> known){
+        switch(random.nextInt(8)){
+            case 0:
+                Hyperlink appended = randomHyperlink(random, known);
+                expected.add(appended);
+                actual.add(appended);
+                break;
+            case 1:
+                int insertAt = random.nextInt(expected.size() + 1);
+                Hyperlink inserted = randomHyperlink(random, known);
+                expected.add(insertAt, inserted);
+                actual.add(insertAt, inserted);
+                break;
+            case 2:
+                if(!expected.isEmpty()){
+                    int removeAt = random.nextInt(expected.size());
+                    assertSame(expected.remove(removeAt), actual.remove(removeAt));
+                }
+                break;
+            case 3:
+                if(!expected.isEmpty()){
+                    int setAt = random.nextInt(expected.size());
+                    Hyperlink replacement = randomHyperlink(random, known);
+                    assertSame(expected.set(setAt, replacement), actual.set(setAt, replacement));
+                }
+                break;
+            case 4:
+                if(expected.size() > 4){
+                    int from = random.nextInt(expected.size() - 3);
+                    expected.subList(from, from + 3).clear();
+                    actual.subList(from, from + 3).clear();
+                }
+                break;
+            case 5:
+                String rel = RELS[random.nextInt(RELS.length)];
+                Hyperlink first = null;
+                for(Hyperlink hyperlink : expected){
+                    if(Objects.equals(hyperlink.getRel(), rel)){
+                        first = hyperlink;
+                        break;
+                    }
+                }
+                if(first != null){
+                    expected.remove(first);
+                }
+                assertSame(first, actual.removeFirst(rel));
+                break;
+            case 6:
+                if(random.nextInt(20) == 0){
+                    expected.clear();
+                    actual.clear();
+                }
+                break;
+            default:
+                //relabeling a hyperlink affects all lists containing it
+                if(!known.isEmpty()){
+                    known.get(random.nextInt(known.size())).setRel(RELS[random.nextInt(RELS.length)]);
+                }
+        }
+    }
+
+    @Test
+    void looksUpLikeLinearScan(){
+        Random random = new Random(1);
+        List<Hyperlink> known = new ArrayList<Hyperlink>();
+        List<Hyperlink> expected = new ArrayList<Hyperlink>();
+        for(int i = 0; i < 20; i++){
+            expected.add(randomHyperlink(random, known));
+        }
+        HyperlinkList actual = new HyperlinkList(expected);
+        assertSameLookups(expected, actual);
+        for(int step = 0; step < 2000; step++){
+            modify(random, expected, actual, known);
+            assertSameLookups(expected, actual);
+        }
+    }
+
+    @Test
+    void looksUpLikeLinearScanWithSharedHyperlinks(){
+        Random random = new Random(2);
+        List<Hyperlink> known = new ArrayList<Hyperlink>();
+        List<Hyperlink> firstExpected = new ArrayList<Hyperlink>();
+        List<Hyperlink> secondExpected = new ArrayList<Hyperlink>();
+        HyperlinkList firstActual = new HyperlinkList();
+        HyperlinkList secondActual = new HyperlinkList();
+        for(int step = 0; step < 3000; step++){
+            if(random.nextBoolean()){
+                modify(random, firstExpected, firstActual, known);
+            }else{
+                modify(random, secondExpected, secondActual, known);
+            }
+            assertSameLookups(firstExpected, firstActual);
+            assertSameLookups(secondExpected, secondActual);
+        }
+    }
+
+    @Test
+    void reflectsRelationChanges(){
+        Hyperlink next = new Hyperlink("/2", "next");
+        Hyperlink self = new Hyperlink("/1", "self");
+        HyperlinkList first = new HyperlinkList(Arrays.asList(self, next));
+        HyperlinkList second = new HyperlinkList(Arrays.asList(next));
+        assertSame(next, first.getFirst("next"));
+        assertSame(next, second.getFirst("next"));
+        next.setRel("previous");
+        assertNull(first.getFirst("next"));
+        assertFalse(second.containsRel("next"));
+        assertSame(next, first.getFirst("previous"));
+        assertSame(next, second.getFirst("previous"));
+        //hyperlinks removed from a list do not affect it anymore
+        second.remove(0);
+        next.setRel("next");
+        assertSame(next, first.getFirst("next"));
+        assertTrue(second.getAll("next").isEmpty());
+        self.setRel(null);
+        assertEquals(Arrays.asList(self), first.getAll(null));
+    }
+
+    @Test
+    void removesRelabeledHyperlinks(){
+        Hyperlink self = new Hyperlink("/1", "self");
+        Hyperlink next = new Hyperlink("/2", "next");
+        Hyperlink other = new Hyperlink("/3", "next");
+        HyperlinkList list = new HyperlinkList(Arrays.asList(self, next, other));
+        assertSame(next, list.getFirst("next"));
+        //the index still lists the hyperlink by its former relation
+        next.setRel("self");
+        assertSame(next, list.remove(1));
+        assertSame(self, list.getFirst("self"));
+        assertEquals(Arrays.asList(other), list.getAll("next"));
+        other.setRel("previous");
+        assertSame(other, list.removeFirst("previous"));
+        assertFalse(list.containsRel("next"));
+        assertEquals(Arrays.asList(self), list);
+    }
+}
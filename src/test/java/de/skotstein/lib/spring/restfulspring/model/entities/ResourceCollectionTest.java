@@ -0,0 +1,154 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.model.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import de.skotstein.lib.spring.restfulspring.util.ColumnarSnapshot;
+import de.skotstein.lib.spring.restfulspring.util.Filter;
+import de.skotstein.lib.spring.restfulspring.util.IndexedList;
+import de.skotstein.lib.spring.restfulspring.util.Pagination;
+import de.skotstein.lib.spring.restfulspring.util.TestItem;
+
+class ResourceCollectionTest {
+
+    static class TestItemCollection extends ResourceCollection<TestItem> {
+
+        TestItemCollection(List<TestItem> items){
+            this.items = items;
+        }
+
+        List<TestItem> getItems(){
+            return items;
+        }
+    }
+
+    private static final List<Function<List<TestItem>,List<TestItem>>> LIST_KINDS = Arrays.asList(
+        ArrayList<TestItem>::new,
+        LinkedList<TestItem>::new,
+        items -> new IndexedList<TestItem>(items).withHashIndex("count").withBitmapIndex("active").withTrigramIndex("name"),
+        ColumnarSnapshot<TestItem>::new);
+
+    private static List<Filter> filters(){
+        List<Filter> filters = new ArrayList<Filter>(TestItem.filters());
+        filters.add(null);
+        filters.add(Filter.create());
+        return filters;
+    }
+
+    private static List<Pagination> paginations(){
+        return Arrays.asList(null, Pagination.of(0, 1), Pagination.of(3, 5), Pagination.of(0, 0), Pagination.of(10, null), Pagination.of(490, 20),
+            Pagination.of(2, 4).withExactTotals(false), Pagination.of(0, 1000).withExactTotals(false),
+            Pagination.of(-5, 2), Pagination.of(-5, 7).withExactTotals(false), Pagination.of(-5, 2).withExactTotals(false), Pagination.of(3, -2).withExactTotals(false),
+            Pagination.of(Integer.MAX_VALUE, 5).withExactTotals(false), Pagination.of(5, Integer.MAX_VALUE).withExactTotals(false));
+    }
+
+    /**
+     * Returns the matching items within the range of the passed pagination, the pagination counts the skipped items
+     */
+    private static List<TestItem> expected(List<TestItem> source, Filter filter, Pagination pagination){
+        List<TestItem> matches = filter == null ? source : filter.filter(new ArrayList<TestItem>(source));
+        List<TestItem> page = new ArrayList<TestItem>();
+        for(int i = 0; i < matches.size(); i++){
+            if(pagination == null || !pagination.skipItem(i)){
+                page.add(matches.get(i));
+            }
+        }
+        return page;
+    }
+
+    private static void assertSameTotals(Pagination expected, Pagination actual){
+        if(expected == null){
+            return;
+        }
+        assertEquals(expected.getItemsBefore(), actual.getItemsBefore());
+        if(actual.isExactTotals()){
+            assertEquals(expected.getItemsAfter(), actual.getItemsAfter());
+        }else{
+            //filtering stops after the item following the range
+            assertEquals(Math.min(1, expected.getItemsAfter()), actual.getItemsAfter());
+        }
+    }
+
+    private static Pagination copy(Pagination pagination){
+        //paginations count skipped items, hence each evaluation needs its own instance
+        return pagination == null ? null : Pagination.of(pagination.getStart(), pagination.getLimit()).withExactTotals(pagination.isExactTotals());
+    }
+
+    @Test
+    void reducesItemsOfEachListKind(){
+        List<TestItem> source = TestItem.random(new Random(1), 500);
+        for(Function<List<TestItem>,List<TestItem>> kind : LIST_KINDS){
+            for(Filter filter : filters()){
+                for(Pagination pagination : paginations()){
+                    Pagination expectedPagination = copy(pagination);
+                    List<TestItem> expected = expected(source, filter, expectedPagination);
+                    TestItemCollection collection = new TestItemCollection(kind.apply(source));
+                    Pagination actualPagination = copy(pagination);
+                    collection.reduceItems(filter, actualPagination);
+                    assertEquals(expected, collection.getItems(), kind.apply(source).getClass() + " " + filter + " " + pagination);
+                    assertSameTotals(expectedPagination, actualPagination);
+                }
+            }
+        }
+    }
+
+    @Test
+    void reducesSnapshotWithoutFilter(){
+        List<TestItem> source = TestItem.random(new Random(2), 20);
+        TestItemCollection collection = new TestItemCollection(new ColumnarSnapshot<TestItem>(source));
+        collection.reduceItems(null, Pagination.of(0, 1));
+        assertEquals(source.subList(0, 1), collection.getItems());
+        collection = new TestItemCollection(new ColumnarSnapshot<TestItem>(source));
+        collection.reduceItems(Filter.create(), null);
+        assertEquals(source, collection.getItems());
+        //the reduced items can be modified
+        collection.getItems().clear();
+        assertTrue(collection.getItems().isEmpty());
+    }
+
+    @Test
+    void reducesItemsOfEachSourceListKind(){
+        List<TestItem> source = TestItem.random(new Random(3), 500);
+        for(Function<List<TestItem>,List<TestItem>> kind : LIST_KINDS){
+            List<TestItem> sourceList = kind.apply(source);
+            for(Filter filter : filters()){
+                for(Pagination pagination : paginations()){
+                    Pagination expectedPagination = copy(pagination);
+                    List<TestItem> expected = expected(source, filter, expectedPagination);
+                    TestItemCollection collection = new TestItemCollection(new ArrayList<TestItem>());
+                    Pagination actualPagination = copy(pagination);
+                    collection.reduceItems(sourceList, filter, actualPagination);
+                    assertEquals(expected, collection.getItems(), sourceList.getClass() + " " + filter + " " + pagination);
+                    assertSameTotals(expectedPagination, actualPagination);
+                    //the source list is not modified
+                    assertEquals(source, sourceList);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.reactive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import de.skotstein.lib.spring.restfulspring.model.entities.ResourceCollection;
+import de.skotstein.lib.spring.restfulspring.util.Filter;
+import de.skotstein.lib.spring.restfulspring.util.Pagination;
+import de.skotstein.lib.spring.restfulspring.util.TestItem;
+import reactor.core.publisher.Flux;
+
+class ReactiveResourceCollectionTest {
+
+    static class TestItemCollection extends ResourceCollection<TestItem> {
+
+        List<TestItem> getItems(){
+            return items;
+        }
+    }
+
+    private static final Integer[] STARTS = {0, 1, 5, 99, 100, 150, -1, -5, Integer.MAX_VALUE, Integer.MIN_VALUE};
+    private static final Integer[] LIMITS = {null, 0, 1, 10, 200, -1, -3, Integer.MAX_VALUE, Integer.MIN_VALUE};
+
+    @Test
+    void filtersLikeFilter(){
+        List<TestItem> source = TestItem.random(new Random(1), 2000);
+        for(Filter filter : TestItem.filters()){
+            List<TestItem> expected = filter.filter(source);
+            assertEquals(expected, Flux.fromIterable(source).transform(ReactiveResourceCollection.<TestItem>filter(filter)).collectList().block(),
+                filter.getQueryParameter().toString());
+        }
+        assertEquals(source, Flux.fromIterable(source).transform(ReactiveResourceCollection.<TestItem>filter(null)).collectList().block());
+    }
+
+    @Test
+    void paginatesLikeLists(){
+        List<TestItem> source = TestItem.random(new Random(2), 100);
+        for(Integer start : STARTS){
+            for(Integer limit : LIMITS){
+                for(boolean exactTotals : new boolean[]{true, false}){
+                    Pagination expectedPagination = Pagination.of(start, limit);
+                    List<TestItem> expected = new ArrayList<TestItem>();
+                    for(int i = 0; i < source.size(); i++){
+                        if(!expectedPagination.skipItem(i)){
+                            expected.add(source.get(i));
+                        }
+                    }
+                    Pagination pagination = Pagination.of(start, limit).withExactTotals(exactTotals);
+                    AtomicInteger emitted = new AtomicInteger();
+                    AtomicLong requested = new AtomicLong();
+                    Flux<TestItem> items = Flux.fromIterable(source).doOnRequest(n -> requested.addAndGet(n)).doOnNext(item -> emitted.incrementAndGet());
+                    String message = start + " " + limit + " " + exactTotals;
+                    assertEquals(expected, items.transform(ReactiveResourceCollection.<TestItem>paginate(pagination)).collectList().block(), message);
+                    assertEquals(expectedPagination.getItemsBefore(), pagination.getItemsBefore(), message);
+                    if(exactTotals){
+                        assertEquals(expectedPagination.getItemsAfter(), pagination.getItemsAfter(), message);
+                        assertEquals(source.size(), emitted.get(), message);
+                    }else{
+                        //the source is asked for the items up to the item following the range only
+                        assertEquals(Math.min(1, expectedPagination.getItemsAfter()), pagination.getItemsAfter(), message);
+                        assertEquals(Math.min(source.size(), pagination.getRequiredItems()), emitted.get(), message);
+                        if(pagination.getRequiredItems() != Integer.MAX_VALUE){
+                            assertTrue(requested.get() <= pagination.getRequiredItems(), message);
+                        }
+                    }
+                }
+            }
+        }
+        assertEquals(source, Flux.fromIterable(source).transform(ReactiveResourceCollection.<TestItem>paginate(null)).collectList().block());
+    }
+
+    @Test
+    void collectsFilteredAndPaginatedItems(){
+        List<TestItem> source = TestItem.random(new Random(3), 500);
+        Filter filter = Filter.create().add("active", true);
+        List<TestItem> matches = filter.filter(source);
+        TestItemCollection collection = new TestItemCollection();
+        collection.addHyperlink("self", "/items");
+        TestItemCollection collected = ReactiveResourceCollection.of(collection, Flux.fromIterable(source)).withFilter(filter).withPagination(Pagination.of(10, 5)).collect().block();
+        assertSame(collection, collected);
+        assertEquals(matches.subList(10, 15), collected.getItems());
+        assertEquals("/items?active=true&start=5&limit=5", collected.getHyperlink("previous").getHref());
+        assertEquals("/items?active=true&start=15&limit=5", collected.getHyperlink("next").getHref());
+
+        //the items are emitted without writing the collection
+        TestItemCollection unwritten = new TestItemCollection();
+        assertEquals(matches.subList(0, 3), ReactiveResourceCollection.of(unwritten, Flux.fromIterable(source)).withFilter(filter).withPagination(Pagination.of(-2, 5)).items().collectList().block());
+        assertTrue(unwritten.getItems().isEmpty());
+    }
+
+    @Test
+    void signalsErrorWithoutSelfHyperlink(){
+        List<TestItem> source = TestItem.random(new Random(4), 50);
+        TestItemCollection collection = new TestItemCollection();
+        assertThrows(RuntimeException.class, () -> ReactiveResourceCollection.of(collection, Flux.fromIterable(source)).withPagination(Pagination.of(0, 5)).collect().block());
+        //without pagination, no hyperlinks are added
+        TestItemCollection collected = ReactiveResourceCollection.of(collection, Flux.fromIterable(source)).collect().block();
+        assertEquals(source, collected.getItems());
+        assertFalse(collected.hasHyperlink("next"));
+        assertThrows(RuntimeException.class, () -> ReactiveResourceCollection.of(null, Flux.fromIterable(source)));
+    }
+}
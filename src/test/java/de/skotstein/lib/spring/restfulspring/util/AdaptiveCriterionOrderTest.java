@@ -0,0 +1,92 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveCriterionOrderTest {
+
+    private static Filter adaptive(){
+        //criteria of different costs and selectivities, hence the learned order differs from the original order
+        return Filter.create().add("name", "a").add("size", "between:-2..3", Filter.RhsNumericFilterMethod()).add("active", true)
+            .withEvaluationMode(FilterEvaluationMode.ADAPTIVE);
+    }
+
+    private static Filter adaptive(Filter filter){
+        Filter adaptiveFilter = Filter.create().withEvaluationMode(FilterEvaluationMode.ADAPTIVE);
+        for(FilterCriterion criterion : filter.getItemsAsReadOnly()){
+            adaptiveFilter.add(criterion);
+        }
+        return adaptiveFilter;
+    }
+
+    @Test
+    void filtersLikeExhaustiveEvaluationWhileReordering(){
+        List<TestItem> items = TestItem.random(new Random(1), 20000);
+        Filter adaptive = adaptive();
+        List<TestItem> expected = Filter.create().add("name", "a").add("size", "between:-2..3", Filter.RhsNumericFilterMethod()).add("active", true).filter(items);
+        //each round samples about 300 evaluations, i.e., the criteria are reordered repeatedly
+        for(int round = 0; round < 10; round++){
+            assertEquals(expected, adaptive.filter(items));
+            assertEquals(expected.size(), adaptive.count(items));
+        }
+        CompiledFilter<TestItem> compiledFilter = adaptive.compile(TestItem.class);
+        for(TestItem item : items){
+            assertEquals(expected.contains(item), compiledFilter.test(item));
+        }
+    }
+
+    @Test
+    void filtersLikeExhaustiveEvaluationConcurrently() throws Exception{
+        List<TestItem> items = TestItem.random(new Random(2), 5000);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try{
+            for(Filter filter : TestItem.filters()){
+                List<TestItem> expected = filter.filter(items);
+                List<Future<List<TestItem>>> results = new ArrayList<Future<List<TestItem>>>();
+                for(int i = 0; i < 16; i++){
+                    //each task compiles the filter, i.e., the tasks share the statistics of the filter structure
+                    results.add(executor.submit(() -> adaptive(filter).filter(items)));
+                }
+                for(Future<List<TestItem>> result : results){
+                    assertEquals(expected, result.get(), filter.getQueryParameter().toString());
+                }
+            }
+        }finally{
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void boundsNumberOfStructures(){
+        for(int i = 0; i < 600; i++){
+            Filter.create().add("name" + i, "a").add("active", true).withEvaluationMode(FilterEvaluationMode.ADAPTIVE).compile(TestItem.class);
+            //at most 256 structures are kept
+            assertTrue(AdaptiveCriterionOrder.getStructureCount() <= 256);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class CaseInsensitiveMatcherTest {
+
+    /**
+     * Characters whose lower case form does not depend on their context, including non-ASCII and title case (U+01C5) characters as well as the micro sign (U+00B5),
+     * whose upper case form is a Greek letter
+     */
+    private static final String ALPHABET = "aAbBzZ 1.äÄöÖßẞéÉǅǄǆµçÇK";
+
+    /**
+     * Characters whose folded form shares a bucket of the skip table, i.e., characters differing by a multiple of 256 (e.g., 'a' and U+0161)
+     */
+    private static final String COLLIDING = "aAšŠšabqő";
+
+    /**
+     * The former implementation of {@link DefaultStringFilterMethod}
+     */
+    private static boolean lowerCaseContains(String value, String needle){
+        return value.trim().toLowerCase(Locale.ROOT).contains(needle.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private static String random(Random random, String alphabet, int maxLength){
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder string = new StringBuilder();
+        for(int i = 0; i < length; i++){
+            string.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return string.toString();
+    }
+
+    private static void assertMatchesLikeLowerCaseContains(String value, String needle){
+        boolean expected = lowerCaseContains(value, needle);
+        assertEquals(expected, new CaseInsensitiveMatcher(needle).matches(value), "'" + value + "' '" + needle + "'");
+        assertEquals(expected, CaseInsensitiveMatcher.contains(value, needle), "'" + value + "' '" + needle + "'");
+    }
+
+    @Test
+    void matchesLikeLowerCaseContains(){
+        Random random = new Random(1);
+        for(int i = 0; i < 200000; i++){
+            String value = random(random, ALPHABET, 12);
+            String needle = random.nextInt(4) == 0 ? value.substring(random.nextInt(value.length() + 1)) : random(random, ALPHABET, 4);
+            assertMatchesLikeLowerCaseContains(value, needle);
+        }
+    }
+
+    @Test
+    void matchesLikeLowerCaseContainsWithCollidingCharacters(){
+        Random random = new Random(2);
+        for(int i = 0; i < 200000; i++){
+            assertMatchesLikeLowerCaseContains(random(random, COLLIDING, 16), random(random, COLLIDING, 6));
+        }
+        //a shift computed for 'a' must not skip the occurrence of 'š'
+        assertTrue(new CaseInsensitiveMatcher("šab").matches("aaŠAB"));
+        assertTrue(new CaseInsensitiveMatcher("aš").matches("šššaŠ"));
+        assertFalse(new CaseInsensitiveMatcher("aš").matches("šššaa"));
+    }
+
+    @Test
+    void matchesEmptyAndLongNeedles(){
+        assertTrue(new CaseInsensitiveMatcher("").matches(""));
+        assertTrue(new CaseInsensitiveMatcher("   ").matches("abc"));
+        assertTrue(CaseInsensitiveMatcher.contains("abc", " "));
+        assertTrue(new CaseInsensitiveMatcher(" B ").matches("abc"));
+        assertFalse(new CaseInsensitiveMatcher("abcd").matches("abc"));
+        assertFalse(CaseInsensitiveMatcher.contains("abc", "ABCD"));
+        assertFalse(new CaseInsensitiveMatcher("a").matches(""));
+        assertTrue(new CaseInsensitiveMatcher("ABC").matches("xabc"));
+        assertEquals("straße", new CaseInsensitiveMatcher(" STRAẞE ").getFoldedNeedle());
+    }
+
+    @Test
+    void foldsCharactersIndependentlyOfTheirContext(){
+        //the lower case form of a string depends on the context of some characters, whereas characters are folded one by one
+        assertFalse(lowerCaseContains("ΟΔΟΣ", "σ"));
+        assertTrue(new CaseInsensitiveMatcher("σ").matches("ΟΔΟΣ"));
+        assertTrue(new CaseInsensitiveMatcher("ς").matches("οδοσ"));
+        assertFalse(lowerCaseContains("İSTANBUL", "ist"));
+        assertTrue(new CaseInsensitiveMatcher("ist").matches("İSTANBUL"));
+        //the micro sign and the Greek letter mu share their upper case form
+        assertFalse(lowerCaseContains("10µm", "μ"));
+        assertTrue(new CaseInsensitiveMatcher("μ").matches("10µm"));
+        //the folded form does not depend on the default locale
+        Locale defaultLocale = Locale.getDefault();
+        try{
+            Locale.setDefault(new Locale("tr"));
+            assertTrue(new CaseInsensitiveMatcher("I").matches("istanbul"));
+            assertTrue(CaseInsensitiveMatcher.contains("ISTANBUL", "i"));
+        }finally{
+            Locale.setDefault(defaultLocale);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ColumnarSnapshotTest {
+
+    public static class FailingItem {
+
+        private final Long value;
+
+        public FailingItem(Long value){
+            this.value = value;
+        }
+
+        @Filterable(query = "value")
+        public Long getValue(){
+            if(value == 13L){
+                throw new IllegalStateException("unlucky");
+            }
+            return value;
+        }
+    }
+
+    private static void assertSameResults(List<TestItem> expected, List<TestItem> actual){
+        for(Filter filter : TestItem.filters()){
+            List<TestItem> expectedResults = filter.filter(expected);
+            assertEquals(expectedResults, filter.filter(actual), filter.getQueryParameter().toString());
+            assertEquals(expectedResults.size(), filter.count(actual), filter.getQueryParameter().toString());
+            assertEquals(expectedResults.subList(0, Math.min(3, expectedResults.size())), filter.filter(actual, 3), filter.getQueryParameter().toString());
+        }
+    }
+
+    @Test
+    void filtersLikeArrayList(){
+        List<TestItem> items = TestItem.random(new Random(1), 2000);
+        assertSameResults(items, new ColumnarSnapshot<TestItem>(items));
+    }
+
+    @Test
+    void filtersLikeArrayListAfterModifications(){
+        Random random = new Random(2);
+        List<TestItem> items = TestItem.random(random, 300);
+        for(int step = 0; step < 30; step++){
+            switch(random.nextInt(3)){
+                case 0:
+                    items.add(random.nextInt(items.size() + 1), TestItem.random(random));
+                    break;
+                case 1:
+                    items.remove(random.nextInt(items.size()));
+                    break;
+                default:
+                    items.set(random.nextInt(items.size()), TestItem.random(random));
+            }
+            //the snapshot does not reflect modifications of its source, a new snapshot is created instead
+            assertSameResults(items, new ColumnarSnapshot<TestItem>(items));
+        }
+    }
+
+    @Test
+    void isImmutable(){
+        List<TestItem> items = TestItem.random(new Random(3), 10);
+        ColumnarSnapshot<TestItem> snapshot = new ColumnarSnapshot<TestItem>(items);
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(TestItem.random(new Random(4))));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.remove(0));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.set(0, TestItem.random(new Random(5))));
+        items.clear();
+        assertEquals(10, snapshot.size());
+        assertThrows(NullPointerException.class, () -> new ColumnarSnapshot<TestItem>(Arrays.asList(TestItem.random(new Random(6)), null)));
+    }
+
+    @Test
+    void treatsFailingGettersLikeArrayList(){
+        List<FailingItem> items = new ArrayList<FailingItem>();
+        for(long value = 0; value < 100; value++){
+            items.add(new FailingItem(value % 20));
+        }
+        ColumnarSnapshot<FailingItem> snapshot = new ColumnarSnapshot<FailingItem>(items);
+        List<Filter> filters = Arrays.asList(
+            Filter.create().add("value", 13L),
+            Filter.create().add("value", 5L),
+            Filter.create().add("value", "gt:10", Filter.RhsNumericFilterMethod()),
+            Filter.create().add("value", null));
+        for(Filter filter : filters){
+            assertEquals(filter.filter(items), filter.filter(snapshot), filter.getQueryParameter().toString());
+        }
+    }
+}
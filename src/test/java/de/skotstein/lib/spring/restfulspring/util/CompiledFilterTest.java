@@ -0,0 +1,122 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class CompiledFilterTest {
+
+    private static List<Filter> filters(){
+        List<Filter> filters = new ArrayList<Filter>(TestItem.filters());
+        //criteria that are not applicable to the items
+        filters.add(Filter.create().add("name", "a", String.class).add("count", 5L));
+        filters.add(Filter.create().add("unknown", "a").add("active", true));
+        filters.add(Filter.create().add("name", "", Filter.AlwaysMatchFilterMethod()).add("name", "e"));
+        filters.add(Filter.create());
+        return filters;
+    }
+
+    private static Filter copy(Filter filter, FilterEvaluationMode evaluationMode){
+        Filter copy = Filter.create().withEvaluationMode(evaluationMode);
+        for(FilterCriterion criterion : filter.getItemsAsReadOnly()){
+            copy.add(criterion);
+        }
+        return copy;
+    }
+
+    @Test
+    void matchesLikeInterpretedFilterInEachMode(){
+        List<TestItem> items = TestItem.random(new Random(1), 20000);
+        for(Filter filter : filters()){
+            for(FilterEvaluationMode evaluationMode : FilterEvaluationMode.values()){
+                Filter interpreted = copy(filter, evaluationMode);
+                CompiledFilter<TestItem> bound = interpreted.compile(TestItem.class);
+                CompiledFilter<TestItem> unbound = interpreted.compile(null);
+                List<TestItem> expected = new ArrayList<TestItem>();
+                for(TestItem item : items){
+                    boolean match = interpreted.filter(item);
+                    String message = evaluationMode + " " + filter.getQueryParameter();
+                    assertEquals(match, bound.test(item), message);
+                    assertEquals(match, unbound.test(item), message);
+                    if(match){
+                        expected.add(item);
+                    }
+                }
+                assertEquals(expected, bound.filter(items));
+                assertEquals(expected, interpreted.filter(items));
+                assertEquals(expected.size(), bound.count(items));
+                assertEquals(!expected.isEmpty(), bound.anyMatch(items));
+            }
+        }
+    }
+
+    @Test
+    void countsLikeFilterOnEachListKind(){
+        List<TestItem> source = TestItem.random(new Random(4), 3000);
+        //filters matching no item, i.e., anyMatch scans all items
+        List<Filter> filters = filters();
+        filters.add(Filter.create().add("name", "Alpha1x"));
+        filters.add(Filter.create().add("count", 1000L).add("active", true));
+        for(List<TestItem> items : Arrays.asList(source, new LinkedList<TestItem>(source),
+                new IndexedList<TestItem>(source).withHashIndex("count").withBitmapIndex("active").withSortedIndex("size").withTrigramIndex("name").withIpAddressIndex("ip"),
+                new ColumnarSnapshot<TestItem>(source))){
+            for(Filter filter : filters){
+                for(FilterEvaluationMode evaluationMode : FilterEvaluationMode.values()){
+                    Filter copy = copy(filter, evaluationMode);
+                    int expected = copy.filter(new ArrayList<TestItem>(source)).size();
+                    String message = items.getClass().getSimpleName() + " " + evaluationMode + " " + filter.getQueryParameter();
+                    assertEquals(expected, copy.filter(items).size(), message);
+                    assertEquals(expected, copy.count(items), message);
+                    assertEquals(expected > 0, copy.anyMatch(items), message);
+                    assertEquals(expected, copy.compile(TestItem.class).count(items), message);
+                }
+            }
+        }
+        assertEquals(0, Filter.create().add("active", true).count(new ArrayList<TestItem>()));
+        assertFalse(Filter.create().anyMatch(new ArrayList<TestItem>()));
+    }
+
+    @Test
+    void isNotAffectedByChangesOfTheFilter(){
+        List<TestItem> items = TestItem.random(new Random(2), 1000);
+        Filter filter = Filter.create().add("active", true);
+        CompiledFilter<TestItem> compiledFilter = filter.compile(TestItem.class);
+        List<TestItem> expected = filter.filter(items);
+        filter.add("count", 5L).withEvaluationMode(FilterEvaluationMode.SHORT_CIRCUIT);
+        assertEquals(expected, compiledFilter.filter(items));
+        assertTrue(filter.filter(items).size() < expected.size());
+    }
+
+    @Test
+    void rejectsInvalidCriteria(){
+        assertThrows(RuntimeException.class, () -> Filter.create().add("", "a").compile(TestItem.class));
+        assertThrows(RuntimeException.class, () -> Filter.create().add("name", "a").compile(TestItem.class).test(null));
+        //criteria without a value always match
+        assertTrue(Filter.create().add("name", null).compile(TestItem.class).test(TestItem.random(new Random(3))));
+    }
+}
@@ -0,0 +1,142 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.BitSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class CompressedBitmapTest {
+
+    private static void assertSameBits(BitSet expected, CompressedBitmap actual){
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        BitSet iterated = new BitSet();
+        int previous = -1;
+        for(PrimitiveIterator.OfInt iterator = actual.iterator(); iterator.hasNext();){
+            int value = iterator.nextInt();
+            assertTrue(value > previous, "values must be ascending");
+            previous = value;
+            iterated.set(value);
+        }
+        assertEquals(expected, iterated);
+        BitSet visited = new BitSet();
+        actual.forEach(visited::set);
+        assertEquals(expected, visited);
+    }
+
+    /**
+     * Returns random bits spanning several chunks, the density of each chunk is chosen randomly so that both array and bitmap containers are created
+     */
+    private static BitSet randomBits(Random random){
+        BitSet bits = new BitSet();
+        for(int chunk = 0; chunk < 4; chunk++){
+            double density = new double[]{0, 0.0005, 0.05, 0.5, 0.99}[random.nextInt(5)];
+            for(int i = 0; i < 65536; i++){
+                if(random.nextDouble() < density){
+                    bits.set(chunk * 65536 + i);
+                }
+            }
+        }
+        return bits;
+    }
+
+    @Test
+    void convertsContainersWhileAddingAndRemoving(){
+        CompressedBitmap bitmap = new CompressedBitmap();
+        BitSet expected = new BitSet();
+        //exceeding the limit of an array container converts it into a bitmap container
+        for(int value = 0; value < CompressedBitmap.ARRAY_LIMIT + 100; value++){
+            bitmap.add(value * 3);
+            expected.set(value * 3);
+        }
+        assertSameBits(expected, bitmap);
+        //removing most values converts it back
+        for(int value = 0; value < CompressedBitmap.ARRAY_LIMIT; value++){
+            bitmap.remove(value * 3);
+            expected.clear(value * 3);
+        }
+        assertSameBits(expected, bitmap);
+        for(int value = 0; value < CompressedBitmap.ARRAY_LIMIT + 100; value++){
+            assertEquals(expected.get(value * 3), bitmap.contains(value * 3));
+            assertFalse(bitmap.contains(value * 3 + 1));
+        }
+        //removing all values removes the container
+        for(int value = CompressedBitmap.ARRAY_LIMIT; value < CompressedBitmap.ARRAY_LIMIT + 100; value++){
+            bitmap.remove(value * 3);
+        }
+        assertTrue(bitmap.isEmpty());
+    }
+
+    @Test
+    void addsAndRemovesRandomValues(){
+        Random random = new Random(1);
+        CompressedBitmap bitmap = new CompressedBitmap();
+        BitSet expected = new BitSet();
+        for(int i = 0; i < 200000; i++){
+            //values are concentrated in a few chunks so that containers change their kind repeatedly
+            int value = random.nextInt(3) * 65536 + random.nextInt(random.nextBoolean() ? 9000 : 65536);
+            if(random.nextInt(3) == 0){
+                bitmap.remove(value);
+                expected.clear(value);
+            }else{
+                bitmap.add(value);
+                expected.set(value);
+            }
+        }
+        assertSameBits(expected, bitmap);
+    }
+
+    @Test
+    void combinesBitmapsLikeBitSets(){
+        Random random = new Random(2);
+        for(int run = 0; run < 20; run++){
+            BitSet left = randomBits(random);
+            BitSet right = randomBits(random);
+            CompressedBitmap leftBitmap = CompressedBitmap.of(left);
+            CompressedBitmap rightBitmap = CompressedBitmap.of(right);
+            assertSameBits(left, leftBitmap);
+
+            BitSet and = (BitSet)left.clone();
+            and.and(right);
+            assertSameBits(and, leftBitmap.and(rightBitmap));
+            BitSet or = (BitSet)left.clone();
+            or.or(right);
+            assertSameBits(or, leftBitmap.or(rightBitmap));
+            BitSet andNot = (BitSet)left.clone();
+            andNot.andNot(right);
+            assertSameBits(andNot, leftBitmap.andNot(rightBitmap));
+            //operands are not modified
+            assertSameBits(left, leftBitmap);
+            assertSameBits(right, rightBitmap);
+        }
+    }
+
+    @Test
+    void createsRanges(){
+        BitSet expected = new BitSet();
+        expected.set(0, 200000);
+        assertSameBits(expected, CompressedBitmap.range(200000));
+        assertTrue(CompressedBitmap.range(0).isEmpty());
+    }
+}
@@ -0,0 +1,175 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+class CursorPaginationTest {
+
+    private static final byte[] KEY = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Returns random items sorted by their unique count
+     */
+    private static List<TestItem> sortedItems(){
+        Random random = new Random(1);
+        List<TestItem> items = new ArrayList<TestItem>();
+        for(long count = 0; count < 100; count++){
+            TestItem item = TestItem.random(random);
+            items.add(new TestItem(item.getName(), count * 2, item.getSize(), random.nextBoolean(), item.getIp()));
+        }
+        return items;
+    }
+
+    private static CursorPagination pagination(String cursor, Integer limit, boolean signed){
+        CursorPagination pagination = CursorPagination.of(cursor, limit);
+        return signed ? pagination.withSigningKey(KEY) : pagination;
+    }
+
+    private static void assertBadRequest(CursorPagination pagination, List<TestItem> items, Filter filter){
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> pagination.paginate(items, TestItem::getCount, filter));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    private static void traversesAllPages(boolean signed){
+        List<TestItem> items = sortedItems();
+        Filter filter = Filter.create().add("active", true);
+        List<TestItem> expected = filter.filter(items);
+
+        //forward traversal
+        List<List<TestItem>> pages = new ArrayList<List<TestItem>>();
+        List<String> cursors = new ArrayList<String>();
+        String cursor = null;
+        do{
+            CursorPagination pagination = pagination(cursor, 7, signed);
+            pages.add(pagination.paginate(items, TestItem::getCount, filter));
+            assertEquals(cursor == null, pagination.getPreviousCursor() == null);
+            cursors.add(pagination.getPreviousCursor());
+            cursor = pagination.getNextCursor();
+        }while(cursor != null);
+        List<TestItem> traversed = new ArrayList<TestItem>();
+        for(List<TestItem> page : pages){
+            assertTrue(page.size() <= 7);
+            traversed.addAll(page);
+        }
+        assertEquals(expected, traversed);
+        assertEquals((expected.size() + 6) / 7, pages.size());
+
+        //backward traversal from the last page reproduces the pages
+        for(int p = pages.size() - 1; p > 0; p--){
+            CursorPagination pagination = pagination(cursors.get(p), 7, signed);
+            assertEquals(pages.get(p - 1), pagination.paginate(items, TestItem::getCount, filter));
+            assertNotNull(pagination.getNextCursor());
+        }
+    }
+
+    @Test
+    void traversesAllPagesWithoutSigningKey(){
+        traversesAllPages(false);
+    }
+
+    @Test
+    void traversesAllPagesWithSigningKey(){
+        traversesAllPages(true);
+    }
+
+    @Test
+    void resumesAfterModifications(){
+        List<TestItem> items = sortedItems();
+        CursorPagination first = CursorPagination.of(null, 10).withVersion(1);
+        List<TestItem> page = first.paginate(items, TestItem::getCount, null);
+        //removing the last item of the page does not shift the next page
+        TestItem following = items.get(10);
+        items.remove(9);
+        CursorPagination second = CursorPagination.of(first.getNextCursor(), 10).withVersion(2);
+        assertEquals(following, second.paginate(items, TestItem::getCount, null).get(0));
+        assertTrue(second.isOutdated());
+        CursorPagination current = CursorPagination.of(first.getNextCursor(), 10).withVersion(1);
+        current.paginate(items, TestItem::getCount, null);
+        assertFalse(current.isOutdated());
+        assertEquals(10, page.size());
+    }
+
+    @Test
+    void takesLimitFromCursor(){
+        List<TestItem> items = sortedItems();
+        CursorPagination first = CursorPagination.of(null, 5);
+        first.paginate(items, TestItem::getCount, null);
+        CursorPagination second = CursorPagination.of(first.getNextCursor(), null);
+        assertEquals(items.subList(5, 10), second.paginate(items, TestItem::getCount, null));
+        assertEquals(5, second.getLimit());
+    }
+
+    @Test
+    void rejectsInvalidCursors(){
+        List<TestItem> items = sortedItems();
+        Filter filter = Filter.create().add("active", true);
+        CursorPagination signed = pagination(null, 5, true);
+        signed.paginate(items, TestItem::getCount, filter);
+        String signedCursor = signed.getNextCursor();
+        CursorPagination unsigned = pagination(null, 5, false);
+        unsigned.paginate(items, TestItem::getCount, filter);
+        String unsignedCursor = unsigned.getNextCursor();
+
+        //the cursors are valid
+        pagination(signedCursor, 5, true).paginate(items, TestItem::getCount, filter);
+        pagination(unsignedCursor, 5, false).paginate(items, TestItem::getCount, filter);
+
+        //tampered cursors
+        char[] tampered = signedCursor.toCharArray();
+        tampered[3] = tampered[3] == 'A' ? 'B' : 'A';
+        assertBadRequest(pagination(new String(tampered), 5, true), items, filter);
+        String forged = unsigned.encode(true, 50L);
+        assertBadRequest(pagination(forged, 5, true), items, filter);
+        assertBadRequest(pagination(forged + "." + signedCursor.substring(signedCursor.indexOf('.') + 1), 5, true), items, filter);
+        assertBadRequest(pagination(signedCursor, 5, false), items, filter);
+        assertBadRequest(pagination("not a cursor", 5, false), items, filter);
+        assertBadRequest(pagination("bm90IGEgY3Vyc29y", 5, false), items, filter);
+        //cursors signed with another key
+        assertBadRequest(CursorPagination.of(signedCursor, 5).withSigningKey("another key".getBytes(StandardCharsets.UTF_8)), items, filter);
+        //other filters
+        assertBadRequest(pagination(signedCursor, 5, true), items, Filter.create().add("active", false));
+        assertBadRequest(pagination(signedCursor, 5, true), items, null);
+        assertBadRequest(pagination(unsignedCursor, 5, false), items, Filter.create().add("active", true).add("count", 4L));
+        //other limits
+        assertBadRequest(pagination(signedCursor, 6, true), items, filter);
+        assertBadRequest(pagination(unsignedCursor, 50, false), items, filter);
+    }
+
+    @Test
+    void returnsSinglePageWithoutLimit(){
+        List<TestItem> items = sortedItems();
+        CursorPagination pagination = CursorPagination.of(null, null);
+        assertEquals(items, pagination.paginate(items, TestItem::getCount, null));
+        assertNull(pagination.getNextCursor());
+        assertNull(pagination.getPreviousCursor());
+    }
+}
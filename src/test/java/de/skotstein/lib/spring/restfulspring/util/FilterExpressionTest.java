@@ -0,0 +1,184 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+class FilterExpressionTest {
+
+    private static final String[] COMPARISONS = {
+        "count eq 5", "count ne 5", "count gt 20", "count lte 3", "count eq null", "size gte 0", "size lt -2", "size eq 2.0", "size gt 2.5",
+        "active eq true", "active ne false", "name contains 'al'", "name contains 'ÄRGER'", "name gt 'b'", "name eq null", "ip contains '10.1'", "ip eq '2001:db8::1'",
+        "missing eq 1"
+    };
+
+    /**
+     * Random expression together with a naive evaluation, which evaluates each comparison separately and combines the results in the order of the operands
+     */
+    private static final class RandomExpression {
+
+        private final String text;
+        private final Predicate<TestItem> naive;
+
+        RandomExpression(String text, Predicate<TestItem> naive){
+            this.text = text;
+            this.naive = naive;
+        }
+
+        static RandomExpression create(Random random, int depth){
+            int kind = depth == 0 ? 0 : random.nextInt(4);
+            switch(kind){
+                case 1:
+                    RandomExpression negated = create(random, depth - 1);
+                    return new RandomExpression("not (" + negated.text + ")", item -> !negated.naive.test(item));
+                case 2:
+                case 3:
+                    boolean conjunction = kind == 2;
+                    int count = 2 + random.nextInt(3);
+                    StringBuilder text = new StringBuilder();
+                    List<Predicate<TestItem>> operands = new ArrayList<Predicate<TestItem>>();
+                    for(int i = 0; i < count; i++){
+                        RandomExpression operand = create(random, depth - 1);
+                        if(i > 0){
+                            text.append(conjunction ? " AND " : " or ");
+                        }
+                        text.append('(').append(operand.text).append(')');
+                        operands.add(operand.naive);
+                    }
+                    return new RandomExpression(text.toString(), item -> {
+                        boolean result = conjunction;
+                        for(Predicate<TestItem> operand : operands){
+                            result = conjunction ? result & operand.test(item) : result | operand.test(item);
+                        }
+                        return result;
+                    });
+                default:
+                    FilterExpression comparison = FilterExpression.parse(COMPARISONS[random.nextInt(COMPARISONS.length)]);
+                    return new RandomExpression(comparison.toString(), comparison::test);
+            }
+        }
+    }
+
+    private static void assertBadRequest(String expression){
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> FilterExpression.parse(expression), expression);
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode(), expression);
+    }
+
+    @Test
+    void evaluatesComparisons(){
+        TestItem item = new TestItem("O'Brien", 5L, -3, true, "10.1.2.3");
+        assertTrue(FilterExpression.parse("count eq 5").test(item));
+        assertTrue(FilterExpression.parse("count eq 5.0").test(item));
+        assertTrue(FilterExpression.parse("size lt -2.5").test(item));
+        assertTrue(FilterExpression.parse("active eq true").test(item));
+        assertTrue(FilterExpression.parse("name eq 'O''Brien'").test(item));
+        assertTrue(FilterExpression.parse("name eq \"O'Brien\"").test(item));
+        assertTrue(FilterExpression.parse("name contains 'o''b'").test(item));
+        assertFalse(FilterExpression.parse("name eq 'o''brien'").test(item));
+        assertTrue(FilterExpression.parse("name gt 'N'").test(item));
+        assertFalse(FilterExpression.parse("count gt 'N'").test(item));
+        assertFalse(FilterExpression.parse("ip eq null").test(item));
+        //entities without the property match any comparison
+        assertTrue(FilterExpression.parse("missing eq 1").test(item));
+        assertTrue(FilterExpression.parse("  ").test(item));
+    }
+
+    @Test
+    void appliesPrecedence(){
+        TestItem item = new TestItem("a", 1L, 1, false, null);
+        //'and' binds stronger than 'or', 'not' binds stronger than 'and'
+        assertTrue(FilterExpression.parse("count eq 1 or count eq 2 and size eq 2").test(item));
+        assertFalse(FilterExpression.parse("(count eq 1 or count eq 2) and size eq 2").test(item));
+        assertTrue(FilterExpression.parse("not active eq true and count eq 1").test(item));
+        assertFalse(FilterExpression.parse("not (active eq false and count eq 1)").test(item));
+        assertEquals("count eq 1 or count eq 2 and size eq 2", FilterExpression.parse("COUNT EQ 1 OR (count eq 2 AND size eq 2)").toString());
+        assertEquals("(count eq 1 or count eq 2) and size eq 2", FilterExpression.parse("((count eq 1 or count eq 2)) and size eq 2").toString());
+        assertEquals("not (active eq false and name eq 'it''s')", FilterExpression.parse("not(active eq false and name eq \"it's\")").toString());
+    }
+
+    @Test
+    void rejectsMalformedExpressions(){
+        String[] expressions = {"count", "count eq", "eq 5", "count eq 5 and", "count eq 5 or or count eq 6", "(count eq 5", "count eq 5)", "count like 5",
+            "name eq 'unterminated", "name eq \"unterminated", "count eq 5 count eq 6", "not", "()", "count eq 1e", "count eq abc", "count eq 5 and ()"};
+        for(String expression : expressions){
+            assertBadRequest(expression);
+        }
+        assertBadRequest(null);
+    }
+
+    @Test
+    void rejectsExpressionsExceedingLimits(){
+        StringBuilder nested = new StringBuilder();
+        for(int i = 0; i < FilterExpression.MAX_DEPTH; i++){
+            nested.append('(');
+        }
+        nested.append("count eq 1");
+        for(int i = 0; i < FilterExpression.MAX_DEPTH; i++){
+            nested.append(')');
+        }
+        assertEquals("count eq 1", FilterExpression.parse(nested.toString()).toString());
+        assertBadRequest("(" + nested + ")");
+        assertBadRequest("not ".repeat(FilterExpression.MAX_DEPTH + 1) + "count eq 1");
+
+        String literal = "name eq '" + "x".repeat(FilterExpression.MAX_LENGTH - 10) + "'";
+        assertEquals(FilterExpression.MAX_LENGTH, literal.length());
+        FilterExpression.parse(literal);
+        assertBadRequest(literal + " ");
+    }
+
+    @Test
+    void plannedEvaluationEqualsNaiveEvaluation(){
+        Random random = new Random(1);
+        List<TestItem> items = TestItem.random(random, 1000);
+        IndexedList<TestItem> indexed = new IndexedList<TestItem>(items)
+            .withHashIndex("count")
+            .withSortedIndex("size")
+            .withBitmapIndex("active")
+            .withTrigramIndex("name");
+        ColumnarSnapshot<TestItem> snapshot = new ColumnarSnapshot<TestItem>(items);
+        for(int run = 0; run < 200; run++){
+            RandomExpression expression = RandomExpression.create(random, 3);
+            FilterExpression parsed = FilterExpression.parse(expression.text);
+            List<TestItem> expected = new ArrayList<TestItem>();
+            for(TestItem item : items){
+                assertEquals(expression.naive.test(item), parsed.test(item), expression.text);
+                if(expression.naive.test(item)){
+                    expected.add(item);
+                }
+            }
+            //the normalized form is equivalent to the expression
+            assertEquals(parsed.toString(), FilterExpression.parse(parsed.toString()).toString());
+            Filter filter = Filter.create().add("q", expression.text, Filter.ExpressionFilterMethod());
+            assertEquals(expected, filter.filter(items), expression.text);
+            assertEquals(expected, filter.filter(indexed), expression.text);
+            assertEquals(expected, filter.filter(snapshot), expression.text);
+            assertEquals(expected.size(), filter.count(indexed), expression.text);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class FilterResultCacheTest {
+
+    /**
+     * Custom filter method, which does not opt in to caching
+     */
+    static class PrefixFilterMethod extends FilterMethod {
+
+        @Override
+        protected boolean match(String queryParameterKey, Object queryParameterValue, Object entityValue) {
+            return entityValue instanceof String && ((String)entityValue).startsWith(String.valueOf(queryParameterValue));
+        }
+    }
+
+    /**
+     * Subclass of a built-in filter method, which inherits the method but not the signature
+     */
+    static class CustomStringFilterMethod extends DefaultStringFilterMethod {
+
+    }
+
+    @Test
+    void sharesResultsOfEquivalentFilters(){
+        IndexedList<TestItem> items = new IndexedList<TestItem>(TestItem.random(new Random(1), 500));
+        FilterResultCache<TestItem> cache = new FilterResultCache<TestItem>(items, 10);
+        Filter filter = Filter.create().add("count", 5L).add("size", "gt:3", Filter.RhsNumericFilterMethod());
+        List<TestItem> result = cache.filter(filter);
+        assertEquals(filter.filter(items), result);
+        //the order of the criteria does not matter
+        assertSame(result, cache.filter(Filter.create().add("size", "gt:3", Filter.RhsNumericFilterMethod()).add("count", 5L)));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        //other methods or values are not equivalent
+        cache.filter(Filter.create().add("count", 5L).add("size", "gte:3", Filter.RhsNumericFilterMethod()));
+        cache.filter(Filter.create().add("count", 5L).add("size", 3, Filter.GreaterThanFilterMethod()));
+        assertEquals(3, cache.getMisses());
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void discardsResultsOfModifiedLists(){
+        IndexedList<TestItem> items = new IndexedList<TestItem>(TestItem.random(new Random(2), 500));
+        FilterResultCache<TestItem> cache = new FilterResultCache<TestItem>(items, 10);
+        Filter filter = Filter.create().add("active", true);
+        cache.filter(filter);
+        items.add(new TestItem("new", 1L, 1, true, null));
+        assertEquals(filter.filter(items), cache.filter(filter));
+        assertEquals(2, cache.getMisses());
+        assertEquals(1, cache.getInvalidations());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedResults(){
+        ColumnarSnapshot<TestItem> items = new ColumnarSnapshot<TestItem>(TestItem.random(new Random(3), 100));
+        FilterResultCache<TestItem> cache = new FilterResultCache<TestItem>(items, 2);
+        cache.filter(Filter.create().add("count", 1L));
+        cache.filter(Filter.create().add("count", 2L));
+        cache.filter(Filter.create().add("count", 1L));
+        cache.filter(Filter.create().add("count", 3L));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        cache.filter(Filter.create().add("count", 1L));
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    void doesNotCacheMethodsWithoutSignature(){
+        assertNotNull(FilterResultCache.key(Filter.create().add("name", "a")));
+        assertNotNull(FilterResultCache.key(Filter.create().add("name", "a", new DefaultStringFilterMethod())));
+        assertNull(FilterResultCache.key(Filter.create().add("name", "a", new CustomStringFilterMethod())));
+        assertNull(FilterResultCache.key(Filter.create().add("name", "a", new PrefixFilterMethod())));
+
+        List<TestItem> source = TestItem.random(new Random(4), 100);
+        ColumnarSnapshot<TestItem> items = new ColumnarSnapshot<TestItem>(source);
+        FilterResultCache<TestItem> cache = new FilterResultCache<TestItem>(items, 10);
+        Filter filter = Filter.create().add("name", "Al", new PrefixFilterMethod());
+        assertEquals(filter.filter(source), cache.filter(filter));
+        assertEquals(filter.filter(source), cache.filter(filter));
+        assertEquals(0, cache.getHits() + cache.getMisses());
+        assertEquals(0, cache.size());
+    }
+}
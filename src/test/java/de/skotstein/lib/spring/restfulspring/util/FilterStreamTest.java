@@ -0,0 +1,100 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+class FilterStreamTest {
+
+    /**
+     * Iterator counting the items that have been pulled from the passed list
+     */
+    private static Iterator<TestItem> counting(List<TestItem> items, AtomicInteger pulled){
+        Iterator<TestItem> iterator = items.iterator();
+        return new Iterator<TestItem>(){
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public TestItem next() {
+                pulled.incrementAndGet();
+                return iterator.next();
+            }
+        };
+    }
+
+    /**
+     * Returns the number of items up to and including the passed number of matching items
+     */
+    private static int positionOf(List<TestItem> items, Filter filter, int matches){
+        int found = 0;
+        for(int i = 0; i < items.size(); i++){
+            if(filter.filter(items.get(i)) && ++found == matches){
+                return i + 1;
+            }
+        }
+        return items.size();
+    }
+
+    @Test
+    void streamsLikeFilter(){
+        List<TestItem> items = TestItem.random(new Random(1), 2000);
+        for(Filter filter : TestItem.filters()){
+            List<TestItem> expected = filter.filter(items);
+            String message = filter.getQueryParameter().toString();
+            assertEquals(expected, filter.stream(items.stream()).collect(Collectors.toList()), message);
+            assertEquals(expected, filter.stream(items.spliterator()).collect(Collectors.toList()), message);
+            assertEquals(expected, filter.stream(items.iterator()).collect(Collectors.toList()), message);
+            assertEquals(expected, filter.stream((Iterable<TestItem>)items).collect(Collectors.toList()), message);
+            assertEquals(expected, filter.compile(TestItem.class).stream(items.stream()).collect(Collectors.toList()), message);
+        }
+        assertEquals(items, Filter.create().stream(items.stream()).collect(Collectors.toList()));
+    }
+
+    @Test
+    void pullsItemsOnlyWhenConsumed(){
+        List<TestItem> items = TestItem.random(new Random(2), 2000);
+        Filter filter = Filter.create().add("active", true);
+        AtomicInteger pulled = new AtomicInteger();
+        Stream<TestItem> stream = filter.stream(counting(items, pulled));
+        //no item is pulled before a terminal operation
+        assertEquals(0, pulled.get());
+        assertEquals(filter.filter(items).subList(0, 3), stream.limit(3).collect(Collectors.toList()));
+        //the stream stops after the third matching item
+        assertEquals(positionOf(items, filter, 3), pulled.get());
+
+        AtomicInteger evaluated = new AtomicInteger();
+        filter.stream(items.stream().peek(item -> evaluated.incrementAndGet())).findFirst();
+        assertEquals(positionOf(items, filter, 1), evaluated.get());
+
+        evaluated.set(0);
+        assertEquals(filter.filter(items).size(), filter.stream(items.stream().peek(item -> evaluated.incrementAndGet())).count());
+        assertEquals(items.size(), evaluated.get());
+    }
+}
@@ -0,0 +1,83 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class FilterableListViewTest {
+
+    @Test
+    void reducesLikeFilterableList(){
+        List<TestItem> source = TestItem.random(new Random(1), 300);
+        for(Filter filter : TestItem.filters()){
+            for(Pagination pagination : new Pagination[]{Pagination.of(0, 5), Pagination.of(3, 10), Pagination.of(-2, 4), Pagination.of(20, null), Pagination.of(1000, 5)}){
+                Pagination expectedPagination = Pagination.of(pagination.getStart(), pagination.getLimit());
+                List<TestItem> expected = new ArrayList<TestItem>();
+                List<TestItem> matches = filter.filter(source);
+                for(int i = 0; i < matches.size(); i++){
+                    if(!expectedPagination.skipItem(i)){
+                        expected.add(matches.get(i));
+                    }
+                }
+                FilterableListView<TestItem> view = FilterableListView.of(source).reduce(filter).reduce(pagination);
+                assertEquals(expected, view, filter.getQueryParameter() + " " + pagination.getStart());
+                assertEquals(expectedPagination.getItemsBefore(), pagination.getItemsBefore());
+                assertEquals(expectedPagination.getItemsAfter(), pagination.getItemsAfter());
+            }
+        }
+    }
+
+    @Test
+    void returnsItselfForNullArguments(){
+        FilterableListView<TestItem> view = FilterableListView.of(TestItem.random(new Random(2), 10));
+        assertSame(view, view.reduce((Filter)null));
+        assertSame(view, view.reduce((Pagination)null));
+        assertThrows(IndexOutOfBoundsException.class, () -> view.get(10));
+        assertThrows(UnsupportedOperationException.class, () -> view.add(view.get(0)));
+    }
+
+    @Test
+    void deploysIntoItsSourceList(){
+        List<TestItem> source = TestItem.random(new Random(3), 10);
+        List<TestItem> expected = new ArrayList<TestItem>(source.subList(1, 2));
+        FilterableListView.of(source).reduce(Pagination.of(1, 1)).clearAndDeploy(source);
+        assertEquals(expected, source);
+
+        source = TestItem.random(new Random(4), 100);
+        Filter filter = Filter.create().add("active", true);
+        expected = filter.filter(source);
+        FilterableListView.of(source).reduce(filter).clearAndDeploy(source);
+        assertEquals(expected, source);
+    }
+
+    @Test
+    void deploysIntoOtherLists(){
+        List<TestItem> source = TestItem.random(new Random(5), 10);
+        List<TestItem> target = TestItem.random(new Random(6), 3);
+        FilterableListView.of(source).reduce(Pagination.of(2, 3)).clearAndDeploy(target);
+        assertEquals(source.subList(2, 5), target);
+        assertEquals(10, source.size());
+    }
+}
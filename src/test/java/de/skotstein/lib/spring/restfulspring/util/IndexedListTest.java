@@ -0,0 +1,128 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class IndexedListTest {
+
+    private static IndexedList<TestItem> indexed(List<TestItem> items){
+        return new IndexedList<TestItem>(items)
+            .withHashIndex("count")
+            .withSortedIndex("size")
+            .withBitmapIndex("active")
+            .withTrigramIndex("name")
+            .withIpAddressIndex("ip");
+    }
+
+    private static void assertSameResults(List<TestItem> expected, List<TestItem> actual){
+        for(Filter filter : TestItem.filters()){
+            List<TestItem> expectedResults = filter.filter(expected);
+            assertEquals(expectedResults, filter.filter(actual), filter.getQueryParameter().toString());
+            assertEquals(expectedResults.size(), filter.count(actual), filter.getQueryParameter().toString());
+            assertEquals(expectedResults.subList(0, Math.min(3, expectedResults.size())), filter.filter(actual, 3), filter.getQueryParameter().toString());
+        }
+    }
+
+    @Test
+    void filtersLikeArrayList(){
+        List<TestItem> items = TestItem.random(new Random(1), 2000);
+        assertSameResults(items, indexed(items));
+        //the filters must not be trivial
+        int nonEmpty = 0;
+        for(Filter filter : TestItem.filters()){
+            if(!filter.filter(items).isEmpty()){
+                nonEmpty++;
+            }
+        }
+        assertEquals(TestItem.filters().size(), nonEmpty);
+    }
+
+    @Test
+    void filtersLikeArrayListAfterModifications(){
+        Random random = new Random(2);
+        List<TestItem> expected = TestItem.random(random, 500);
+        IndexedList<TestItem> actual = indexed(expected);
+        expected = new ArrayList<TestItem>(expected);
+        for(int step = 0; step < 300; step++){
+            switch(random.nextInt(6)){
+                case 0:
+                    TestItem appended = TestItem.random(random);
+                    expected.add(appended);
+                    actual.add(appended);
+                    break;
+                case 1:
+                    int insertAt = random.nextInt(expected.size() + 1);
+                    TestItem inserted = TestItem.random(random);
+                    expected.add(insertAt, inserted);
+                    actual.add(insertAt, inserted);
+                    break;
+                case 2:
+                    if(!expected.isEmpty()){
+                        int removeAt = random.nextInt(expected.size());
+                        assertEquals(expected.remove(removeAt), actual.remove(removeAt));
+                    }
+                    break;
+                case 3:
+                    if(!expected.isEmpty()){
+                        int setAt = random.nextInt(expected.size());
+                        TestItem replacement = TestItem.random(random);
+                        assertEquals(expected.set(setAt, replacement), actual.set(setAt, replacement));
+                    }
+                    break;
+                case 4:
+                    if(!expected.isEmpty()){
+                        expected.remove(expected.size() - 1);
+                        actual.remove(actual.size() - 1);
+                    }
+                    break;
+                default:
+                    if(expected.size() > 10){
+                        int from = random.nextInt(expected.size() - 10);
+                        expected.subList(from, from + 5).clear();
+                        actual.subList(from, from + 5).clear();
+                    }
+            }
+            assertEquals(expected, actual);
+            if(step % 10 == 0){
+                assertSameResults(expected, actual);
+            }
+        }
+        assertSameResults(expected, actual);
+    }
+
+    @Test
+    void incrementsVersionOnModification(){
+        IndexedList<TestItem> items = indexed(TestItem.random(new Random(3), 10));
+        long version = items.getVersion();
+        items.add(TestItem.random(new Random(4)));
+        assertTrue(items.getVersion() != version);
+        version = items.getVersion();
+        items.remove(3);
+        assertTrue(items.getVersion() != version);
+        version = items.getVersion();
+        items.set(0, TestItem.random(new Random(5)));
+        assertTrue(items.getVersion() != version);
+    }
+}
@@ -0,0 +1,95 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+class IpAddressPatternTest {
+
+    @Test
+    void matchesIpV4Wildcards(){
+        assertTrue(IpAddressPattern.compile("192.168.*.*").matches("192.168.10.1"));
+        assertTrue(IpAddressPattern.compile("10.0").matches("10.0.200.3"));
+        assertTrue(IpAddressPattern.compile("10.*.1*.5").matches("10.7.42.5"));
+        assertTrue(IpAddressPattern.compile("10.0.0.01").matches(" 10.0.0.1 "));
+        assertFalse(IpAddressPattern.compile("192.168.*.*").matches("192.169.10.1"));
+        assertFalse(IpAddressPattern.compile("10.0.0.256").isSatisfiable());
+        assertFalse(IpAddressPattern.compile("10.0.0.256").matches("10.0.0.0"));
+    }
+
+    @Test
+    void matchesIpV4Cidr(){
+        IpAddressPattern pattern = IpAddressPattern.compile("10.0.0.0/8");
+        assertTrue(pattern.matches("10.255.0.1"));
+        assertFalse(pattern.matches("11.0.0.1"));
+        assertTrue(IpAddressPattern.compile("0.0.0.0/0").matches("255.255.255.255"));
+        assertTrue(IpAddressPattern.compile("192.168.1.7/32").matches("192.168.1.7"));
+        assertFalse(IpAddressPattern.compile("192.168.1.7/32").matches("192.168.1.6"));
+        //IP v4-mapped IP v6 addresses
+        assertTrue(pattern.matches("::ffff:10.1.2.3"));
+        assertTrue(pattern.matches("::ffff:a01:203"));
+        assertFalse(pattern.matches("::1"));
+    }
+
+    @Test
+    void matchesIpV6(){
+        assertTrue(IpAddressPattern.compile("2001:db8::/32").matches("2001:db8:1::5"));
+        assertFalse(IpAddressPattern.compile("2001:db8::/32").matches("2001:db9::5"));
+        assertTrue(IpAddressPattern.compile("2001:db8::1").matches("2001:0db8:0:0:0:0:0:1"));
+        assertFalse(IpAddressPattern.compile("2001:db8::1").matches("2001:db8::2"));
+        assertTrue(IpAddressPattern.compile("fe80:*::1").matches("fe80:abcd::1"));
+        assertTrue(IpAddressPattern.compile("::ffff:10.0.0.0/104").matches("::ffff:10.9.9.9"));
+        assertFalse(IpAddressPattern.compile("::ffff:10.0.0.0/104").matches("::ffff:11.9.9.9"));
+        assertFalse(IpAddressPattern.compile("::1").matches("0.0.0.1"));
+    }
+
+    @Test
+    void rejectsMalformedPatterns(){
+        String[] patterns = {"10.0.0.0/-1", "::1/-1", "10.0.0.0/+8", "10.0.0.0/", "10.0.0.0/33", "::1/129", "10.0.0.0/x",
+            "1.2.3.4.5", "10.a.0.0", "1::2::3", "1:2:3:4:5:6:7:8:9", "12345::", "::ffff:10.0.0.256", "10.0.0.256/8"};
+        for(String pattern : patterns){
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> IpAddressPattern.compile(pattern), pattern);
+            assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode(), pattern);
+        }
+        assertThrows(ResponseStatusException.class, () -> IpAddressPattern.compile(null));
+    }
+
+    @Test
+    void doesNotMatchUnparsableAddresses(){
+        String[] addresses = {"1.2.3.abc", "1.2.3", "256.0.0.1", "1::2::3", "not an address", "", "  "};
+        IpAddressPattern[] patterns = {IpAddressPattern.compile("*"), IpAddressPattern.compile("0.0.0.0/0"), IpAddressPattern.compile("::/0")};
+        for(IpAddressPattern pattern : patterns){
+            for(String address : addresses){
+                assertFalse(pattern.matches(address), address);
+            }
+        }
+    }
+
+    @Test
+    void filterMethodIgnoresUnparsableEntityAddresses(){
+        Filter filter = Filter.create().add("ip", "10.*", Filter.IpAddressFilterMethod());
+        assertTrue(filter.getItemsAsReadOnly().get(0).getMethod().match("ip", "10.*", "10.1.2.3"));
+        assertFalse(filter.getItemsAsReadOnly().get(0).getMethod().match("ip", "10.*", "1.2.3.abc"));
+    }
+}
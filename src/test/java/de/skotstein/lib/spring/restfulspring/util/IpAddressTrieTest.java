@@ -0,0 +1,168 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class IpAddressTrieTest {
+
+    private static long[] randomAddress(Random random, int width, List<long[]> known){
+        if(!known.isEmpty() && random.nextInt(3) == 0){
+            //derive the address from a known one so that addresses share prefixes
+            long[] base = known.get(random.nextInt(known.size()));
+            int bit = random.nextInt(width);
+            return bit < 64 ? new long[]{base[0] ^ (1L << (63 - bit)), base[1]} : new long[]{base[0], base[1] ^ (1L << (127 - bit))};
+        }
+        if(width == 32){
+            return new long[]{(random.nextLong() >>> 32) << 32, 0};
+        }
+        return new long[]{random.nextLong(), random.nextLong()};
+    }
+
+    private static long[] randomPattern(Random random, int width, List<long[]> known){
+        long[] value = known.isEmpty() ? randomAddress(random, width, known) : known.get(random.nextInt(known.size()));
+        long highMask;
+        long lowMask;
+        if(random.nextBoolean()){
+            //prefix mask
+            int length = random.nextInt(width + 1);
+            highMask = length == 0 ? 0 : -1L << (64 - Math.min(64, length));
+            lowMask = length <= 64 ? 0 : -1L << (128 - length);
+        }else{
+            //random bytes, like wildcards
+            highMask = 0;
+            lowMask = 0;
+            for(int b = 0; b < width / 8; b++){
+                if(random.nextBoolean()){
+                    if(b < 8){
+                        highMask |= 0xFFL << (56 - 8 * b);
+                    }else{
+                        lowMask |= 0xFFL << (120 - 8 * b);
+                    }
+                }
+            }
+        }
+        return new long[]{value[0] & highMask, value[1] & lowMask, highMask, lowMask};
+    }
+
+    private static void assertSameRows(Map<Integer,long[]> rows, IpAddressTrie trie, long[][] patterns){
+        BitSet expected = new BitSet();
+        for(Map.Entry<Integer,long[]> entry : rows.entrySet()){
+            boolean matches = true;
+            for(long[] pattern : patterns){
+                long[] address = entry.getValue();
+                matches &= ((address[0] ^ pattern[0]) & pattern[2]) == 0 && ((address[1] ^ pattern[1]) & pattern[3]) == 0;
+            }
+            if(matches){
+                expected.set(entry.getKey());
+            }
+        }
+        BitSet actual = new BitSet();
+        trie.collect(patterns, actual);
+        assertEquals(expected, actual);
+    }
+
+    private static void collectsLikeBruteForce(int width, long seed){
+        Random random = new Random(seed);
+        IpAddressTrie trie = new IpAddressTrie(width);
+        Map<Integer,long[]> rows = new HashMap<Integer,long[]>();
+        List<long[]> known = new ArrayList<long[]>();
+        for(int step = 0; step < 3000; step++){
+            if(rows.isEmpty() || random.nextInt(4) != 0){
+                int row = random.nextInt(2000);
+                if(!rows.containsKey(row)){
+                    long[] address = randomAddress(random, width, known);
+                    known.add(address);
+                    rows.put(row, address);
+                    trie.add(address[0], address[1], row);
+                }
+            }else{
+                List<Integer> present = new ArrayList<Integer>(rows.keySet());
+                int row = present.get(random.nextInt(present.size()));
+                long[] address = rows.remove(row);
+                trie.remove(address[0], address[1], row);
+            }
+            if(step % 20 == 0){
+                long[][] patterns = new long[random.nextInt(3)][];
+                for(int p = 0; p < patterns.length; p++){
+                    patterns[p] = randomPattern(random, width, known);
+                }
+                assertSameRows(rows, trie, patterns);
+            }
+        }
+        assertSameRows(rows, trie, new long[0][]);
+        trie.clear();
+        BitSet result = new BitSet();
+        trie.collect(new long[0][], result);
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void collectsIpV4LikeBruteForce(){
+        collectsLikeBruteForce(32, 1);
+    }
+
+    @Test
+    void collectsIpV6LikeBruteForce(){
+        collectsLikeBruteForce(128, 2);
+    }
+
+    @Test
+    void indexFiltersLikeArrayList(){
+        Random random = new Random(3);
+        List<TestItem> expected = TestItem.random(random, 1000);
+        IndexedList<TestItem> actual = new IndexedList<TestItem>(expected).withIpAddressIndex("ip");
+        expected = new ArrayList<TestItem>(expected);
+        List<Filter> filters = new ArrayList<Filter>();
+        //entity values include unparsable addresses, which never match
+        for(String pattern : new String[]{"*", "0.0.0.0/0", "::/0", "10.*", "10.1.*", "10.1.200.7", "10.0.0.0/15", "192.168.0.0/16", "2001:db8::/32", "2001:db8::/48", "::ffff:10.0.0.0/104", "fe80::1", "11.*"}){
+            filters.add(Filter.create().add("ip", pattern, Filter.IpAddressFilterMethod()));
+        }
+        for(int step = 0; step < 200; step++){
+            int index = random.nextInt(expected.size());
+            if(random.nextBoolean()){
+                TestItem item = TestItem.random(random);
+                expected.set(index, item);
+                actual.set(index, item);
+            }else{
+                expected.remove(index);
+                actual.remove(index);
+                TestItem item = TestItem.random(random);
+                expected.add(index, item);
+                actual.add(index, item);
+            }
+            if(step % 50 == 0){
+                for(Filter filter : filters){
+                    assertEquals(filter.filter(expected), filter.filter(actual), filter.getQueryParameter().toString());
+                }
+            }
+        }
+        for(Filter filter : filters){
+            assertEquals(filter.filter(expected), filter.filter(actual), filter.getQueryParameter().toString());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+class NdjsonResponseBodyTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static String write(NdjsonResponseBody body) throws IOException{
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        body.writeTo(output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void writesOneItemPerLine() throws IOException{
+        TestItem item = new TestItem("Ärger 1", 1L, 2, true, "10.0.0.1");
+        item.addHyperlink("self", "/items/1");
+        String expected = "{\"name\":\"Ärger 1\",\"count\":1,\"size\":2,\"active\":true,\"ip\":\"10.0.0.1\",\"_links\":[{\"href\":\"/items/1\",\"rel\":\"self\"}]}\n"
+            + "{\"name\":null,\"count\":null,\"size\":null,\"active\":null,\"ip\":null,\"_links\":[]}\n";
+        assertEquals(expected, write(new NdjsonResponseBody(MAPPER, Stream.of(item, new TestItem(null, null, null, null, null)))));
+        //lines are not indented, even if the mapper indents its output
+        ObjectMapper indentingMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        assertEquals(expected, write(new NdjsonResponseBody(indentingMapper, Stream.of(item, new TestItem(null, null, null, null, null))).withFlushInterval(1)));
+        assertEquals("", write(new NdjsonResponseBody(MAPPER, Stream.empty())));
+    }
+
+    @Test
+    void writesLikeSeparateSerializations() throws IOException{
+        List<TestItem> source = TestItem.random(new Random(1), 1000);
+        for(Filter filter : TestItem.filters()){
+            for(int flushInterval : new int[]{1, 7, 256}){
+                StringBuilder expected = new StringBuilder();
+                for(TestItem item : filter.filter(source)){
+                    expected.append(MAPPER.writeValueAsString(item)).append('\n');
+                }
+                String actual = write(new NdjsonResponseBody(MAPPER, filter.stream(source.stream())).withFlushInterval(flushInterval));
+                assertEquals(expected.toString(), actual, filter.getQueryParameter().toString());
+            }
+        }
+    }
+
+    @Test
+    void flushesInBatches() throws IOException{
+        List<Integer> flushedSizes = new ArrayList<Integer>();
+        ByteArrayOutputStream output = new ByteArrayOutputStream(){
+            @Override
+            public void flush(){
+                flushedSizes.add(size());
+            }
+        };
+        List<TestItem> items = TestItem.random(new Random(2), 10);
+        new NdjsonResponseBody(MAPPER, items.stream()).withFlushInterval(4).writeTo(output);
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(10, lines.length);
+        //the lines are flushed after the 4th and 8th item and when the generator is closed
+        int fourLines = 0;
+        for(int i = 0; i < 4; i++){
+            fourLines += lines[i].getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+        assertEquals(fourLines, flushedSizes.get(0));
+        assertEquals(output.size(), flushedSizes.get(flushedSizes.size() - 1));
+    }
+
+    @Test
+    void closesStreamAndRejectsInvalidArguments() throws IOException{
+        AtomicBoolean closed = new AtomicBoolean();
+        write(new NdjsonResponseBody(MAPPER, Stream.of(new TestItem("a", 1L, 1, true, null)).onClose(() -> closed.set(true))));
+        assertTrue(closed.get());
+        assertThrows(RuntimeException.class, () -> new NdjsonResponseBody(MAPPER, null));
+        assertThrows(RuntimeException.class, () -> new NdjsonResponseBody(MAPPER, Stream.empty()).withFlushInterval(0));
+    }
+}
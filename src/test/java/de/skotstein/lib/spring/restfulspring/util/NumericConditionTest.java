@@ -0,0 +1,108 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+class NumericConditionTest {
+
+    @Test
+    void evaluatesOperators(){
+        assertTrue(NumericCondition.parse("5").test(5));
+        assertTrue(NumericCondition.parse("eq:5").test(5.0));
+        assertFalse(NumericCondition.parse("gt:5").test(5L));
+        assertTrue(NumericCondition.parse("gte:5").test(5L));
+        assertTrue(NumericCondition.parse("lt:5").test(4.999));
+        assertFalse(NumericCondition.parse("lte:5").test(new BigDecimal("5.0001")));
+        assertTrue(NumericCondition.parse("between:1..10").test(BigInteger.TEN));
+        assertFalse(NumericCondition.parse("between:1..10").test(11));
+        assertTrue(NumericCondition.parse("in:3,1,2").test((short)2));
+        assertFalse(NumericCondition.parse("in:3,1,2").test((byte)4));
+        assertTrue(NumericCondition.parse("in:0.5,1").test(0.5f));
+        assertFalse(NumericCondition.parse("in:0.5,1").test(0L));
+        assertFalse(NumericCondition.parse("gt:0").test(null));
+    }
+
+    @Test
+    void roundsFractionalBoundsForLongValues(){
+        NumericCondition condition = NumericCondition.parse("gt:2.5");
+        assertFalse(condition.test(2L));
+        assertTrue(condition.test(3L));
+        condition = NumericCondition.parse("lt:-2.5");
+        assertTrue(condition.test(-3L));
+        assertFalse(condition.test(-2L));
+        assertTrue(NumericCondition.parse("gt:1e-20").test(1L));
+        assertFalse(NumericCondition.parse("gt:1e-20").test(0L));
+        assertTrue(NumericCondition.parse("lt:-1e-20").test(-1L));
+        assertFalse(NumericCondition.parse("lt:-1e-20").test(0L));
+    }
+
+    @Test
+    void longAndExactComparisonsAgree(){
+        Random random = new Random(7);
+        String[] operators = {"gt:", "gte:", "lt:", "lte:", "eq:"};
+        for(int i = 0; i < 10000; i++){
+            BigDecimal operand = BigDecimal.valueOf(random.nextInt(2001) - 1000).movePointLeft(random.nextInt(3));
+            NumericCondition condition = NumericCondition.parse(operators[random.nextInt(operators.length)] + operand.toPlainString());
+            long value = random.nextInt(2001) - 1000;
+            assertEquals(condition.test(BigDecimal.valueOf(value)), condition.test(value), condition + " " + value);
+        }
+    }
+
+    @Test
+    void handlesExtremeExponentsQuickly(){
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertFalse(NumericCondition.parse("gt:1e99999999").test(Long.MAX_VALUE));
+            assertTrue(NumericCondition.parse("lt:1e99999999").test(Long.MAX_VALUE));
+            assertTrue(NumericCondition.parse("gte:-1e99999999").test(Long.MIN_VALUE));
+            assertFalse(NumericCondition.parse("lte:-1e99999999").test(Long.MIN_VALUE));
+            assertTrue(NumericCondition.parse("gt:1e-99999999").test(1L));
+            assertFalse(NumericCondition.parse("gt:1e-99999999").test(0L));
+            assertTrue(NumericCondition.parse("between:-1e-99999999..1e-99999999").test(0L));
+            assertTrue(NumericCondition.parse("in:1e99999999,0e-99999999").test(0L));
+            assertTrue(FilterExpression.parse("value gt 1e-99999999").toString().length() > 0);
+        });
+    }
+
+    @Test
+    void rejectsMalformedConditions(){
+        String[] conditions = {"", "abc", "gt:", "gt:x", "between:1", "between:1..", "between:..2", "between:2..1", "in:", "in:1,2,", "in:,1", "in:1,,2", "eq:1e", "lt:0x10"};
+        for(String condition : conditions){
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> NumericCondition.parse(condition), condition);
+            assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode(), condition);
+        }
+        assertThrows(ResponseStatusException.class, () -> NumericCondition.parse(null));
+    }
+
+    @Test
+    void rejectsNonNumericEntityValues(){
+        assertThrows(RuntimeException.class, () -> NumericCondition.parse("gt:1").test("2"));
+    }
+}
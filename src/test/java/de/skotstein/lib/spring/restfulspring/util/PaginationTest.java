@@ -0,0 +1,120 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class PaginationTest {
+
+    private static final Integer[] STARTS = {0, 1, 5, 99, 100, 150, -1, -5, Integer.MAX_VALUE, Integer.MIN_VALUE};
+    private static final Integer[] LIMITS = {null, 0, 1, 2, 10, 200, -1, -3, Integer.MAX_VALUE, Integer.MIN_VALUE};
+
+    @Test
+    void requiresItemsUpToTheItemFollowingTheRange(){
+        assertEquals(Integer.MAX_VALUE, Pagination.of(5, 10).getRequiredItems());
+        assertEquals(Integer.MAX_VALUE, Pagination.of(5, null).withExactTotals(false).getRequiredItems());
+        assertEquals(16, Pagination.of(5, 10).withExactTotals(false).getRequiredItems());
+        assertEquals(1, Pagination.of(0, 0).withExactTotals(false).getRequiredItems());
+        //negative starts and limits
+        assertEquals(1, Pagination.of(-5, 2).withExactTotals(false).getRequiredItems());
+        assertEquals(3, Pagination.of(-5, 7).withExactTotals(false).getRequiredItems());
+        assertEquals(6, Pagination.of(5, -2).withExactTotals(false).getRequiredItems());
+        //overflowing starts and limits
+        assertEquals(Integer.MAX_VALUE, Pagination.of(Integer.MAX_VALUE, 10).withExactTotals(false).getRequiredItems());
+        assertEquals(Integer.MAX_VALUE, Pagination.of(10, Integer.MAX_VALUE).withExactTotals(false).getRequiredItems());
+        assertEquals(1, Pagination.of(Integer.MIN_VALUE, Integer.MIN_VALUE).withExactTotals(false).getRequiredItems());
+        for(Integer start : STARTS){
+            for(Integer limit : LIMITS){
+                assertTrue(Pagination.of(start, limit).withExactTotals(false).getRequiredItems() > 0, start + " " + limit);
+            }
+        }
+    }
+
+    @Test
+    void countsItemsLikeSkipItem(){
+        for(Integer start : STARTS){
+            for(Integer limit : LIMITS){
+                for(int total : new int[]{0, 1, 100}){
+                    Pagination skipped = Pagination.of(start, limit);
+                    for(int i = 0; i < total; i++){
+                        skipped.skipItem(i);
+                    }
+                    Pagination counted = Pagination.of(start, limit);
+                    counted.countItems(total);
+                    assertEquals(skipped.getItemsBefore(), counted.getItemsBefore(), start + " " + limit + " " + total);
+                    assertEquals(skipped.getItemsAfter(), counted.getItemsAfter(), start + " " + limit + " " + total);
+                }
+            }
+        }
+    }
+
+    @Test
+    void paginatesStreamsLikeLists(){
+        List<Integer> items = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        for(Integer start : STARTS){
+            for(Integer limit : LIMITS){
+                for(boolean exactTotals : new boolean[]{true, false}){
+                    Pagination expectedPagination = Pagination.of(start, limit);
+                    List<Integer> expected = new ArrayList<Integer>();
+                    for(int i = 0; i < items.size(); i++){
+                        if(!expectedPagination.skipItem(i)){
+                            expected.add(items.get(i));
+                        }
+                    }
+                    Pagination pagination = Pagination.of(start, limit).withExactTotals(exactTotals);
+                    AtomicInteger consumed = new AtomicInteger();
+                    List<Integer> actual = pagination.paginate(items.stream().peek(item -> consumed.incrementAndGet())).collect(Collectors.toList());
+                    String message = start + " " + limit + " " + exactTotals;
+                    assertEquals(expected, actual, message);
+                    assertEquals(expectedPagination.getItemsBefore(), pagination.getItemsBefore(), message);
+                    if(exactTotals){
+                        assertEquals(expectedPagination.getItemsAfter(), pagination.getItemsAfter(), message);
+                        assertEquals(items.size(), consumed.get(), message);
+                    }else{
+                        //the stream stops after the item following the range
+                        assertEquals(Math.min(1, expectedPagination.getItemsAfter()), pagination.getItemsAfter(), message);
+                        assertEquals(Math.min(items.size(), pagination.getRequiredItems()), consumed.get(), message);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void filtersRequiredItemsOnly(){
+        List<TestItem> items = TestItem.random(new Random(1), 1000);
+        Filter filter = Filter.create().add("active", true);
+        List<TestItem> all = filter.filter(items);
+        assertEquals(all.subList(0, 16), filter.filter(items, Pagination.of(5, 10).withExactTotals(false).getRequiredItems()));
+        assertEquals(all.subList(0, 1), filter.filter(items, Pagination.of(-5, 2).withExactTotals(false).getRequiredItems()));
+        assertEquals(all, filter.filter(items, Pagination.of(Integer.MAX_VALUE, 2).withExactTotals(false).getRequiredItems()));
+        assertTrue(filter.filter(items, 0).isEmpty());
+        assertThrows(RuntimeException.class, () -> filter.filter(items, -1));
+        assertThrows(RuntimeException.class, () -> filter.filter(new IndexedList<TestItem>(items).withBitmapIndex("active"), -1));
+    }
+}
@@ -0,0 +1,89 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ParallelFilterTaskTest {
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void createPool(){
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void shutdownPool(){
+        pool.shutdown();
+    }
+
+    private static Filter parallel(Filter filter, int threshold){
+        Filter parallelFilter = Filter.create().withParallelism(pool, threshold);
+        for(FilterCriterion criterion : filter.getItemsAsReadOnly()){
+            parallelFilter.add(criterion);
+        }
+        return parallelFilter;
+    }
+
+    @Test
+    void filtersLikeSequentialFilter(){
+        Random random = new Random(1);
+        for(int size : new int[]{0, 1, 5, 1023, 1024, 1025, 20000}){
+            List<TestItem> items = TestItem.random(random, size);
+            for(Filter filter : TestItem.filters()){
+                List<TestItem> expected = filter.filter(items);
+                for(int threshold : new int[]{1, 10, 100000}){
+                    Filter parallelFilter = parallel(filter, threshold);
+                    assertEquals(expected, parallelFilter.filter(items), size + " " + threshold + " " + filter.getQueryParameter());
+                    assertEquals(expected, parallelFilter.filter(new LinkedList<TestItem>(items)), size + " " + threshold + " " + filter.getQueryParameter());
+                    assertEquals(expected.size(), parallelFilter.count(items));
+                }
+            }
+        }
+    }
+
+    @Test
+    void filtersEmptyLists(){
+        Filter filter = Filter.create().add("name", "x").withParallelism(pool, 1);
+        assertTrue(filter.filter(new ArrayList<TestItem>()).isEmpty());
+        assertTrue(filter.filter(new LinkedList<TestItem>()).isEmpty());
+        assertTrue(Filter.create().withParallelism(pool, 1).filter(new ArrayList<TestItem>()).isEmpty());
+    }
+
+    @Test
+    void rejectsThresholdsBelowOne(){
+        assertThrows(RuntimeException.class, () -> Filter.create().add("name", "x").withParallelism(pool, 0));
+        assertThrows(RuntimeException.class, () -> Filter.create().add("name", "x").withParallelism(null, -1));
+        //null disables parallel filtering
+        List<TestItem> items = TestItem.random(new Random(2), 10);
+        Filter filter = Filter.create().add("active", true);
+        assertEquals(filter.filter(items), parallel(filter, 1).withParallelism(null).filter(items));
+    }
+}
@@ -0,0 +1,180 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+class RestClientImplTest {
+
+    private static final String ITEMS = "{\"name\":\"a\",\"count\":1}\n{\"name\":\"b\",\"count\":2}\n{\"name\":\"c\",\"count\":3}\n";
+
+    private static HttpServer server;
+    private static String base;
+    private static volatile String acceptHeader;
+    private static volatile String acceptEncodingHeader;
+    private static CountDownLatch closed;
+
+    @BeforeAll
+    static void startServer() throws IOException{
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/plain", exchange -> respond(exchange, 200, null, ITEMS.getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/gzip", exchange -> respond(exchange, 200, "gzip", gzip(ITEMS)));
+        server.createContext("/empty", exchange -> respond(exchange, 204, null, null));
+        server.createContext("/malformed", exchange -> respond(exchange, 200, null, "{\"name\":\"a\"}\n{\"name\":\n".getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/error", exchange -> respond(exchange, 404, "gzip", gzip("not found")));
+        server.createContext("/plainerror", exchange -> respond(exchange, 404, null, "not found".getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/endless", RestClientImplTest::respondEndlessly);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        base = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterAll
+    static void stopServer(){
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentEncoding, byte[] body) throws IOException{
+        acceptHeader = exchange.getRequestHeaders().getFirst("Accept");
+        acceptEncodingHeader = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if(contentEncoding != null){
+            exchange.getResponseHeaders().add("Content-Encoding", contentEncoding);
+        }
+        exchange.getResponseHeaders().add("Content-Type", NdjsonResponseBody.MEDIA_TYPE_VALUE);
+        exchange.sendResponseHeaders(status, body == null ? -1 : body.length);
+        if(body != null){
+            try(OutputStream os = exchange.getResponseBody()){
+                os.write(body);
+            }
+        }
+        exchange.close();
+    }
+
+    /**
+     * Writes items until the client closes the connection
+     */
+    private static void respondEndlessly(HttpExchange exchange) throws IOException{
+        exchange.sendResponseHeaders(200, 0);
+        byte[] line = "{\"name\":\"a\",\"count\":1}\n".getBytes(StandardCharsets.UTF_8);
+        long deadline = System.currentTimeMillis() + 10000;
+        try(OutputStream os = exchange.getResponseBody()){
+            while(System.currentTimeMillis() < deadline){
+                os.write(line);
+                os.flush();
+            }
+        }catch(IOException ioe){
+            closed.countDown();
+        }
+        exchange.close();
+    }
+
+    private static byte[] gzip(String content) throws IOException{
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(GZIPOutputStream gzip = new GZIPOutputStream(bytes)){
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<String> names(String path) throws RestClientException{
+        List<String> names = new ArrayList<String>();
+        RestClient.create(base).getNdjson(path, item -> names.add(item.get("name").asText()));
+        return names;
+    }
+
+    @Test
+    void readsPlainItems() throws RestClientException{
+        assertEquals(List.of("a", "b", "c"), names("/plain"));
+        assertEquals(NdjsonResponseBody.MEDIA_TYPE_VALUE, acceptHeader);
+        assertEquals("gzip", acceptEncodingHeader);
+    }
+
+    @Test
+    void readsGzipItems() throws RestClientException{
+        assertEquals(List.of("a", "b", "c"), names("/gzip"));
+        List<Map<?,?>> items = new ArrayList<Map<?,?>>();
+        RestClient client = RestClient.create(base).getNdjson("/gzip", Map.class, items::add);
+        assertEquals(3, items.size());
+        assertEquals(2, items.get(1).get("count"));
+        assertEquals(200, client.result().getStatusCode());
+        assertNull(client.result().getResponseContent());
+    }
+
+    @Test
+    void readsEmptyResponses() throws RestClientException{
+        assertTrue(names("/empty").isEmpty());
+    }
+
+    @Test
+    void reportsMalformedItems(){
+        List<JsonNode> items = new ArrayList<JsonNode>();
+        RestClientSchemaException exception = assertThrows(RestClientSchemaException.class, () -> RestClient.create(base).getNdjson("/malformed", items::add));
+        //the items preceding the malformed line have been consumed
+        assertEquals(1, items.size());
+        assertTrue(exception.getMessage().contains("item 2"), exception.getMessage());
+    }
+
+    @Test
+    void reportsErrors() throws RestClientException{
+        RestClientRequestException exception = assertThrows(RestClientRequestException.class, () -> names("/error"));
+        assertEquals(404, exception.getRestClientResult().getStatusCode());
+        RestClient client = RestClient.create(base).withRequestException(false).getNdjson("/error", item -> {});
+        assertEquals("not found", client.result().getErrorContent());
+        //other requests do not decompress their responses, the error body is read as received
+        client.get("/plainerror");
+        assertEquals("not found", client.result().getErrorContent());
+    }
+
+    @Test
+    void closesConnectionIfConsumerFails() throws InterruptedException{
+        closed = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException();
+        int[] consumed = {0};
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> RestClient.create(base).getNdjson("/endless", item -> {
+            if(++consumed[0] == 10){
+                throw failure;
+            }
+        }));
+        assertSame(failure, exception);
+        assertTrue(closed.await(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,144 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import de.skotstein.lib.spring.restfulspring.model.entities.ResourceCollection;
+
+class StreamingJsonResponseBodyTest {
+
+    static class TestItemCollection extends ResourceCollection<TestItem> {
+
+        @JsonProperty("items")
+        public List<TestItem> getItems(){
+            return items;
+        }
+
+        @JsonProperty("total")
+        public int getTotal(){
+            return 42;
+        }
+
+        void setItems(List<TestItem> items){
+            this.items = items;
+        }
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static String write(StreamingJsonResponseBody body) throws IOException{
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        body.writeTo(output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Serializes the collection with all items and moves the links to the front and the items to the end
+     */
+    private static String buffered(TestItemCollection collection, List<TestItem> items) throws IOException{
+        collection.setItems(items);
+        JsonNode node = MAPPER.readTree(MAPPER.writeValueAsBytes(collection));
+        collection.setItems(new ArrayList<TestItem>());
+        ObjectNode ordered = MAPPER.createObjectNode();
+        ordered.set("_links", node.get("_links"));
+        for(Iterator<Map.Entry<String,JsonNode>> fields = node.fields(); fields.hasNext();){
+            Map.Entry<String,JsonNode> field = fields.next();
+            if(!field.getKey().equals("_links") && !field.getKey().equals("items")){
+                ordered.set(field.getKey(), field.getValue());
+            }
+        }
+        ordered.set("items", node.get("items"));
+        return MAPPER.writeValueAsString(ordered);
+    }
+
+    private static Pagination copy(Pagination pagination){
+        return pagination == null ? null : Pagination.of(pagination.getStart(), pagination.getLimit()).withExactTotals(pagination.isExactTotals());
+    }
+
+    @Test
+    void writesCollectionWithItemsLast() throws IOException{
+        TestItemCollection collection = new TestItemCollection();
+        collection.addHyperlink("self", "/items");
+        List<TestItem> items = List.of(new TestItem("Alpha", 1L, 2, true, "10.0.0.1"), new TestItem(null, null, null, null, null));
+        String expected = "{\"_links\":[{\"href\":\"/items\",\"rel\":\"self\"}],\"total\":42,\"items\":["
+            + "{\"name\":\"Alpha\",\"count\":1,\"size\":2,\"active\":true,\"ip\":\"10.0.0.1\",\"_links\":[]},"
+            + "{\"name\":null,\"count\":null,\"size\":null,\"active\":null,\"ip\":null,\"_links\":[]}]}";
+        assertEquals(expected, write(new StreamingJsonResponseBody(MAPPER, collection, "items", items.stream())));
+        assertEquals(expected, buffered(collection, items));
+        //without items
+        assertEquals("{\"_links\":[{\"href\":\"/items\",\"rel\":\"self\"}],\"total\":42,\"items\":[]}",
+            write(new StreamingJsonResponseBody(MAPPER, collection, "items", Stream.empty())));
+    }
+
+    @Test
+    void writesLikeBufferedSerialization() throws IOException{
+        List<TestItem> source = TestItem.random(new Random(1), 500);
+        for(Filter filter : TestItem.filters()){
+            for(Pagination pagination : new Pagination[]{Pagination.of(0, 10), Pagination.of(20, 100).withExactTotals(false), null}){
+                TestItemCollection collection = new TestItemCollection();
+                collection.addHyperlink("self", "/items");
+                collection.setItems(new ArrayList<TestItem>(source));
+                collection.reduceItems(filter, copy(pagination));
+                List<TestItem> expectedItems = collection.getItems();
+                collection.setItems(new ArrayList<TestItem>());
+                String expected = buffered(collection, expectedItems);
+                String actual = write(collection.streamItems(MAPPER, "items", source.stream(), filter, copy(pagination)));
+                assertEquals(expected, actual, filter.getQueryParameter().toString());
+            }
+        }
+    }
+
+    @Test
+    void closesStreamAndKeepsOutputOpen() throws IOException{
+        AtomicBoolean streamClosed = new AtomicBoolean();
+        AtomicBoolean outputClosed = new AtomicBoolean();
+        OutputStream output = new ByteArrayOutputStream(){
+            @Override
+            public void close() throws IOException {
+                outputClosed.set(true);
+            }
+        };
+        new StreamingJsonResponseBody(MAPPER, new TestItemCollection(), "items", Stream.of(new TestItem("a", 1L, 1, true, null)).onClose(() -> streamClosed.set(true)))
+            .writeTo(output);
+        assertTrue(streamClosed.get());
+        assertFalse(outputClosed.get());
+        assertThrows(RuntimeException.class, () -> new StreamingJsonResponseBody(MAPPER, null, "items", Stream.empty()));
+    }
+}
@@ -0,0 +1,125 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import de.skotstein.lib.spring.restfulspring.model.entities.Hypermedia;
+
+/**
+ * Item having {@link Filterable} properties of all supported kinds, used to compare the results of indexes and snapshots with the results of plain lists.
+ * Items are {@link Hypermedia} so that they can be the items of a {@link de.skotstein.lib.spring.restfulspring.model.entities.ResourceCollection}
+ */
+public class TestItem extends Hypermedia {
+
+    private static final String[] NAMES = {"Alpha", "beta", "GAMMA", " delta ", "Ärger", "straße", "x", ""};
+    private static final String[] ADDRESSES = {"10.0.0.1", "10.1.2.3", "10.1.200.7", "192.168.1.1", "::ffff:10.1.0.9", "2001:db8::1", "2001:db8:1::5", "fe80::1", "1.2.3.abc", ""};
+
+    private final String name;
+    private final Long count;
+    private final Integer size;
+    private final Boolean active;
+    private final String ip;
+
+    public TestItem(String name, Long count, Integer size, Boolean active, String ip){
+        this.name = name;
+        this.count = count;
+        this.size = size;
+        this.active = active;
+        this.ip = ip;
+    }
+
+    @Filterable(query = "name")
+    public String getName(){
+        return name;
+    }
+
+    @Filterable(query = "count")
+    public Long getCount(){
+        return count;
+    }
+
+    @Filterable(query = "size")
+    public Integer getSize(){
+        return size;
+    }
+
+    @Filterable(query = "active")
+    public Boolean getActive(){
+        return active;
+    }
+
+    @Filterable(query = "ip")
+    public String getIp(){
+        return ip;
+    }
+
+    /**
+     * Returns a random item, each property is null with a probability of 1/8
+     * @param random the random generator
+     * @return the item
+     */
+    public static TestItem random(Random random){
+        return new TestItem(
+            random.nextInt(8) == 0 ? null : NAMES[random.nextInt(NAMES.length)] + random.nextInt(20),
+            random.nextInt(8) == 0 ? null : Long.valueOf(random.nextInt(30)),
+            random.nextInt(8) == 0 ? null : Integer.valueOf(random.nextInt(30) - 5),
+            random.nextInt(8) == 0 ? null : Boolean.valueOf(random.nextBoolean()),
+            random.nextInt(8) == 0 ? null : ADDRESSES[random.nextInt(ADDRESSES.length)]);
+    }
+
+    /**
+     * Returns the passed number of random items
+     * @param random the random generator
+     * @param size the number of items
+     * @return the items
+     */
+    public static List<TestItem> random(Random random, int size){
+        List<TestItem> items = new ArrayList<TestItem>();
+        for(int i = 0; i < size; i++){
+            items.add(random(random));
+        }
+        return items;
+    }
+
+    /**
+     * Returns filters covering all index kinds, i.e., hash, sorted, bitmap, trigram, and IP address indexes
+     * @return the filters
+     */
+    public static List<Filter> filters(){
+        List<Filter> filters = new ArrayList<Filter>();
+        filters.add(Filter.create().add("count", 5L));
+        filters.add(Filter.create().add("count", 7L).add("active", true));
+        filters.add(Filter.create().add("size", "gt:10", Filter.RhsNumericFilterMethod()));
+        filters.add(Filter.create().add("size", "between:-2..3", Filter.RhsNumericFilterMethod()).add("name", "a"));
+        filters.add(Filter.create().add("size", 12, Filter.GreaterThanOrEqualToFilterMethod(false)).add("count", 20L, Filter.LessThanFilterMethod()));
+        filters.add(Filter.create().add("active", false));
+        filters.add(Filter.create().add("name", "al"));
+        filters.add(Filter.create().add("name", "PHA1"));
+        filters.add(Filter.create().add("name", "STRAßE"));
+        filters.add(Filter.create().add("name", "ä"));
+        filters.add(Filter.create().add("name", "ta 1"));
+        filters.add(Filter.create().add("ip", "10.1.*", Filter.IpAddressFilterMethod()));
+        filters.add(Filter.create().add("ip", "10.0.0.0/15", Filter.IpAddressFilterMethod()).add("active", true));
+        filters.add(Filter.create().add("ip", "2001:db8::/32", Filter.IpAddressFilterMethod()));
+        filters.add(Filter.create().add("ip", "::ffff:10.0.0.0/104", Filter.IpAddressFilterMethod()));
+        filters.add(Filter.create().add("name", null).add("count", null));
+        return filters;
+    }
+}
@@ -0,0 +1,130 @@
+/* 
+ *  Copyright 2022 Sebastian Kotstein
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.   
+ */
+
+package de.skotstein.lib.spring.restfulspring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TrigramFilterIndexTest {
+
+    private static final String ALPHABET = "abAB äÄöÖ";
+
+    private static String randomName(Random random){
+        if(random.nextInt(10) == 0){
+            return null;
+        }
+        //short names have fewer than three characters and thus no trigrams
+        int length = random.nextInt(10);
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < length; i++){
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+
+    private static TestItem randomItem(Random random){
+        return new TestItem(randomName(random), null, null, null, null);
+    }
+
+    private static List<Filter> randomFilters(Random random, List<TestItem> items){
+        List<Filter> filters = new ArrayList<Filter>();
+        for(int length : new int[]{1, 2, 3, 5}){
+            for(int i = 0; i < 5; i++){
+                //substrings of existing values in random case as well as random substrings, which may not occur
+                String value = items.get(random.nextInt(items.size())).getName();
+                String substring;
+                if(random.nextBoolean() && value != null && value.length() >= length){
+                    int start = random.nextInt(value.length() - length + 1);
+                    substring = value.substring(start, start + length);
+                    substring = random.nextBoolean() ? substring.toUpperCase() : substring.toLowerCase();
+                }else{
+                    StringBuilder builder = new StringBuilder();
+                    for(int c = 0; c < length; c++){
+                        builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                    }
+                    substring = builder.toString();
+                }
+                filters.add(Filter.create().add("name", substring));
+            }
+        }
+        filters.add(Filter.create().add("name", ""));
+        filters.add(Filter.create().add("name", null));
+        filters.add(Filter.create().add("name", "ÄÖ").add("name", "ba"));
+        return filters;
+    }
+
+    private static void assertSameResults(List<TestItem> expected, List<TestItem> actual, List<Filter> filters){
+        for(Filter filter : filters){
+            List<TestItem> expectedResults = filter.filter(expected);
+            assertEquals(expectedResults, filter.filter(actual), filter.getQueryParameter().toString());
+            assertEquals(expectedResults.size(), filter.count(actual), filter.getQueryParameter().toString());
+        }
+    }
+
+    @Test
+    void filtersLikeArrayList(){
+        Random random = new Random(1);
+        List<TestItem> expected = new ArrayList<TestItem>();
+        for(int i = 0; i < 2000; i++){
+            expected.add(randomItem(random));
+        }
+        IndexedList<TestItem> actual = new IndexedList<TestItem>(expected).withTrigramIndex("name");
+        List<Filter> filters = randomFilters(random, expected);
+        assertSameResults(expected, actual, filters);
+        //case-folding must be effective
+        assertFalse(Filter.create().add("name", "ÄÄÄ").filter(actual).isEmpty());
+        assertEquals(Filter.create().add("name", "äää").filter(actual), Filter.create().add("name", "ÄÄÄ").filter(actual));
+    }
+
+    @Test
+    void filtersLikeArrayListAfterModifications(){
+        Random random = new Random(2);
+        List<TestItem> expected = new ArrayList<TestItem>();
+        for(int i = 0; i < 500; i++){
+            expected.add(randomItem(random));
+        }
+        IndexedList<TestItem> actual = new IndexedList<TestItem>(expected).withTrigramIndex("name");
+        for(int step = 0; step < 300; step++){
+            int index = random.nextInt(expected.size());
+            switch(random.nextInt(3)){
+                case 0:
+                    TestItem inserted = randomItem(random);
+                    expected.add(index, inserted);
+                    actual.add(index, inserted);
+                    break;
+                case 1:
+                    expected.remove(index);
+                    actual.remove(index);
+                    break;
+                default:
+                    TestItem replacement = randomItem(random);
+                    expected.set(index, replacement);
+                    actual.set(index, replacement);
+            }
+            if(step % 30 == 0){
+                assertSameResults(expected, actual, randomFilters(random, expected));
+            }
+        }
+        assertSameResults(expected, actual, randomFilters(random, expected));
+    }
+}